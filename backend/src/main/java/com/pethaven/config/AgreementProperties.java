@@ -0,0 +1,114 @@
+package com.pethaven.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@ConfigurationProperties(prefix = "agreements")
+public class AgreementProperties {
+    private Document document = new Document();
+
+    public Document getDocument() {
+        return document;
+    }
+
+    public void setDocument(Document document) {
+        this.document = document;
+    }
+
+    public static class Document {
+        /**
+         * Число потоков, формирующих и загружающих документы договоров.
+         */
+        private int workers = 2;
+        /**
+         * Сколько задач может ждать свободного потока; остальные подберет периодический обход.
+         */
+        private int queueCapacity = 100;
+        /**
+         * Попыток до перевода договора в failed.
+         */
+        private int maxAttempts = 5;
+        /**
+         * Пауза перед первым повтором, далее удваивается до {@code maxBackoff}.
+         */
+        private Duration initialBackoff = Duration.ofSeconds(15);
+        private Duration maxBackoff = Duration.ofMinutes(10);
+        /**
+         * На сколько попытка закрепляется за обработчиком; если узел упал, договор вернется в обход после аренды.
+         */
+        private Duration lease = Duration.ofMinutes(2);
+        /**
+         * Сколько договоров берет за раз периодический обход.
+         */
+        private int sweepBatchSize = 50;
+        /**
+         * Период обхода; читается аннотацией {@code @Scheduled} в {@code AgreementDocumentService}.
+         */
+        private Duration sweepInterval = Duration.ofSeconds(30);
+
+        public int getWorkers() {
+            return workers;
+        }
+
+        public void setWorkers(int workers) {
+            this.workers = workers;
+        }
+
+        public int getQueueCapacity() {
+            return queueCapacity;
+        }
+
+        public void setQueueCapacity(int queueCapacity) {
+            this.queueCapacity = queueCapacity;
+        }
+
+        public int getMaxAttempts() {
+            return maxAttempts;
+        }
+
+        public void setMaxAttempts(int maxAttempts) {
+            this.maxAttempts = maxAttempts;
+        }
+
+        public Duration getInitialBackoff() {
+            return initialBackoff;
+        }
+
+        public void setInitialBackoff(Duration initialBackoff) {
+            this.initialBackoff = initialBackoff;
+        }
+
+        public Duration getMaxBackoff() {
+            return maxBackoff;
+        }
+
+        public void setMaxBackoff(Duration maxBackoff) {
+            this.maxBackoff = maxBackoff;
+        }
+
+        public Duration getLease() {
+            return lease;
+        }
+
+        public void setLease(Duration lease) {
+            this.lease = lease;
+        }
+
+        public int getSweepBatchSize() {
+            return sweepBatchSize;
+        }
+
+        public void setSweepBatchSize(int sweepBatchSize) {
+            this.sweepBatchSize = sweepBatchSize;
+        }
+
+        public Duration getSweepInterval() {
+            return sweepInterval;
+        }
+
+        public void setSweepInterval(Duration sweepInterval) {
+            this.sweepInterval = sweepInterval;
+        }
+    }
+}
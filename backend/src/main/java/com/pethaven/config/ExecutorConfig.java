@@ -0,0 +1,94 @@
+package com.pethaven.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.task.ThreadPoolTaskExecutorBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+@Configuration
+@EnableConfigurationProperties(AgreementProperties.class)
+public class ExecutorConfig {
+
+    /**
+     * Общий пул приложения для коротких фоновых задач. Boot создает его только при отсутствии других
+     * Executor-бинов, поэтому при наличии специализированных пулов ниже он объявлен явно;
+     * размеры берутся из {@code spring.task.execution.pool}.
+     */
+    @Primary
+    @Bean(name = {"applicationTaskExecutor", "taskExecutor"})
+    public ThreadPoolTaskExecutor applicationTaskExecutor(ThreadPoolTaskExecutorBuilder builder) {
+        return builder.build();
+    }
+
+    /**
+     * Пул асинхронных ответов MVC: медиа отдается через {@code StreamingResponseBody}, и поток занят,
+     * пока клиент читает ответ. Задачи упираются в сеть, а не в процессор, поэтому пул размером с пул
+     * Tomcat и без очереди: новый ответ сразу получает поток, а не ждет за долгими видео.
+     * Простаивающие потоки завершаются.
+     */
+    @Bean
+    public ThreadPoolTaskExecutor mvcAsyncExecutor(@Value("${mvc-async.pool-size:200}") int poolSize) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setThreadNamePrefix("mvc-async-");
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setQueueCapacity(0);
+        executor.setAllowCoreThreadTimeOut(true);
+        executor.setKeepAliveSeconds(60);
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(30);
+        return executor;
+    }
+
+    /**
+     * Пул для построения уменьшенных копий изображений. При переполнении очереди задача отклоняется:
+     * оригинал остается доступен, а копии построит периодический обход медиа без {@code variant_widths}.
+     */
+    @Bean
+    public ThreadPoolTaskExecutor mediaVariantExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setThreadNamePrefix("media-variant-");
+        executor.setCorePoolSize(2);
+        executor.setMaxPoolSize(2);
+        executor.setQueueCapacity(200);
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(30);
+        return executor;
+    }
+
+    /**
+     * Пул, вычерпывающий очереди WebSocket-сессий. Задача ставится одна на сессию, поэтому отказ
+     * пула не теряет сообщения: очередь снова поставит в пул периодический обход диспетчера.
+     */
+    @Bean
+    public ThreadPoolTaskExecutor notificationDispatchExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setThreadNamePrefix("notification-dispatch-");
+        executor.setCorePoolSize(4);
+        executor.setMaxPoolSize(4);
+        executor.setQueueCapacity(1000);
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(10);
+        return executor;
+    }
+
+    /**
+     * Пул формирования документов договоров. Состояние задачи хранится в строке договора,
+     * поэтому отказ пула ничего не теряет: договор подберет периодический обход.
+     */
+    @Bean
+    public ThreadPoolTaskExecutor agreementDocumentExecutor(AgreementProperties properties) {
+        AgreementProperties.Document config = properties.getDocument();
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setThreadNamePrefix("agreement-document-");
+        executor.setCorePoolSize(config.getWorkers());
+        executor.setMaxPoolSize(config.getWorkers());
+        executor.setQueueCapacity(config.getQueueCapacity());
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(30);
+        return executor;
+    }
+}
@@ -2,12 +2,43 @@ package com.pethaven.config;
 
 import org.springframework.boot.context.properties.ConfigurationProperties;
 
+import java.time.Duration;
+import java.util.List;
+
 @ConfigurationProperties(prefix = "media")
 public class MediaProperties {
     /**
      * Базовый префикс для прокси-выдачи медиа (по умолчанию /api/v1/media).
      */
     private String proxyBase = "/api/v1/media";
+    /**
+     * Ширины (px) уменьшенных копий изображений, которые строятся после загрузки.
+     */
+    private List<Integer> variantWidths = List.of(160, 480, 1280);
+    /**
+     * Качество JPEG для уменьшенных копий, от 0 до 1.
+     */
+    private float variantQuality = 0.82f;
+    /**
+     * Период обхода медиа, для которых копии не построены (отказ пула, сбой хранилища, перезапуск).
+     */
+    private Duration variantSweepInterval = Duration.ofMinutes(5);
+    /**
+     * Обход берет только медиа старше этого возраста, чтобы не дублировать только что поставленные задачи.
+     */
+    private Duration variantSweepDelay = Duration.ofMinutes(10);
+    private int variantSweepBatchSize = 50;
+    /**
+     * После стольких неудачных попыток медиа отдается только оригиналом; паузы между попытками растут
+     * вдвое от {@code variantRetryBackoff} до {@code variantMaxRetryBackoff}.
+     */
+    private int variantMaxAttempts = 5;
+    private Duration variantRetryBackoff = Duration.ofMinutes(10);
+    private Duration variantMaxRetryBackoff = Duration.ofHours(12);
+    /**
+     * Изображения с большим числом пикселей не декодируются: копии не строятся, отдается оригинал.
+     */
+    private long variantMaxPixels = 40_000_000L;
 
     public String getProxyBase() {
         return proxyBase;
@@ -16,4 +47,76 @@ public class MediaProperties {
     public void setProxyBase(String proxyBase) {
         this.proxyBase = proxyBase;
     }
+
+    public List<Integer> getVariantWidths() {
+        return variantWidths;
+    }
+
+    public void setVariantWidths(List<Integer> variantWidths) {
+        this.variantWidths = variantWidths;
+    }
+
+    public float getVariantQuality() {
+        return variantQuality;
+    }
+
+    public void setVariantQuality(float variantQuality) {
+        this.variantQuality = variantQuality;
+    }
+
+    public Duration getVariantSweepInterval() {
+        return variantSweepInterval;
+    }
+
+    public void setVariantSweepInterval(Duration variantSweepInterval) {
+        this.variantSweepInterval = variantSweepInterval;
+    }
+
+    public Duration getVariantSweepDelay() {
+        return variantSweepDelay;
+    }
+
+    public void setVariantSweepDelay(Duration variantSweepDelay) {
+        this.variantSweepDelay = variantSweepDelay;
+    }
+
+    public int getVariantSweepBatchSize() {
+        return variantSweepBatchSize;
+    }
+
+    public void setVariantSweepBatchSize(int variantSweepBatchSize) {
+        this.variantSweepBatchSize = variantSweepBatchSize;
+    }
+
+    public int getVariantMaxAttempts() {
+        return variantMaxAttempts;
+    }
+
+    public void setVariantMaxAttempts(int variantMaxAttempts) {
+        this.variantMaxAttempts = variantMaxAttempts;
+    }
+
+    public Duration getVariantRetryBackoff() {
+        return variantRetryBackoff;
+    }
+
+    public void setVariantRetryBackoff(Duration variantRetryBackoff) {
+        this.variantRetryBackoff = variantRetryBackoff;
+    }
+
+    public Duration getVariantMaxRetryBackoff() {
+        return variantMaxRetryBackoff;
+    }
+
+    public void setVariantMaxRetryBackoff(Duration variantMaxRetryBackoff) {
+        this.variantMaxRetryBackoff = variantMaxRetryBackoff;
+    }
+
+    public long getVariantMaxPixels() {
+        return variantMaxPixels;
+    }
+
+    public void setVariantMaxPixels(long variantMaxPixels) {
+        this.variantMaxPixels = variantMaxPixels;
+    }
 }
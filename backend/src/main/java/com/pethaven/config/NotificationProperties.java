@@ -0,0 +1,169 @@
+package com.pethaven.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+
+@ConfigurationProperties(prefix = "notifications")
+public class NotificationProperties {
+    private Dispatch dispatch = new Dispatch();
+    private Listen listen = new Listen();
+    private Retention retention = new Retention();
+
+    public Dispatch getDispatch() {
+        return dispatch;
+    }
+
+    public void setDispatch(Dispatch dispatch) {
+        this.dispatch = dispatch;
+    }
+
+    public Listen getListen() {
+        return listen;
+    }
+
+    public void setListen(Listen listen) {
+        this.listen = listen;
+    }
+
+    public Retention getRetention() {
+        return retention;
+    }
+
+    public void setRetention(Retention retention) {
+        this.retention = retention;
+    }
+
+    public static class Dispatch {
+        /**
+         * Сколько сообщений может ждать отправки в одну сессию; при переполнении отбрасываются самые старые.
+         */
+        private int sessionQueueCapacity = 256;
+        /**
+         * Предел времени одной отправки и объема неотправленных данных; при превышении сессия закрывается.
+         */
+        private Duration sendTimeLimit = Duration.ofSeconds(10);
+        private DataSize sendBufferSizeLimit = DataSize.ofKilobytes(512);
+
+        public int getSessionQueueCapacity() {
+            return sessionQueueCapacity;
+        }
+
+        public void setSessionQueueCapacity(int sessionQueueCapacity) {
+            this.sessionQueueCapacity = sessionQueueCapacity;
+        }
+
+        public Duration getSendTimeLimit() {
+            return sendTimeLimit;
+        }
+
+        public void setSendTimeLimit(Duration sendTimeLimit) {
+            this.sendTimeLimit = sendTimeLimit;
+        }
+
+        public DataSize getSendBufferSizeLimit() {
+            return sendBufferSizeLimit;
+        }
+
+        public void setSendBufferSizeLimit(DataSize sendBufferSizeLimit) {
+            this.sendBufferSizeLimit = sendBufferSizeLimit;
+        }
+    }
+
+    public static class Listen {
+        /**
+         * Рассылать уведомления через LISTEN/NOTIFY, чтобы их получали сессии на всех узлах.
+         */
+        private boolean enabled = true;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+    }
+
+    public static class Retention {
+        /**
+         * Удалять месячные секции ленты старше {@code keepMonths}.
+         */
+        private boolean enabled = true;
+        /**
+         * Сколько полных месяцев хранить помимо текущего.
+         */
+        private int keepMonths = 6;
+        /**
+         * На сколько месяцев вперед заранее создавать секции.
+         */
+        private int partitionsAhead = 3;
+        /**
+         * Выгружать секцию в хранилище (JSON Lines + gzip) перед удалением.
+         */
+        private boolean archive = true;
+        private String archivePrefix = "archive/notifications/";
+        /**
+         * Сколько ждать блокировку ленты при отсоединении секции; по истечении попытка повторяется.
+         */
+        private Duration detachLockTimeout = Duration.ofSeconds(2);
+        private int detachAttempts = 3;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public int getKeepMonths() {
+            return keepMonths;
+        }
+
+        public void setKeepMonths(int keepMonths) {
+            this.keepMonths = keepMonths;
+        }
+
+        public int getPartitionsAhead() {
+            return partitionsAhead;
+        }
+
+        public void setPartitionsAhead(int partitionsAhead) {
+            this.partitionsAhead = partitionsAhead;
+        }
+
+        public boolean isArchive() {
+            return archive;
+        }
+
+        public void setArchive(boolean archive) {
+            this.archive = archive;
+        }
+
+        public String getArchivePrefix() {
+            return archivePrefix;
+        }
+
+        public void setArchivePrefix(String archivePrefix) {
+            this.archivePrefix = archivePrefix;
+        }
+
+        public Duration getDetachLockTimeout() {
+            return detachLockTimeout;
+        }
+
+        public void setDetachLockTimeout(Duration detachLockTimeout) {
+            this.detachLockTimeout = detachLockTimeout;
+        }
+
+        public int getDetachAttempts() {
+            return detachAttempts;
+        }
+
+        public void setDetachAttempts(int detachAttempts) {
+            this.detachAttempts = detachAttempts;
+        }
+    }
+}
@@ -35,6 +35,7 @@ public class SecurityConfig {
                         .requestMatchers(HttpMethod.GET, "/api/v1/media/**").permitAll()
                         .requestMatchers(HttpMethod.GET, "/api/v1/animals/**").permitAll()
                         .requestMatchers("/api/v1/settings/**").hasRole(SystemRole.admin.name().toUpperCase())
+                        .requestMatchers(HttpMethod.GET, "/api/v1/notifications/dispatch/stats").hasRole(SystemRole.admin.name().toUpperCase())
                         .requestMatchers(HttpMethod.POST, "/api/v1/adoptions/applications").hasRole(SystemRole.candidate.name().toUpperCase())
                         .requestMatchers(HttpMethod.GET, "/api/v1/adoptions/applications/*/passport").hasAnyRole(SystemRole.coordinator.name().toUpperCase(), SystemRole.admin.name().toUpperCase(), SystemRole.candidate.name().toUpperCase())
                         .requestMatchers(HttpMethod.GET, "/api/v1/adoptions/applications/**").hasAnyRole(SystemRole.coordinator.name().toUpperCase(), SystemRole.admin.name().toUpperCase(), SystemRole.candidate.name().toUpperCase())
@@ -49,10 +50,12 @@ public class SecurityConfig {
                         .requestMatchers(HttpMethod.GET, "/api/v1/adoptions/agreements/**").hasAnyRole(SystemRole.coordinator.name().toUpperCase(), SystemRole.admin.name().toUpperCase(), SystemRole.candidate.name().toUpperCase())
                         .requestMatchers(HttpMethod.POST, "/api/v1/adoptions/agreements").hasAnyRole(SystemRole.coordinator.name().toUpperCase(), SystemRole.admin.name().toUpperCase())
                         .requestMatchers(HttpMethod.POST, "/api/v1/adoptions/agreements/*/signed").hasRole(SystemRole.candidate.name().toUpperCase())
+                        .requestMatchers(HttpMethod.POST, "/api/v1/adoptions/agreements/*/document/retry").hasAnyRole(SystemRole.coordinator.name().toUpperCase(), SystemRole.admin.name().toUpperCase())
                         .requestMatchers(HttpMethod.POST, "/api/v1/adoptions/agreements/*/confirm").hasAnyRole(SystemRole.coordinator.name().toUpperCase(), SystemRole.admin.name().toUpperCase())
                         .requestMatchers("/api/v1/adoptions/**").hasAnyRole(SystemRole.coordinator.name().toUpperCase(), SystemRole.admin.name().toUpperCase())
                         .requestMatchers("/api/v1/medical/**").hasAnyRole(SystemRole.veterinar.name().toUpperCase(), SystemRole.admin.name().toUpperCase())
                         .requestMatchers(HttpMethod.POST, "/api/v1/animals/*/media").hasAnyRole(SystemRole.admin.name().toUpperCase(), SystemRole.coordinator.name().toUpperCase(), SystemRole.volunteer.name().toUpperCase())
+                        .requestMatchers(HttpMethod.POST, "/api/v1/animals/*/media/presign", "/api/v1/animals/*/media/complete").hasAnyRole(SystemRole.admin.name().toUpperCase(), SystemRole.coordinator.name().toUpperCase(), SystemRole.volunteer.name().toUpperCase())
                         .requestMatchers(HttpMethod.POST, "/api/v1/animals/*/notes").hasAnyRole(SystemRole.admin.name().toUpperCase(), SystemRole.coordinator.name().toUpperCase(), SystemRole.volunteer.name().toUpperCase())
                         .requestMatchers(HttpMethod.POST, "/api/v1/animals/**").hasAnyRole(SystemRole.admin.name().toUpperCase(), SystemRole.coordinator.name().toUpperCase())
                         .requestMatchers(HttpMethod.PUT, "/api/v1/animals/**").hasAnyRole(SystemRole.admin.name().toUpperCase(), SystemRole.coordinator.name().toUpperCase())
@@ -82,6 +85,7 @@ public class SecurityConfig {
                         .requestMatchers(HttpMethod.GET, "/api/v1/reports").hasAnyRole(SystemRole.coordinator.name().toUpperCase(), SystemRole.volunteer.name().toUpperCase(), SystemRole.admin.name().toUpperCase(), SystemRole.candidate.name().toUpperCase())
                         .requestMatchers(HttpMethod.POST, "/api/v1/reports/*/submit").hasRole(SystemRole.candidate.name().toUpperCase())
                         .requestMatchers(HttpMethod.POST, "/api/v1/reports/*/media").hasRole(SystemRole.candidate.name().toUpperCase())
+                        .requestMatchers(HttpMethod.POST, "/api/v1/reports/*/media/presign", "/api/v1/reports/*/media/complete").hasRole(SystemRole.candidate.name().toUpperCase())
                         .requestMatchers(HttpMethod.GET, "/api/v1/reports/*/media").hasAnyRole(SystemRole.coordinator.name().toUpperCase(), SystemRole.volunteer.name().toUpperCase(), SystemRole.admin.name().toUpperCase(), SystemRole.candidate.name().toUpperCase())
                         .requestMatchers("/api/v1/reports/**").hasAnyRole(SystemRole.coordinator.name().toUpperCase(), SystemRole.volunteer.name().toUpperCase(), SystemRole.admin.name().toUpperCase())
                         .requestMatchers("/api/v1/notifications/**").authenticated()
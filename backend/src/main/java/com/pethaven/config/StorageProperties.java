@@ -1,6 +1,11 @@
 package com.pethaven.config;
 
 import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.EnumSet;
+import java.util.Set;
 
 @ConfigurationProperties(prefix = "storage")
 public class StorageProperties {
@@ -10,6 +15,9 @@ public class StorageProperties {
     private String accessKey;
     private String secretKey;
     private String publicUrl;
+    private Cache cache = new Cache();
+    private Presign presign = new Presign();
+    private Multipart multipart = new Multipart();
 
     public String getBucket() {
         return bucket;
@@ -58,4 +66,196 @@ public class StorageProperties {
     public void setPublicUrl(String publicUrl) {
         this.publicUrl = publicUrl;
     }
+
+    public Cache getCache() {
+        return cache;
+    }
+
+    public void setCache(Cache cache) {
+        this.cache = cache;
+    }
+
+    public Presign getPresign() {
+        return presign;
+    }
+
+    public void setPresign(Presign presign) {
+        this.presign = presign;
+    }
+
+    public Multipart getMultipart() {
+        return multipart;
+    }
+
+    public void setMultipart(Multipart multipart) {
+        this.multipart = multipart;
+    }
+
+    /**
+     * Типы загружаемых файлов, для которых можно выбрать способ загрузки.
+     */
+    public enum UploadType {
+        AVATAR,
+        ANIMAL_MEDIA,
+        REPORT_MEDIA,
+        PASSPORT,
+        AGREEMENT
+    }
+
+    /**
+     * Параллельная multipart-загрузка крупных файлов через асинхронный клиент.
+     */
+    public static class Multipart {
+        private Set<UploadType> enabledFor = EnumSet.of(UploadType.REPORT_MEDIA);
+        /**
+         * Размер части; S3 требует не меньше 5MB для всех частей, кроме последней.
+         */
+        private DataSize partSize = DataSize.ofMegabytes(5);
+        private int concurrency = 4;
+        private int maxPartAttempts = 3;
+
+        public boolean isEnabledFor(UploadType type) {
+            return enabledFor.contains(type);
+        }
+
+        public Set<UploadType> getEnabledFor() {
+            return enabledFor;
+        }
+
+        public void setEnabledFor(Set<UploadType> enabledFor) {
+            this.enabledFor = enabledFor;
+        }
+
+        public DataSize getPartSize() {
+            return partSize;
+        }
+
+        public void setPartSize(DataSize partSize) {
+            this.partSize = partSize;
+        }
+
+        public int getConcurrency() {
+            return concurrency;
+        }
+
+        public void setConcurrency(int concurrency) {
+            this.concurrency = concurrency;
+        }
+
+        public int getMaxPartAttempts() {
+            return maxPartAttempts;
+        }
+
+        public void setMaxPartAttempts(int maxPartAttempts) {
+            this.maxPartAttempts = maxPartAttempts;
+        }
+    }
+
+    /**
+     * Прямая загрузка и выдача файлов клиенту по подписанным ссылкам, минуя приложение.
+     */
+    public static class Presign {
+        /**
+         * Адрес хранилища, доступный браузеру; по умолчанию совпадает с endpoint.
+         */
+        private String endpoint;
+        private Duration ttl = Duration.ofMinutes(15);
+        private DataSize maxUploadSize = DataSize.ofMegabytes(15);
+        /**
+         * Секрет для подписи ключей, выдаваемых под прямую загрузку.
+         */
+        private String keySecret;
+
+        public String getEndpoint() {
+            return endpoint;
+        }
+
+        public void setEndpoint(String endpoint) {
+            this.endpoint = endpoint;
+        }
+
+        public Duration getTtl() {
+            return ttl;
+        }
+
+        public void setTtl(Duration ttl) {
+            this.ttl = ttl;
+        }
+
+        public DataSize getMaxUploadSize() {
+            return maxUploadSize;
+        }
+
+        public void setMaxUploadSize(DataSize maxUploadSize) {
+            this.maxUploadSize = maxUploadSize;
+        }
+
+        public String getKeySecret() {
+            return keySecret;
+        }
+
+        public void setKeySecret(String keySecret) {
+            this.keySecret = keySecret;
+        }
+    }
+
+    /**
+     * Локальный дисковый кэш медиа перед объектным хранилищем.
+     */
+    public static class Cache {
+        private boolean enabled = true;
+        private String directory = System.getProperty("java.io.tmpdir") + "/pethaven-media-cache";
+        private DataSize maxSize = DataSize.ofMegabytes(512);
+        private DataSize maxEntrySize = DataSize.ofMegabytes(16);
+        private int hotSetEntries = 256;
+        private DataSize hotSetMaxEntrySize = DataSize.ofKilobytes(128);
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public String getDirectory() {
+            return directory;
+        }
+
+        public void setDirectory(String directory) {
+            this.directory = directory;
+        }
+
+        public DataSize getMaxSize() {
+            return maxSize;
+        }
+
+        public void setMaxSize(DataSize maxSize) {
+            this.maxSize = maxSize;
+        }
+
+        public DataSize getMaxEntrySize() {
+            return maxEntrySize;
+        }
+
+        public void setMaxEntrySize(DataSize maxEntrySize) {
+            this.maxEntrySize = maxEntrySize;
+        }
+
+        public int getHotSetEntries() {
+            return hotSetEntries;
+        }
+
+        public void setHotSetEntries(int hotSetEntries) {
+            this.hotSetEntries = hotSetEntries;
+        }
+
+        public DataSize getHotSetMaxEntrySize() {
+            return hotSetMaxEntrySize;
+        }
+
+        public void setHotSetMaxEntrySize(DataSize hotSetMaxEntrySize) {
+            this.hotSetMaxEntrySize = hotSetMaxEntrySize;
+        }
+    }
 }
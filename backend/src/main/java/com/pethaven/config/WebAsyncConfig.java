@@ -0,0 +1,27 @@
+package com.pethaven.config;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Асинхронная обработка MVC ({@code StreamingResponseBody} медиа) идет в отдельном пуле
+ * {@code mvcAsyncExecutor}, а не в {@code SimpleAsyncTaskExecutor} с потоком на каждый ответ
+ * и не в общем пуле приложения. Таймаут асинхронного ответа задается {@code spring.mvc.async.request-timeout}.
+ */
+@Configuration
+public class WebAsyncConfig implements WebMvcConfigurer {
+
+    private final AsyncTaskExecutor mvcAsyncExecutor;
+
+    public WebAsyncConfig(@Qualifier("mvcAsyncExecutor") AsyncTaskExecutor mvcAsyncExecutor) {
+        this.mvcAsyncExecutor = mvcAsyncExecutor;
+    }
+
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        configurer.setTaskExecutor(mvcAsyncExecutor);
+    }
+}
@@ -3,6 +3,8 @@ package com.pethaven.controller;
 import com.pethaven.dto.AdoptionApplicationResponse;
 import com.pethaven.dto.AdoptionDecisionRequest;
 import com.pethaven.dto.AgreementRequest;
+import com.pethaven.dto.AgreementPageResponse;
+import com.pethaven.dto.ApplicationQueuePageResponse;
 import com.pethaven.dto.AgreementResponse;
 import com.pethaven.dto.AgreementConfirmRequest;
 import com.pethaven.dto.ApiMessage;
@@ -18,6 +20,7 @@ import com.pethaven.mapper.AdoptionMapper;
 import com.pethaven.model.enums.ApplicationStatus;
 import com.pethaven.service.AdoptionService;
 import jakarta.validation.Valid;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
@@ -26,6 +29,7 @@ import org.springframework.web.multipart.MultipartFile;
 import org.springframework.web.bind.annotation.ModelAttribute;
 
 import java.net.URI;
+import java.time.OffsetDateTime;
 import java.util.List;
 
 @RestController
@@ -125,6 +129,28 @@ public class AdoptionController {
         return adoptionMapper.toApplicationResponses(adoptionService.getApplications(status, candidateId));
     }
 
+    @GetMapping("/applications/queue")
+    public ApplicationQueuePageResponse queue(@RequestParam(required = false) ApplicationStatus status,
+                                              @RequestParam(required = false) Long animalId,
+                                              @RequestParam(required = false) Long candidateId,
+                                              @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) OffsetDateTime from,
+                                              @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) OffsetDateTime to,
+                                              @RequestParam(defaultValue = "newest") String sort,
+                                              @RequestParam(required = false) String cursor,
+                                              @RequestParam(required = false) Integer limit,
+                                              Authentication authentication) {
+        Long scopedCandidate = candidateScope(authentication);
+        return adoptionService.getApplicationQueue(
+                status,
+                animalId,
+                scopedCandidate != null ? scopedCandidate : candidateId,
+                from,
+                to,
+                "oldest".equalsIgnoreCase(sort),
+                cursor,
+                limit);
+    }
+
     @GetMapping("/applications/{id}")
     public ResponseEntity<AdoptionApplicationResponse> getById(@PathVariable Long id, Authentication authentication) {
         if (authentication == null) {
@@ -281,9 +307,35 @@ public class AdoptionController {
     }
 
     @GetMapping("/agreements")
-    public List<AgreementResponse> listAgreements() {
-        return adoptionService.enrichAgreements(
-                adoptionMapper.toAgreementResponses(adoptionService.getAgreements()));
+    public List<AgreementResponse> listAgreements(Authentication authentication) {
+        return adoptionService.getAgreements(candidateScope(authentication));
+    }
+
+    @GetMapping("/agreements/page")
+    public AgreementPageResponse listAgreementsPage(@RequestParam(required = false) String cursor,
+                                                    @RequestParam(required = false) Integer limit,
+                                                    Authentication authentication) {
+        return adoptionService.getAgreementsPage(candidateScope(authentication), cursor, limit);
+    }
+
+    @GetMapping("/agreements/by-application/{applicationId}")
+    public ResponseEntity<AgreementResponse> getAgreementByApplication(@PathVariable Long applicationId,
+                                                                       Authentication authentication) {
+        return adoptionService.getAgreementByApplication(applicationId, candidateScope(authentication))
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    /**
+     * Кандидат видит в списке только свои договоры: в строках есть имена других кандидатов.
+     */
+    private Long candidateScope(Authentication authentication) {
+        boolean isStaff = authentication != null && authentication.getAuthorities().stream()
+                .anyMatch(a -> a.getAuthority().equals("ROLE_COORDINATOR") || a.getAuthority().equals("ROLE_ADMIN"));
+        if (isStaff || authentication == null) {
+            return null;
+        }
+        return authentication.getPrincipal() instanceof Long uid ? uid : -1L;
     }
 
     @GetMapping("/agreements/{id}/template")
@@ -367,6 +419,18 @@ public class AdoptionController {
         }
     }
 
+    @PostMapping("/agreements/{id}/document/retry")
+    public ResponseEntity<?> retryAgreementDocument(@PathVariable Long id) {
+        try {
+            adoptionService.retryAgreementDocument(id);
+            return ResponseEntity.accepted().body(ApiMessage.of("Формирование договора перезапущено"));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(404).body(ApiMessage.of(e.getMessage()));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(409).body(ApiMessage.of(e.getMessage()));
+        }
+    }
+
     @PostMapping("/agreements/{id}/confirm")
     public ResponseEntity<?> confirmAgreement(@PathVariable Long id,
                                               @Valid @RequestBody AgreementConfirmRequest request,
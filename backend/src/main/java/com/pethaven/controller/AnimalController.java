@@ -1,14 +1,18 @@
 package com.pethaven.controller;
 
+import com.pethaven.dto.AnimalCatalogPageResponse;
 import com.pethaven.dto.AnimalCreateRequest;
 import com.pethaven.dto.AnimalMediaResponse;
 import com.pethaven.dto.AnimalMedicalUpdateRequest;
+import com.pethaven.dto.AnimalNotePageResponse;
 import com.pethaven.dto.AnimalNoteResponse;
 import com.pethaven.dto.AnimalResponse;
 import com.pethaven.dto.AnimalStatusUpdateRequest;
 import com.pethaven.dto.AnimalUpdateRequest;
 import com.pethaven.dto.ApiMessage;
-import com.pethaven.mapper.AnimalMapper;
+import com.pethaven.dto.MediaUploadCompleteRequest;
+import com.pethaven.dto.PresignedUploadRequest;
+import com.pethaven.dto.PresignedUrlResponse;
 import com.pethaven.model.enums.AnimalStatus;
 import com.pethaven.entity.AnimalEntity;
 import com.pethaven.service.AnimalService;
@@ -35,13 +39,11 @@ public class AnimalController {
     private static final Logger log = LoggerFactory.getLogger(AnimalController.class);
     private final AnimalService animalService;
     private final ObjectStorageService storageService;
-    private final AnimalMapper animalMapper;
     private final SettingService settingService;
 
-    public AnimalController(AnimalService animalService, ObjectStorageService storageService, AnimalMapper animalMapper, SettingService settingService) {
+    public AnimalController(AnimalService animalService, ObjectStorageService storageService, SettingService settingService) {
         this.animalService = animalService;
         this.storageService = storageService;
-        this.animalMapper = animalMapper;
         this.settingService = settingService;
     }
 
@@ -69,6 +71,26 @@ public class AnimalController {
         return responses;
     }
 
+    @GetMapping("/catalog")
+    public AnimalCatalogPageResponse catalogPage(@RequestParam(required = false) String species,
+                                                 @RequestParam(required = false) AnimalStatus status,
+                                                 @RequestParam(required = false) String cursor,
+                                                 @RequestParam(required = false) Integer limit,
+                                                 Authentication authentication) {
+        boolean isAdmin = authentication != null && authentication.getAuthorities().stream()
+                .anyMatch(a -> a.getAuthority().equals("ROLE_ADMIN"));
+        boolean isCoordinator = authentication != null && authentication.getAuthorities().stream()
+                .anyMatch(a -> a.getAuthority().equals("ROLE_COORDINATOR"));
+        boolean isVet = authentication != null && authentication.getAuthorities().stream()
+                .anyMatch(a -> a.getAuthority().equals("ROLE_VETERINAR"));
+        boolean isCandidate = authentication != null && authentication.getAuthorities().stream()
+                .anyMatch(a -> a.getAuthority().equals("ROLE_CANDIDATE"));
+        boolean includePending = isAdmin || isCoordinator;
+        boolean hideInternalFlags = isCandidate || authentication == null;
+        boolean onlyAvailable = authentication == null;
+        return animalService.getCatalogPage(species, status, includePending, hideInternalFlags, onlyAvailable, isVet, cursor, limit);
+    }
+
     @GetMapping("/species")
     public List<String> species() {
         return animalService.getAvailableSpecies();
@@ -126,7 +148,7 @@ public class AnimalController {
         if (!canSeeInternal && Boolean.TRUE.equals(entity.getPendingAdminReview())) {
             return ResponseEntity.notFound().build();
         }
-        AnimalResponse response = animalMapper.toResponse(entity);
+        AnimalResponse response = animalService.toResponse(entity);
         if (!canSeeInternal) {
             response = sanitizeForCandidate(response);
         }
@@ -253,6 +275,16 @@ public class AnimalController {
         return ResponseEntity.ok(saved);
     }
 
+    @PostMapping("/{id}/media/presign")
+    public PresignedUrlResponse presignMediaUpload(@PathVariable Long id, @Valid @RequestBody PresignedUploadRequest request) {
+        return animalService.presignMediaUpload(id, request);
+    }
+
+    @PostMapping("/{id}/media/complete")
+    public AnimalMediaResponse completeMediaUpload(@PathVariable Long id, @Valid @RequestBody MediaUploadCompleteRequest request) {
+        return animalService.completeMediaUpload(id, request);
+    }
+
     @DeleteMapping("/{id}/media")
     public ResponseEntity<Void> deleteMedia(@PathVariable Long id) {
         List<String> keys = animalService.deleteMedia(id);
@@ -297,4 +329,11 @@ public class AnimalController {
     public List<AnimalNoteResponse> notes(@PathVariable Long id) {
         return animalService.getNotes(id);
     }
+
+    @GetMapping("/{id}/notes/page")
+    public AnimalNotePageResponse notesPage(@PathVariable Long id,
+                                            @RequestParam(required = false) String cursor,
+                                            @RequestParam(required = false) Integer limit) {
+        return animalService.getNotesPage(id, cursor, limit);
+    }
 }
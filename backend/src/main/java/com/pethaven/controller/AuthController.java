@@ -3,6 +3,7 @@ package com.pethaven.controller;
 import com.pethaven.dto.ApiMessage;
 import com.pethaven.dto.AuthResponse;
 import com.pethaven.dto.LoginRequest;
+import com.pethaven.dto.RefreshTokenRequest;
 import com.pethaven.dto.RegisterRequest;
 import com.pethaven.service.AuthService;
 import jakarta.validation.Valid;
@@ -42,4 +43,20 @@ public class AuthController {
         return ResponseEntity.status(status).body(ApiMessage.of(result.error() != null ? result.error() : "Неверные учетные данные"));
     }
 
+    @PostMapping("/refresh")
+    public ResponseEntity<?> refresh(@Valid @RequestBody RefreshTokenRequest request) {
+        AuthService.LoginResult result = authService.refresh(request);
+        if (result.auth() != null) {
+            return ResponseEntity.ok(result.auth());
+        }
+        int status = result.blocked() ? 403 : 401;
+        return ResponseEntity.status(status).body(ApiMessage.of(result.error()));
+    }
+
+    @PostMapping("/logout")
+    public ResponseEntity<Void> logout(@Valid @RequestBody RefreshTokenRequest request) {
+        authService.logout(request);
+        return ResponseEntity.noContent().build();
+    }
+
 }
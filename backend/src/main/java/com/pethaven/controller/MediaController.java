@@ -1,69 +1,266 @@
 package com.pethaven.controller;
 
+import com.pethaven.dto.PresignedUrlResponse;
 import com.pethaven.entity.AnimalMediaEntity;
 import com.pethaven.entity.ReportMediaEntity;
 import com.pethaven.repository.AnimalMediaRepository;
 import com.pethaven.repository.PersonRepository;
 import com.pethaven.repository.ReportMediaRepository;
+import com.pethaven.service.MediaCacheService;
+import com.pethaven.service.MediaVariantService;
 import com.pethaven.service.ObjectStorageService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.NoSuchFileException;
+import java.util.List;
+import java.util.Optional;
 
 @RestController
 @RequestMapping("/api/v1/media")
 public class MediaController {
 
+    private static final Logger log = LoggerFactory.getLogger(MediaController.class);
+    private static final String CACHE_CONTROL = "public, max-age=31536000";
+    private static final int COPY_BUFFER_SIZE = 16 * 1024;
+
     private final AnimalMediaRepository animalMediaRepository;
     private final PersonRepository personRepository;
     private final ReportMediaRepository reportMediaRepository;
     private final ObjectStorageService storageService;
+    private final MediaCacheService mediaCache;
 
     public MediaController(AnimalMediaRepository animalMediaRepository,
                            PersonRepository personRepository,
                            ReportMediaRepository reportMediaRepository,
-                           ObjectStorageService storageService) {
+                           ObjectStorageService storageService,
+                           MediaCacheService mediaCache) {
         this.animalMediaRepository = animalMediaRepository;
         this.personRepository = personRepository;
         this.reportMediaRepository = reportMediaRepository;
         this.storageService = storageService;
+        this.mediaCache = mediaCache;
     }
 
     @GetMapping("/animals/{mediaId}")
-    public ResponseEntity<byte[]> animalMedia(@PathVariable Long mediaId) {
+    public ResponseEntity<StreamingResponseBody> animalMedia(@PathVariable Long mediaId,
+                                                             @RequestParam(name = "w", required = false) Integer width,
+                                                             @RequestHeader HttpHeaders requestHeaders) {
         AnimalMediaEntity media = animalMediaRepository.findById(mediaId).orElse(null);
         if (media == null || media.getStorageKey() == null) {
             return ResponseEntity.notFound().build();
         }
-        return fileResponse(media.getStorageKey());
+        return fileResponse(resolveKey(media.getStorageKey(), media.getVariantWidths(), width), requestHeaders);
+    }
+
+    @GetMapping("/animals/{mediaId}/link")
+    public ResponseEntity<PresignedUrlResponse> animalMediaLink(@PathVariable Long mediaId,
+                                                                @RequestParam(name = "w", required = false) Integer width) {
+        return animalMediaRepository.findById(mediaId)
+                .filter(m -> m.getStorageKey() != null)
+                .map(m -> ResponseEntity.ok(storageService.presignDownload(resolveKey(m.getStorageKey(), m.getVariantWidths(), width))))
+                .orElse(ResponseEntity.notFound().build());
     }
 
     @GetMapping("/avatars/{personId}")
-    public ResponseEntity<byte[]> avatar(@PathVariable Long personId) {
+    public ResponseEntity<StreamingResponseBody> avatar(@PathVariable Long personId, @RequestHeader HttpHeaders requestHeaders) {
         return personRepository.findById(personId)
                 .filter(p -> p.getAvatarKey() != null)
-                .map(p -> fileResponse(p.getAvatarKey()))
+                .map(p -> fileResponse(p.getAvatarKey(), requestHeaders))
                 .orElse(ResponseEntity.notFound().build());
     }
 
     @GetMapping("/reports/{mediaId}")
-    public ResponseEntity<byte[]> reportMedia(@PathVariable Long mediaId) {
+    public ResponseEntity<StreamingResponseBody> reportMedia(@PathVariable Long mediaId,
+                                                             @RequestParam(name = "w", required = false) Integer width,
+                                                             @RequestHeader HttpHeaders requestHeaders) {
         ReportMediaEntity media = reportMediaRepository.findById(mediaId).orElse(null);
         if (media == null || media.getStorageKey() == null) {
             return ResponseEntity.notFound().build();
         }
-        return fileResponse(media.getStorageKey());
+        return fileResponse(resolveKey(media.getStorageKey(), media.getVariantWidths(), width), requestHeaders);
+    }
+
+    @GetMapping("/reports/{mediaId}/link")
+    public ResponseEntity<PresignedUrlResponse> reportMediaLink(@PathVariable Long mediaId,
+                                                                @RequestParam(name = "w", required = false) Integer width) {
+        return reportMediaRepository.findById(mediaId)
+                .filter(m -> m.getStorageKey() != null)
+                .map(m -> ResponseEntity.ok(storageService.presignDownload(resolveKey(m.getStorageKey(), m.getVariantWidths(), width))))
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    private String resolveKey(String storageKey, Integer[] variantWidths, Integer requestedWidth) {
+        Integer width = MediaVariantService.pickWidth(variantWidths, requestedWidth);
+        return width == null ? storageKey : MediaVariantService.variantKey(storageKey, width);
+    }
+
+    private ResponseEntity<StreamingResponseBody> fileResponse(String key, HttpHeaders requestHeaders) {
+        Optional<MediaCacheService.CachedMedia> cached = mediaCache.lookup(key);
+        if (cached.isPresent()) {
+            return cachedResponse(cached.get(), requestHeaders);
+        }
+        if (!requestHeaders.getIfNoneMatch().isEmpty() || requestHeaders.getIfModifiedSince() >= 0) {
+            ObjectStorageService.StorageObjectInfo info = storageService.head(key);
+            if (isNotModified(requestHeaders, info)) {
+                return notModified(info);
+            }
+        }
+        String range = requestHeaders.getFirst(HttpHeaders.RANGE);
+        if (range != null && !range.startsWith("bytes=")) {
+            range = null;
+        }
+        ObjectStorageService.StorageStream stream;
+        try {
+            stream = storageService.openStream(key, range);
+        } catch (ObjectStorageService.RangeNotSatisfiableException e) {
+            ResponseEntity.HeadersBuilder<?> builder = ResponseEntity.status(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE);
+            Long size = storageService.head(key).contentLength();
+            if (size != null) {
+                builder.header(HttpHeaders.CONTENT_RANGE, "bytes */" + size);
+            }
+            return builder.build();
+        }
+        ObjectStorageService.StorageObjectInfo info = stream.info();
+        boolean partial = range != null && stream.contentRange() != null;
+        ResponseEntity.BodyBuilder builder = headers(ResponseEntity.status(partial ? HttpStatus.PARTIAL_CONTENT : HttpStatus.OK), info);
+        if (info.contentLength() != null) {
+            builder.contentLength(info.contentLength());
+        }
+        if (partial) {
+            builder.header(HttpHeaders.CONTENT_RANGE, stream.contentRange());
+        }
+        Optional<MediaCacheService.PendingWrite> cacheWrite = range == null ? mediaCache.beginWrite(key, info) : Optional.empty();
+        return builder.body(out -> copy(stream.body(), out, cacheWrite.orElse(null)));
+    }
+
+    private ResponseEntity<StreamingResponseBody> cachedResponse(MediaCacheService.CachedMedia media, HttpHeaders requestHeaders) {
+        ObjectStorageService.StorageObjectInfo info = media.info();
+        if (isNotModified(requestHeaders, info)) {
+            return notModified(info);
+        }
+        long start = 0;
+        long end = media.size() - 1;
+        HttpStatus status = HttpStatus.OK;
+        List<HttpRange> ranges;
+        try {
+            ranges = requestHeaders.getRange();
+        } catch (IllegalArgumentException e) {
+            ranges = List.of();
+        }
+        if (ranges.size() == 1) {
+            try {
+                start = ranges.get(0).getRangeStart(media.size());
+                end = ranges.get(0).getRangeEnd(media.size());
+                status = HttpStatus.PARTIAL_CONTENT;
+            } catch (IllegalArgumentException e) {
+                return ResponseEntity.status(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE)
+                        .header(HttpHeaders.CONTENT_RANGE, "bytes */" + media.size())
+                        .build();
+            }
+        }
+        long position = start;
+        long count = end - start + 1;
+        String fallbackRange = status == HttpStatus.PARTIAL_CONTENT ? "bytes=" + start + "-" + end : null;
+        ResponseEntity.BodyBuilder builder = headers(ResponseEntity.status(status), info).contentLength(count);
+        if (status == HttpStatus.PARTIAL_CONTENT) {
+            builder.header(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + media.size());
+        }
+        return builder.body(out -> {
+            try {
+                mediaCache.transferTo(media, position, count, out);
+            } catch (NoSuchFileException e) {
+                // файл вытеснен между lookup и чтением — отдаем из хранилища
+                copy(storageService.openStream(media.key(), fallbackRange).body(), out, null);
+            }
+        });
+    }
+
+    private void copy(InputStream source, OutputStream out, MediaCacheService.PendingWrite cacheWrite) throws IOException {
+        boolean completed = false;
+        try (InputStream in = source) {
+            byte[] buffer = new byte[COPY_BUFFER_SIZE];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                out.write(buffer, 0, read);
+                if (cacheWrite != null) {
+                    try {
+                        cacheWrite.write(buffer, 0, read);
+                    } catch (IOException e) {
+                        // сбой диска кэша не должен обрывать ответ клиенту: бросаем только запись в кэш
+                        log.warn("Media cache write failed, continuing without cache: {}", e.getMessage());
+                        cacheWrite.abort();
+                        cacheWrite = null;
+                    }
+                }
+            }
+            completed = true;
+        } finally {
+            if (cacheWrite != null) {
+                if (completed) {
+                    cacheWrite.commit();
+                } else {
+                    cacheWrite.abort();
+                }
+            }
+        }
+    }
+
+    private ResponseEntity.BodyBuilder headers(ResponseEntity.BodyBuilder builder, ObjectStorageService.StorageObjectInfo info) {
+        builder.contentType(MediaType.parseMediaType(info.contentType()))
+                .header(HttpHeaders.CACHE_CONTROL, CACHE_CONTROL)
+                .header(HttpHeaders.ACCEPT_RANGES, "bytes");
+        if (info.eTag() != null) {
+            builder.eTag(info.eTag());
+        }
+        if (info.lastModified() != null) {
+            builder.lastModified(info.lastModified());
+        }
+        return builder;
+    }
+
+    private ResponseEntity<StreamingResponseBody> notModified(ObjectStorageService.StorageObjectInfo info) {
+        ResponseEntity.BodyBuilder builder = ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                .header(HttpHeaders.CACHE_CONTROL, CACHE_CONTROL);
+        if (info.eTag() != null) {
+            builder.eTag(info.eTag());
+        }
+        if (info.lastModified() != null) {
+            builder.lastModified(info.lastModified());
+        }
+        return builder.build();
+    }
+
+    private boolean isNotModified(HttpHeaders requestHeaders, ObjectStorageService.StorageObjectInfo info) {
+        List<String> ifNoneMatch = requestHeaders.getIfNoneMatch();
+        if (!ifNoneMatch.isEmpty()) {
+            if (info.eTag() == null) {
+                return false;
+            }
+            String eTag = stripWeak(info.eTag());
+            return ifNoneMatch.stream().anyMatch(tag -> tag.equals("*") || stripWeak(tag).equals(eTag));
+        }
+        long ifModifiedSince = requestHeaders.getIfModifiedSince();
+        return ifModifiedSince >= 0 && info.lastModified() != null
+                && info.lastModified().getEpochSecond() * 1000 <= ifModifiedSince;
     }
 
-    private ResponseEntity<byte[]> fileResponse(String key) {
-        ObjectStorageService.StorageFile file = storageService.download(key);
-        return ResponseEntity.ok()
-                .contentType(MediaType.parseMediaType(file.contentType()))
-                .header(HttpHeaders.CACHE_CONTROL, "public, max-age=31536000")
-                .body(file.bytes());
+    private String stripWeak(String tag) {
+        return tag.startsWith("W/") ? tag.substring(2) : tag;
     }
 }
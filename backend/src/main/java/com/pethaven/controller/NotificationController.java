@@ -1,7 +1,10 @@
 package com.pethaven.controller;
 
+import com.pethaven.dto.NotificationPageResponse;
+import com.pethaven.dto.NotificationUnreadResponse;
 import com.pethaven.entity.NotificationEntity;
 import com.pethaven.service.NotificationService;
+import com.pethaven.websocket.NotificationDispatcher;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.DeleteMapping;
@@ -9,6 +12,7 @@ import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 import java.util.List;
@@ -32,6 +36,26 @@ public class NotificationController {
         return ResponseEntity.ok(notificationService.getUserNotifications(uid));
     }
 
+    @GetMapping("/me/page")
+    public ResponseEntity<NotificationPageResponse> myNotificationsPage(@RequestParam(required = false) String before,
+                                                                        @RequestParam(required = false) Integer limit,
+                                                                        Authentication authentication) {
+        Long uid = currentUser(authentication);
+        if (uid == null) {
+            return ResponseEntity.status(401).build();
+        }
+        return ResponseEntity.ok(notificationService.getInbox(uid, before, limit));
+    }
+
+    @GetMapping("/me/unread-count")
+    public ResponseEntity<NotificationUnreadResponse> unreadCount(Authentication authentication) {
+        Long uid = currentUser(authentication);
+        if (uid == null) {
+            return ResponseEntity.status(401).build();
+        }
+        return ResponseEntity.ok(new NotificationUnreadResponse(notificationService.getUnreadCount(uid)));
+    }
+
     @PostMapping("/{id}/read")
     public ResponseEntity<Void> markRead(@PathVariable Long id, Authentication authentication) {
         Long uid = currentUser(authentication);
@@ -62,6 +86,11 @@ public class NotificationController {
         return ResponseEntity.noContent().build();
     }
 
+    @GetMapping("/dispatch/stats")
+    public NotificationDispatcher.DispatchStats dispatchStats() {
+        return notificationService.dispatchStats();
+    }
+
     private Long currentUser(Authentication authentication) {
         if (authentication == null || !(authentication.getPrincipal() instanceof Long uid)) {
             return null;
@@ -1,9 +1,12 @@
 package com.pethaven.controller;
 
 import com.pethaven.dto.ApiMessage;
+import com.pethaven.dto.MediaUploadCompleteRequest;
 import com.pethaven.dto.PostAdoptionReportDto;
 import com.pethaven.dto.PostAdoptionReportRequest;
 import com.pethaven.dto.PostAdoptionReportResponse;
+import com.pethaven.dto.PresignedUploadRequest;
+import com.pethaven.dto.PresignedUrlResponse;
 import com.pethaven.dto.ReportMediaResponse;
 import com.pethaven.service.PostAdoptionReportService;
 import jakarta.validation.Valid;
@@ -89,4 +92,24 @@ public class PostAdoptionReportController {
         ReportMediaResponse saved = reportService.uploadMedia(id, file, description, uid);
         return ResponseEntity.ok(saved);
     }
+
+    @PostMapping("/{id}/media/presign")
+    public ResponseEntity<PresignedUrlResponse> presignMediaUpload(@PathVariable Long id,
+                                                                   @Valid @RequestBody PresignedUploadRequest request,
+                                                                   Authentication authentication) {
+        if (authentication == null || !(authentication.getPrincipal() instanceof Long uid)) {
+            return ResponseEntity.status(401).build();
+        }
+        return ResponseEntity.ok(reportService.presignMediaUpload(id, request, uid));
+    }
+
+    @PostMapping("/{id}/media/complete")
+    public ResponseEntity<ReportMediaResponse> completeMediaUpload(@PathVariable Long id,
+                                                                   @Valid @RequestBody MediaUploadCompleteRequest request,
+                                                                   Authentication authentication) {
+        if (authentication == null || !(authentication.getPrincipal() instanceof Long uid)) {
+            return ResponseEntity.status(401).build();
+        }
+        return ResponseEntity.ok(reportService.completeMediaUpload(id, request, uid));
+    }
 }
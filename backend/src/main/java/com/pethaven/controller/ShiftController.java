@@ -3,11 +3,13 @@ package com.pethaven.controller;
 import com.pethaven.dto.ApiMessage;
 import com.pethaven.dto.ShiftCreateRequest;
 import com.pethaven.dto.ShiftResponse;
+import com.pethaven.dto.ShiftRosterResponse;
 import com.pethaven.dto.ShiftSignupRequest;
 import com.pethaven.dto.ShiftAttendanceUpdateRequest;
 import com.pethaven.dto.ShiftSubmitRequest;
 import com.pethaven.dto.ShiftApprovalRequest;
 import com.pethaven.dto.ShiftCloseRequest;
+import com.pethaven.dto.ShiftBulkCloseRequest;
 import com.pethaven.dto.ShiftUnsubscribeRequest;
 import com.pethaven.dto.TaskShiftAssignmentRequest;
 import com.pethaven.dto.TaskShiftUpdateRequest;
@@ -16,6 +18,7 @@ import com.pethaven.dto.VolunteerShiftResponse;
 import com.pethaven.service.ShiftService;
 import com.pethaven.entity.ShiftVolunteerEntity;
 import com.pethaven.entity.TaskShiftEntity;
+import com.pethaven.model.enums.AttendanceStatus;
 import jakarta.validation.Valid;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
@@ -49,6 +52,16 @@ public class ShiftController {
         return shiftService.getUpcoming(from == null ? LocalDate.now() : from);
     }
 
+    /**
+     * Расписание за период: смены с волонтерами и задачами одним ответом. По умолчанию — неделя с {@code from}.
+     */
+    @GetMapping("/roster")
+    public List<ShiftRosterResponse> roster(@RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        LocalDate start = from == null ? LocalDate.now() : from;
+        return shiftService.getRoster(start, to == null ? start.plusDays(6) : to);
+    }
+
     @PostMapping
     public ResponseEntity<ShiftResponse> create(@Valid @RequestBody ShiftCreateRequest shift) {
         ShiftResponse saved = shiftService.createShift(shift);
@@ -62,8 +75,10 @@ public class ShiftController {
             return ResponseEntity.status(401).body(ApiMessage.of("Требуется авторизация волонтера"));
         }
         try {
-            shiftService.signup(request.shiftId(), volunteerId);
-            return ResponseEntity.ok(ApiMessage.of("Волонтёр записан на смену"));
+            AttendanceStatus status = shiftService.signup(request.shiftId(), volunteerId);
+            return ResponseEntity.ok(ApiMessage.of(status == AttendanceStatus.waitlisted
+                    ? "Мест нет, волонтёр добавлен в лист ожидания"
+                    : "Волонтёр записан на смену"));
         } catch (IllegalStateException e) {
             String msg = e.getMessage() == null ? "Невозможно записаться на смену" : e.getMessage();
             if (msg.contains("уже записаны")) {
@@ -218,6 +233,18 @@ public class ShiftController {
         }
     }
 
+    /**
+     * Закрытие смен пачкой (например, в конце месяца): по списку id и/или периоду дат.
+     */
+    @PostMapping("/bulk-close")
+    public ResponseEntity<?> closeShifts(@Valid @RequestBody ShiftBulkCloseRequest request,
+                                         Authentication authentication) {
+        if (!hasRole(authentication, "ROLE_COORDINATOR") && !hasRole(authentication, "ROLE_ADMIN")) {
+            return ResponseEntity.status(403).body(ApiMessage.of("Только координатор или администратор могут закрыть смену"));
+        }
+        return ResponseEntity.ok(shiftService.closeShifts(request));
+    }
+
     private boolean hasRole(Authentication authentication, String role) {
         if (authentication == null) {
             return false;
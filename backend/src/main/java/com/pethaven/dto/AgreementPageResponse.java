@@ -0,0 +1,9 @@
+package com.pethaven.dto;
+
+import java.util.List;
+
+public record AgreementPageResponse(
+        List<AgreementResponse> items,
+        String nextCursor
+) {
+}
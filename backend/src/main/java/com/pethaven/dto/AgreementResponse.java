@@ -1,5 +1,7 @@
 package com.pethaven.dto;
 
+import com.pethaven.model.enums.AgreementDocumentStatus;
+
 public record AgreementResponse(
         Long id,
         Long applicationId,
@@ -14,6 +16,12 @@ public record AgreementResponse(
         String coordinatorFirstName,
         String coordinatorLastName,
         String coordinatorPhone,
-        String coordinatorAvatar
+        String coordinatorAvatar,
+        Long candidateId,
+        String candidateFirstName,
+        String candidateLastName,
+        Long animalId,
+        String animalName,
+        AgreementDocumentStatus documentStatus
 ) {
 }
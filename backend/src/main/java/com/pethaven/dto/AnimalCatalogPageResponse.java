@@ -0,0 +1,9 @@
+package com.pethaven.dto;
+
+import java.util.List;
+
+public record AnimalCatalogPageResponse(
+        List<AnimalResponse> items,
+        String nextCursor
+) {
+}
@@ -0,0 +1,9 @@
+package com.pethaven.dto;
+
+import java.util.List;
+
+public record AnimalNotePageResponse(
+        List<AnimalNoteResponse> items,
+        String nextCursor
+) {
+}
@@ -0,0 +1,21 @@
+package com.pethaven.dto;
+
+import com.pethaven.model.enums.ApplicationStatus;
+
+import java.time.OffsetDateTime;
+
+public record ApplicationQueueItemResponse(
+        Long id,
+        ApplicationStatus status,
+        OffsetDateTime createdAt,
+        Long animalId,
+        String animalName,
+        String animalSpecies,
+        Long candidateId,
+        String candidateFirstName,
+        String candidateLastName,
+        String candidateEmail,
+        Long processedBy,
+        String passportUrl
+) {
+}
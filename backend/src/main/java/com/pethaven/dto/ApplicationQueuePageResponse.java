@@ -0,0 +1,9 @@
+package com.pethaven.dto;
+
+import java.util.List;
+
+public record ApplicationQueuePageResponse(
+        List<ApplicationQueueItemResponse> items,
+        String nextCursor
+) {
+}
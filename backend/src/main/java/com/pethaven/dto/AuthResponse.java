@@ -12,6 +12,7 @@ public record AuthResponse(
         String phoneNumber,
         Set<SystemRole> roles,
         String accessToken,
+        String refreshToken,
         String avatarUrl
 ) {
 }
@@ -0,0 +1,9 @@
+package com.pethaven.dto;
+
+import jakarta.validation.constraints.NotBlank;
+
+public record MediaUploadCompleteRequest(
+        @NotBlank String key,
+        String description
+) {
+}
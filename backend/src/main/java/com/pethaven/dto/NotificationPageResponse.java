@@ -0,0 +1,11 @@
+package com.pethaven.dto;
+
+import com.pethaven.entity.NotificationEntity;
+
+import java.util.List;
+
+public record NotificationPageResponse(
+        List<NotificationEntity> items,
+        String nextCursor
+) {
+}
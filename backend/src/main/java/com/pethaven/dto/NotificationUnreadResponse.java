@@ -0,0 +1,6 @@
+package com.pethaven.dto;
+
+public record NotificationUnreadResponse(
+        int unread
+) {
+}
@@ -0,0 +1,13 @@
+package com.pethaven.dto;
+
+import java.time.Instant;
+import java.util.Map;
+
+public record PresignedUrlResponse(
+        String key,
+        String url,
+        String method,
+        Map<String, String> headers,
+        Instant expiresAt
+) {
+}
@@ -0,0 +1,6 @@
+package com.pethaven.dto;
+
+import jakarta.validation.constraints.NotBlank;
+
+public record RefreshTokenRequest(@NotBlank String refreshToken) {
+}
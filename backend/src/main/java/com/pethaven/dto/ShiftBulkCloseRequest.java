@@ -0,0 +1,20 @@
+package com.pethaven.dto;
+
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Смены для закрытия: список id и/или период дат. {@code workedHours} задает часы всем волонтерам,
+ * иначе часы считаются по выполненным задачам каждой смены.
+ */
+public record ShiftBulkCloseRequest(
+        @Size(max = 1000) List<@NotNull Long> shiftIds,
+        LocalDate from,
+        LocalDate to,
+        @Min(0) Integer workedHours
+) {
+}
@@ -0,0 +1,10 @@
+package com.pethaven.dto;
+
+import java.util.List;
+
+public record ShiftBulkCloseResponse(
+        int shiftsClosed,
+        long volunteersApproved,
+        List<ShiftCloseSummary> shifts
+) {
+}
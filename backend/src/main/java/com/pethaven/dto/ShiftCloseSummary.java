@@ -0,0 +1,8 @@
+package com.pethaven.dto;
+
+public record ShiftCloseSummary(
+        Long shiftId,
+        Integer workedHours,
+        long volunteersApproved
+) {
+}
@@ -9,6 +9,7 @@ public record ShiftResponse(
         Long id,
         LocalDate shiftDate,
         ShiftType shiftType,
-        OffsetDateTime closedAt
+        OffsetDateTime closedAt,
+        Integer capacity
 ) {
 }
@@ -0,0 +1,18 @@
+package com.pethaven.dto;
+
+import com.pethaven.model.enums.ShiftType;
+
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.util.List;
+
+public record ShiftRosterResponse(
+        Long id,
+        LocalDate shiftDate,
+        ShiftType shiftType,
+        OffsetDateTime closedAt,
+        Integer capacity,
+        List<ShiftRosterVolunteer> volunteers,
+        List<ShiftTaskView> tasks
+) {
+}
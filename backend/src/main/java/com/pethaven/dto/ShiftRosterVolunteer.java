@@ -0,0 +1,17 @@
+package com.pethaven.dto;
+
+import com.pethaven.model.enums.AttendanceStatus;
+
+import java.time.OffsetDateTime;
+
+public record ShiftRosterVolunteer(
+        Long volunteerId,
+        String firstName,
+        String lastName,
+        AttendanceStatus attendanceStatus,
+        OffsetDateTime signedUpAt,
+        OffsetDateTime submittedAt,
+        OffsetDateTime approvedAt,
+        Integer workedHours
+) {
+}
@@ -1,10 +1,13 @@
 package com.pethaven.entity;
 
+import com.pethaven.model.enums.AgreementDocumentStatus;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
 
 @Entity
 @Table(name = "agreement")
@@ -41,4 +44,18 @@ public class AgreementEntity {
 
     @Column(name = "confirmed_by")
     private Long confirmedBy;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "document_status", columnDefinition = "agreement_document_status")
+    @JdbcTypeCode(SqlTypes.NAMED_ENUM)
+    private AgreementDocumentStatus documentStatus = AgreementDocumentStatus.generating;
+
+    @Column(name = "document_attempts")
+    private Integer documentAttempts = 0;
+
+    @Column(name = "document_error")
+    private String documentError;
+
+    @Column(name = "document_next_attempt_at")
+    private java.time.OffsetDateTime documentNextAttemptAt;
 }
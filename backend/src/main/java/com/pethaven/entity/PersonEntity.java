@@ -77,6 +77,10 @@ public class PersonEntity {
 
     @JsonProperty("avatarUrl")
     public String avatarUrlPublic() {
+        return avatarUrlPublic(id, avatarUrl, avatarKey);
+    }
+
+    public static String avatarUrlPublic(Long id, String avatarUrl, String avatarKey) {
         if (avatarUrl != null && (avatarUrl.startsWith("http://") || avatarUrl.startsWith("https://"))) {
             return avatarUrl;
         }
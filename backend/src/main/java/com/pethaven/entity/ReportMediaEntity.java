@@ -8,6 +8,8 @@ import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
 
 import java.time.OffsetDateTime;
 
@@ -36,6 +38,11 @@ public class ReportMediaEntity {
     @Column(name = "uploaded_at")
     private OffsetDateTime uploadedAt;
 
+    @Column(name = "variant_widths")
+    @JdbcTypeCode(SqlTypes.ARRAY)
+    @JsonIgnore
+    private Integer[] variantWidths;
+
     @PrePersist
     void onCreate() {
         if (uploadedAt == null) {
@@ -34,4 +34,10 @@ public class ShiftEntity {
 
     @Column(name = "closed_at")
     private OffsetDateTime closedAt;
+
+    /**
+     * Число мест; {@code null} — без ограничения. Сверх лимита записи попадают в лист ожидания.
+     */
+    @Column(name = "capacity")
+    private Integer capacity;
 }
@@ -41,7 +41,13 @@ public interface AdoptionMapper {
                 null,
                 null,
                 null,
-                null
+                null,
+                null,
+                null,
+                null,
+                null,
+                null,
+                entity.getDocumentStatus()
         );
     }
 
@@ -15,15 +15,12 @@ import org.mapstruct.MappingTarget;
 import org.mapstruct.NullValuePropertyMappingStrategy;
 
 import java.util.List;
-import java.util.Comparator;
 
 @Mapper(componentModel = "spring")
 public interface AnimalMapper {
 
-    @Mapping(target = "photos", expression = "java(mapMediaToUrls(entity))")
-    AnimalResponse toResponse(AnimalEntity entity);
-
-    List<AnimalResponse> toResponses(List<AnimalEntity> entities);
+    @Mapping(target = "photos", source = "photos")
+    AnimalResponse toResponse(AnimalEntity entity, List<String> photos);
 
     @Mapping(target = "id", ignore = true)
     @Mapping(target = "media", ignore = true)
@@ -52,15 +49,4 @@ public interface AnimalMapper {
         }
     }
 
-    default List<String> mapMediaToUrls(AnimalEntity entity) {
-        if (entity == null || entity.getMedia() == null) {
-            return List.of();
-        }
-        return entity.getMedia().stream()
-                .sorted(Comparator.comparing(AnimalMediaEntity::getUploadedAt,
-                        Comparator.nullsLast(Comparator.naturalOrder())).reversed())
-                .map(AnimalMediaEntity::getUrl)
-                .toList();
-    }
-
 }
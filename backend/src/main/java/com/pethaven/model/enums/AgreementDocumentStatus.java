@@ -0,0 +1,7 @@
+package com.pethaven.model.enums;
+
+public enum AgreementDocumentStatus {
+    generating,
+    ready,
+    failed
+}
@@ -2,6 +2,7 @@ package com.pethaven.model.enums;
 
 public enum AttendanceStatus {
     signed_up,
+    waitlisted,
     attended,
     absent
 }
@@ -16,6 +16,7 @@ public interface AdoptionApplicationRepository extends JpaRepository<AdoptionApp
 
     List<AdoptionApplicationEntity> findByStatus(ApplicationStatus status);
     List<AdoptionApplicationEntity> findByCandidateId(Long candidateId);
+    List<AdoptionApplicationEntity> findByCandidateIdAndStatus(Long candidateId, ApplicationStatus status);
     boolean existsByCandidateIdAndAnimalIdAndStatusIn(Long candidateId, Long animalId, List<ApplicationStatus> statuses);
 
     @Query("""
@@ -40,6 +41,62 @@ public interface AdoptionApplicationRepository extends JpaRepository<AdoptionApp
     List<AdoptionApplicationEntity> findActiveByCandidateIdAndStatus(@Param("candidateId") Long candidateId,
                                                                      @Param("status") ApplicationStatus status);
 
+    String QUEUE_SELECT = """
+            SELECT a.application_id AS id,
+                   CAST(a.status AS text) AS status,
+                   a.created_at AS createdAt,
+                   a.animal_id AS animalId,
+                   an.name AS animalName,
+                   an.species AS animalSpecies,
+                   a.candidate_id AS candidateId,
+                   p.first_name AS candidateFirstName,
+                   p.last_name AS candidateLastName,
+                   p.email AS candidateEmail,
+                   a.processed_by AS processedBy,
+                   (a.passport_key IS NOT NULL) AS hasPassport
+            FROM adoption_application a
+            JOIN animal an ON an.animal_id = a.animal_id
+            JOIN person p ON p.person_id = a.candidate_id
+            WHERE (CAST(:status AS application_status) IS NULL OR a.status = CAST(:status AS application_status))
+              AND (CAST(:animalId AS integer) IS NULL OR a.animal_id = :animalId)
+              AND (CAST(:candidateId AS integer) IS NULL OR a.candidate_id = :candidateId)
+              AND (CAST(:createdFrom AS timestamptz) IS NULL OR a.created_at >= CAST(:createdFrom AS timestamptz))
+              AND (CAST(:createdTo AS timestamptz) IS NULL OR a.created_at < CAST(:createdTo AS timestamptz))
+            """;
+
+    /**
+     * Очередь заявок, новые сверху. Курсор — (created_at, application_id) последней строки.
+     */
+    @Query(value = QUEUE_SELECT + """
+              AND (CAST(:cursorCreatedAt AS timestamptz) IS NULL
+                   OR (a.created_at, a.application_id) < (CAST(:cursorCreatedAt AS timestamptz), :cursorId))
+            ORDER BY a.created_at DESC, a.application_id DESC
+            LIMIT :limit
+            """, nativeQuery = true)
+    List<ApplicationQueueProjection> findQueueNewestFirst(@Param("status") String status,
+                                                          @Param("animalId") Long animalId,
+                                                          @Param("candidateId") Long candidateId,
+                                                          @Param("createdFrom") String createdFrom,
+                                                          @Param("createdTo") String createdTo,
+                                                          @Param("cursorCreatedAt") String cursorCreatedAt,
+                                                          @Param("cursorId") Long cursorId,
+                                                          @Param("limit") int limit);
+
+    @Query(value = QUEUE_SELECT + """
+              AND (CAST(:cursorCreatedAt AS timestamptz) IS NULL
+                   OR (a.created_at, a.application_id) > (CAST(:cursorCreatedAt AS timestamptz), :cursorId))
+            ORDER BY a.created_at ASC, a.application_id ASC
+            LIMIT :limit
+            """, nativeQuery = true)
+    List<ApplicationQueueProjection> findQueueOldestFirst(@Param("status") String status,
+                                                          @Param("animalId") Long animalId,
+                                                          @Param("candidateId") Long candidateId,
+                                                          @Param("createdFrom") String createdFrom,
+                                                          @Param("createdTo") String createdTo,
+                                                          @Param("cursorCreatedAt") String cursorCreatedAt,
+                                                          @Param("cursorId") Long cursorId,
+                                                          @Param("limit") int limit);
+
     @Query(value = "SELECT submit_adoption_application(CAST(:animalId AS integer), CAST(:candidateId AS integer))", nativeQuery = true)
     Long submit(@Param("animalId") Long animalId, @Param("candidateId") Long candidateId);
 
@@ -0,0 +1,21 @@
+package com.pethaven.repository;
+
+import java.time.Instant;
+
+/**
+ * Данные для формирования документа договора: договор, кандидат и животное из одного запроса.
+ */
+public interface AgreementDocumentProjection {
+    Long getId();
+    Long getApplicationId();
+    String getPostAdoptionPlan();
+    Instant getGeneratedAt();
+    Integer getDocumentAttempts();
+    Boolean getDocumentNotify();
+    Long getCandidateId();
+    String getCandidateFirstName();
+    String getCandidateLastName();
+    String getCandidateEmail();
+    String getAnimalName();
+    String getAnimalSpecies();
+}
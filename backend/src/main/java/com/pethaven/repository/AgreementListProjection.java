@@ -0,0 +1,30 @@
+package com.pethaven.repository;
+
+import java.time.Instant;
+
+/**
+ * Договор вместе с кандидатом, животным и координатором заявки из одного запроса.
+ */
+public interface AgreementListProjection {
+    Long getId();
+    Long getApplicationId();
+    String getPostAdoptionPlan();
+    String getTemplateStorageKey();
+    String getSignedStorageKey();
+    Instant getGeneratedAt();
+    Instant getSignedAt();
+    Instant getConfirmedAt();
+    Long getConfirmedBy();
+    String getDocumentStatus();
+    Long getCandidateId();
+    String getCandidateFirstName();
+    String getCandidateLastName();
+    Long getAnimalId();
+    String getAnimalName();
+    Long getCoordinatorId();
+    String getCoordinatorFirstName();
+    String getCoordinatorLastName();
+    String getCoordinatorPhone();
+    String getCoordinatorAvatarUrl();
+    String getCoordinatorAvatarKey();
+}
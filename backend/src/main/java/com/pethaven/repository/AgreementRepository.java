@@ -2,8 +2,178 @@ package com.pethaven.repository;
 
 import com.pethaven.entity.AgreementEntity;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface AgreementRepository extends JpaRepository<AgreementEntity, Long> {
+
+    String LIST_SELECT = """
+            SELECT ag.agreement_id AS id,
+                   ag.application_id AS applicationId,
+                   ag.post_adoption_plan AS postAdoptionPlan,
+                   ag.template_storage_key AS templateStorageKey,
+                   ag.signed_storage_key AS signedStorageKey,
+                   ag.generated_at AS generatedAt,
+                   ag.signed_at AS signedAt,
+                   ag.confirmed_at AS confirmedAt,
+                   ag.confirmed_by AS confirmedBy,
+                   CAST(ag.document_status AS text) AS documentStatus,
+                   app.candidate_id AS candidateId,
+                   cand.first_name AS candidateFirstName,
+                   cand.last_name AS candidateLastName,
+                   app.animal_id AS animalId,
+                   an.name AS animalName,
+                   app.processed_by AS coordinatorId,
+                   coord.first_name AS coordinatorFirstName,
+                   coord.last_name AS coordinatorLastName,
+                   coord.phone_number AS coordinatorPhone,
+                   coord.avatar_url AS coordinatorAvatarUrl,
+                   coord.avatar_key AS coordinatorAvatarKey
+            FROM agreement ag
+            JOIN adoption_application app ON app.application_id = ag.application_id
+            JOIN person cand ON cand.person_id = app.candidate_id
+            JOIN animal an ON an.animal_id = app.animal_id
+            LEFT JOIN person coord ON coord.person_id = app.processed_by
+            """;
+
+    boolean existsByApplicationId(Long applicationId);
+
+    /**
+     * Страница договоров, новые сверху; курсор — agreement_id последней строки,
+     * {@code limit = null} возвращает все оставшиеся, {@code candidateId} ограничивает договорами кандидата.
+     */
+    @Query(value = LIST_SELECT + """
+            WHERE (CAST(:candidateId AS integer) IS NULL OR app.candidate_id = :candidateId)
+              AND (CAST(:cursorId AS integer) IS NULL OR ag.agreement_id < :cursorId)
+            ORDER BY ag.agreement_id DESC
+            LIMIT CAST(:limit AS integer)
+            """, nativeQuery = true)
+    List<AgreementListProjection> findListPage(@Param("candidateId") Long candidateId,
+                                               @Param("cursorId") Long cursorId,
+                                               @Param("limit") Integer limit);
+
+    @Query(value = LIST_SELECT + "WHERE ag.agreement_id = :id", nativeQuery = true)
+    Optional<AgreementListProjection> findListRow(@Param("id") Long id);
+
+    @Query(value = LIST_SELECT + """
+            WHERE ag.application_id = :applicationId
+              AND (CAST(:candidateId AS integer) IS NULL OR app.candidate_id = :candidateId)
+            """, nativeQuery = true)
+    Optional<AgreementListProjection> findListRowByApplicationId(@Param("applicationId") Long applicationId,
+                                                                 @Param("candidateId") Long candidateId);
+
+    @Query(value = """
+            SELECT ag.agreement_id AS id,
+                   ag.application_id AS applicationId,
+                   ag.post_adoption_plan AS postAdoptionPlan,
+                   ag.generated_at AS generatedAt,
+                   ag.document_attempts AS documentAttempts,
+                   ag.document_notify AS documentNotify,
+                   app.candidate_id AS candidateId,
+                   cand.first_name AS candidateFirstName,
+                   cand.last_name AS candidateLastName,
+                   cand.email AS candidateEmail,
+                   an.name AS animalName,
+                   an.species AS animalSpecies
+            FROM agreement ag
+            JOIN adoption_application app ON app.application_id = ag.application_id
+            JOIN person cand ON cand.person_id = app.candidate_id
+            JOIN animal an ON an.animal_id = app.animal_id
+            WHERE ag.agreement_id = :id
+            """, nativeQuery = true)
+    Optional<AgreementDocumentProjection> findDocumentSource(@Param("id") Long id);
+
+    /**
+     * Договоры, документ которых пора формировать: новые и те, у кого истекла пауза перед повтором
+     * или аренда упавшего обработчика.
+     */
+    @Query(value = """
+            SELECT agreement_id
+            FROM agreement
+            WHERE document_status = 'generating'
+              AND (document_next_attempt_at IS NULL OR document_next_attempt_at <= now())
+            ORDER BY document_next_attempt_at NULLS FIRST, agreement_id
+            LIMIT :limit
+            """, nativeQuery = true)
+    List<Long> findDueDocumentIds(@Param("limit") int limit);
+
+    /**
+     * Захватывает договор для формирования документа: увеличивает счетчик попыток и откладывает
+     * следующую попытку на время аренды, чтобы ее не взял другой обработчик. Результат попытки
+     * принимается только с тем же {@code leaseToken}. 0 — договор уже занят или сформирован.
+     */
+    @Transactional
+    @Modifying
+    @Query(value = """
+            UPDATE agreement
+            SET document_attempts = document_attempts + 1,
+                document_lease_token = CAST(:leaseToken AS uuid),
+                document_next_attempt_at = now() + make_interval(secs => :leaseSeconds)
+            WHERE agreement_id = :id
+              AND document_status = 'generating'
+              AND (document_next_attempt_at IS NULL OR document_next_attempt_at <= now())
+            """, nativeQuery = true)
+    int claimDocument(@Param("id") Long id,
+                      @Param("leaseToken") String leaseToken,
+                      @Param("leaseSeconds") long leaseSeconds);
+
+    @Transactional
+    @Modifying
+    @Query(value = """
+            UPDATE agreement
+            SET template_storage_key = :key,
+                document_status = 'ready',
+                document_error = NULL,
+                document_next_attempt_at = NULL,
+                document_lease_token = NULL
+            WHERE agreement_id = :id
+              AND document_status = 'generating'
+              AND document_lease_token = CAST(:leaseToken AS uuid)
+            """, nativeQuery = true)
+    int markDocumentReady(@Param("id") Long id, @Param("leaseToken") String leaseToken, @Param("key") String key);
+
+    /**
+     * Записывает неудачную попытку: договор ждет повтора до {@code nextAttemptAt}
+     * либо, если {@code failed}, переходит в failed до ручного перезапуска. 0 — аренда уже перешла
+     * к другому обработчику.
+     */
+    @Transactional
+    @Modifying
+    @Query(value = """
+            UPDATE agreement
+            SET document_status = CAST(CASE WHEN :failed THEN 'failed' ELSE 'generating' END AS agreement_document_status),
+                document_error = :error,
+                document_next_attempt_at = CAST(:nextAttemptAt AS timestamptz),
+                document_lease_token = NULL
+            WHERE agreement_id = :id
+              AND document_status = 'generating'
+              AND document_lease_token = CAST(:leaseToken AS uuid)
+            """, nativeQuery = true)
+    int markDocumentAttemptFailed(@Param("id") Long id,
+                                  @Param("leaseToken") String leaseToken,
+                                  @Param("error") String error,
+                                  @Param("nextAttemptAt") String nextAttemptAt,
+                                  @Param("failed") boolean failed);
+
+    @Transactional
+    @Modifying
+    @Query(value = """
+            UPDATE agreement
+            SET document_status = 'generating',
+                document_attempts = 0,
+                document_error = NULL,
+                document_next_attempt_at = NULL,
+                document_lease_token = NULL,
+                document_notify = TRUE
+            WHERE agreement_id = :id
+              AND document_status = 'failed'
+            """, nativeQuery = true)
+    int resetFailedDocument(@Param("id") Long id);
 }
@@ -0,0 +1,18 @@
+package com.pethaven.repository;
+
+/**
+ * Облегченная проекция карточки животного для каталога.
+ */
+public interface AnimalCatalogProjection {
+    Long getId();
+    String getName();
+    String getSpecies();
+    String getBreed();
+    Integer getAgeMonths();
+    String getGender();
+    String getDescription();
+    String getStatus();
+    Boolean getPendingAdminReview();
+    String getAdminReviewComment();
+    Boolean getReadyForAdoption();
+}
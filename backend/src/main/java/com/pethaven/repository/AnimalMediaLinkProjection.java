@@ -0,0 +1,9 @@
+package com.pethaven.repository;
+
+/**
+ * Идентификаторы медиа животного, достаточные для построения ссылок.
+ */
+public interface AnimalMediaLinkProjection {
+    Long getAnimalId();
+    Long getId();
+}
@@ -2,11 +2,70 @@ package com.pethaven.repository;
 
 import com.pethaven.entity.AnimalMediaEntity;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
+import java.time.OffsetDateTime;
 import java.util.List;
 
 @Repository
 public interface AnimalMediaRepository extends JpaRepository<AnimalMediaEntity, Long> {
     List<AnimalMediaEntity> findByAnimalIdOrderByUploadedAtDesc(Long animalId);
+
+    boolean existsByStorageKey(String storageKey);
+
+    @Query(value = """
+            SELECT animal_id AS animalId,
+                   media_id  AS id
+            FROM animal_media
+            WHERE animal_id IN (:animalIds)
+            ORDER BY animal_id, uploaded_at DESC
+            """, nativeQuery = true)
+    List<AnimalMediaLinkProjection> findLinksByAnimalIds(@Param("animalIds") Collection<Long> animalIds);
+
+    /**
+     * Медиа без записанного результата построения копий, чья пауза после неудачной попытки истекла, —
+     * для догоняющего обхода.
+     */
+    @Query(value = """
+            SELECT media_id AS id,
+                   storage_key AS storageKey
+            FROM animal_media
+            WHERE variant_widths IS NULL
+              AND uploaded_at < :before
+              AND (variant_next_attempt_at IS NULL OR variant_next_attempt_at <= now())
+            ORDER BY variant_next_attempt_at NULLS FIRST, media_id
+            LIMIT :limit
+            """, nativeQuery = true)
+    List<MediaVariantSourceProjection> findWithoutVariants(@Param("before") OffsetDateTime before,
+                                                           @Param("limit") int limit);
+
+    @Transactional
+    @Modifying
+    @Query(value = "UPDATE animal_media SET variant_widths = CAST(:widths AS integer[]) WHERE media_id = :id", nativeQuery = true)
+    int updateVariantWidths(@Param("id") Long id, @Param("widths") String widths);
+
+    /**
+     * Записывает неудачную попытку: следующая не раньше чем через {@code backoffSeconds * 2^(попытка - 1)},
+     * но не позже {@code maxBackoffSeconds}; на {@code maxAttempts}-й попытке медиа помечается пустым массивом.
+     */
+    @Transactional
+    @Modifying
+    @Query(value = """
+            UPDATE animal_media
+            SET variant_attempts = variant_attempts + 1,
+                variant_widths = CASE WHEN variant_attempts + 1 >= :maxAttempts THEN CAST('{}' AS integer[]) END,
+                variant_next_attempt_at = now() + make_interval(
+                        secs => LEAST(:backoffSeconds * power(2, LEAST(variant_attempts, 20)), :maxBackoffSeconds))
+            WHERE media_id = :id
+              AND variant_widths IS NULL
+            """, nativeQuery = true)
+    int recordVariantFailure(@Param("id") Long id,
+                             @Param("maxAttempts") int maxAttempts,
+                             @Param("backoffSeconds") long backoffSeconds,
+                             @Param("maxBackoffSeconds") long maxBackoffSeconds);
 }
@@ -0,0 +1,18 @@
+package com.pethaven.repository;
+
+import java.time.Instant;
+
+/**
+ * Заметка о поведении вместе с данными автора из одного запроса.
+ */
+public interface AnimalNoteProjection {
+    Long getId();
+    Long getAnimalId();
+    Long getAuthorId();
+    String getAuthorFirstName();
+    String getAuthorLastName();
+    String getAuthorAvatarUrl();
+    String getAuthorAvatarKey();
+    String getNote();
+    Instant getCreatedAt();
+}
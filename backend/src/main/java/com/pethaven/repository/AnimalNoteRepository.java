@@ -2,11 +2,65 @@ package com.pethaven.repository;
 
 import com.pethaven.entity.AnimalNoteEntity;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 
 @Repository
 public interface AnimalNoteRepository extends JpaRepository<AnimalNoteEntity, Long> {
-    List<AnimalNoteEntity> findByAnimalIdOrderByCreatedAtDesc(Long animalId);
+    /**
+     * Сохраняет заметку и сразу возвращает ее вместе с автором одним запросом.
+     */
+    @Transactional
+    @Query(value = """
+            WITH inserted AS (
+                INSERT INTO animal_note (animal_id, author_id, note)
+                VALUES (:animalId, CAST(:authorId AS integer), :note)
+                RETURNING note_id, animal_id, author_id, note, created_at
+            )
+            SELECT i.note_id AS id,
+                   i.animal_id AS animalId,
+                   i.author_id AS authorId,
+                   p.first_name AS authorFirstName,
+                   p.last_name AS authorLastName,
+                   p.avatar_url AS authorAvatarUrl,
+                   p.avatar_key AS authorAvatarKey,
+                   i.note AS note,
+                   i.created_at AS createdAt
+            FROM inserted i
+            LEFT JOIN person p ON p.person_id = i.author_id
+            """, nativeQuery = true)
+    AnimalNoteProjection insertWithAuthor(@Param("animalId") Long animalId,
+                                          @Param("authorId") Long authorId,
+                                          @Param("note") String note);
+
+    /**
+     * Страница заметок с автором, новые сверху. Курсор — (created_at, note_id) последней строки;
+     * {@code limit = null} возвращает все оставшиеся заметки.
+     */
+    @Query(value = """
+            SELECT n.note_id AS id,
+                   n.animal_id AS animalId,
+                   n.author_id AS authorId,
+                   p.first_name AS authorFirstName,
+                   p.last_name AS authorLastName,
+                   p.avatar_url AS authorAvatarUrl,
+                   p.avatar_key AS authorAvatarKey,
+                   n.note AS note,
+                   n.created_at AS createdAt
+            FROM animal_note n
+            LEFT JOIN person p ON p.person_id = n.author_id
+            WHERE n.animal_id = :animalId
+              AND (CAST(:cursorCreatedAt AS timestamptz) IS NULL
+                   OR (n.created_at, n.note_id) < (CAST(:cursorCreatedAt AS timestamptz), :cursorId))
+            ORDER BY n.created_at DESC, n.note_id DESC
+            LIMIT CAST(:limit AS integer)
+            """, nativeQuery = true)
+    List<AnimalNoteProjection> findPageWithAuthors(@Param("animalId") Long animalId,
+                                                   @Param("cursorCreatedAt") String cursorCreatedAt,
+                                                   @Param("cursorId") Long cursorId,
+                                                   @Param("limit") Integer limit);
 }
@@ -21,6 +21,37 @@ public interface AnimalRepository extends JpaRepository<AnimalEntity, Long> {
             """, nativeQuery = true)
     List<AnimalEntity> findCatalog(@Param("species") String species, @Param("status") String status, @Param("includePending") boolean includePending);
 
+    @Query(value = """
+            SELECT animal_id            AS id,
+                   name                 AS name,
+                   species              AS species,
+                   breed                AS breed,
+                   age                  AS ageMonths,
+                   gender               AS gender,
+                   description          AS description,
+                   status::text         AS status,
+                   pending_admin_review AS pendingAdminReview,
+                   admin_review_comment AS adminReviewComment,
+                   ready_for_adoption   AS readyForAdoption
+            FROM animal
+            WHERE (:species IS NULL OR species = :species)
+              AND (:status IS NULL OR status::text = :status)
+              AND (:includePending = true OR COALESCE(pending_admin_review, FALSE) = FALSE)
+              AND (:onlyAvailable = false OR status = 'available')
+              AND (:excludeAdopted = false OR status <> 'adopted')
+              AND (:cursorStatus IS NULL OR (status, animal_id) > (CAST(:cursorStatus AS animal_status), :cursorId))
+            ORDER BY status, animal_id
+            LIMIT :limit
+            """, nativeQuery = true)
+    List<AnimalCatalogProjection> findCatalogPage(@Param("species") String species,
+                                                  @Param("status") String status,
+                                                  @Param("includePending") boolean includePending,
+                                                  @Param("onlyAvailable") boolean onlyAvailable,
+                                                  @Param("excludeAdopted") boolean excludeAdopted,
+                                                  @Param("cursorStatus") String cursorStatus,
+                                                  @Param("cursorId") long cursorId,
+                                                  @Param("limit") int limit);
+
     @Query(value = "SELECT DISTINCT species FROM animal WHERE status = 'available' AND COALESCE(pending_admin_review, FALSE) = FALSE", nativeQuery = true)
     List<String> findAvailableSpecies();
 }
@@ -0,0 +1,21 @@
+package com.pethaven.repository;
+
+import java.time.Instant;
+
+/**
+ * Строка очереди заявок с именем животного и кандидата.
+ */
+public interface ApplicationQueueProjection {
+    Long getId();
+    String getStatus();
+    Instant getCreatedAt();
+    Long getAnimalId();
+    String getAnimalName();
+    String getAnimalSpecies();
+    Long getCandidateId();
+    String getCandidateFirstName();
+    String getCandidateLastName();
+    String getCandidateEmail();
+    Long getProcessedBy();
+    Boolean getHasPassport();
+}
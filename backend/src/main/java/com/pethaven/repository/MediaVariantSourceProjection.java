@@ -0,0 +1,6 @@
+package com.pethaven.repository;
+
+public interface MediaVariantSourceProjection {
+    Long getId();
+    String getStorageKey();
+}
@@ -0,0 +1,14 @@
+package com.pethaven.repository;
+
+import java.time.LocalDate;
+
+/**
+ * Месячная секция ленты уведомлений и ее диапазон [rangeFrom, rangeTo);
+ * {@code attached = false} — секция уже отсоединена прошлым запуском, но не удалена.
+ */
+public interface NotificationPartitionProjection {
+    String getPartitionName();
+    LocalDate getRangeFrom();
+    LocalDate getRangeTo();
+    Boolean getAttached();
+}
@@ -7,25 +7,163 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.OffsetDateTime;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
 public interface NotificationRepository extends JpaRepository<NotificationEntity, Long> {
     List<NotificationEntity> findByPersonIdOrderByCreatedAtDesc(Long personId, Pageable pageable);
 
-    @Query(value = "SELECT create_notification(CAST(:personId AS integer), CAST(:type AS notification_type), :title, :message)", nativeQuery = true)
-    Long createNotification(@Param("personId") Long personId,
-                            @Param("type") String type,
-                            @Param("title") String title,
-                            @Param("message") String message);
+    /**
+     * Страница ленты пользователя, новые сверху; курсор {@code before} — (created_at, notification_id)
+     * последней показанной строки.
+     */
+    @Query(value = """
+            SELECT *
+            FROM notification
+            WHERE person_id = :personId
+              AND (CAST(:beforeCreatedAt AS timestamptz) IS NULL
+                   OR (created_at, notification_id) < (CAST(:beforeCreatedAt AS timestamptz), :beforeId))
+            ORDER BY created_at DESC, notification_id DESC
+            LIMIT :limit
+            """, nativeQuery = true)
+    List<NotificationEntity> findInboxPage(@Param("personId") Long personId,
+                                           @Param("beforeCreatedAt") String beforeCreatedAt,
+                                           @Param("beforeId") Long beforeId,
+                                           @Param("limit") int limit);
+
+    /**
+     * Число непрочитанных из счетчика, который ведут триггеры на notification.
+     */
+    @Query(value = """
+            SELECT COALESCE((SELECT unread FROM notification_unread_counter WHERE person_id = :personId), 0)
+            """, nativeQuery = true)
+    int findUnreadCount(@Param("personId") Long personId);
+
+    @Transactional
+    @Query(value = """
+            INSERT INTO notification (person_id, type, title, message)
+            SELECT p.person_id, CAST(:type AS notification_type), :title, :message
+            FROM person p
+            JOIN person_roles pr ON pr.person_id = p.person_id
+            JOIN role r ON r.role_id = pr.role_id
+            WHERE r.name = :roleName AND p.is_active IS NOT FALSE
+            RETURNING *
+            """, nativeQuery = true)
+    List<NotificationEntity> insertForRole(@Param("roleName") String roleName,
+                                           @Param("type") String type,
+                                           @Param("title") String title,
+                                           @Param("message") String message);
+
+    @Transactional
+    @Query(value = """
+            INSERT INTO notification (person_id, type, title, message)
+            SELECT p.person_id, CAST(:type AS notification_type), :title, :message
+            FROM person p
+            WHERE p.person_id IN (:personIds)
+            RETURNING *
+            """, nativeQuery = true)
+    List<NotificationEntity> insertForPersons(@Param("personIds") Collection<Long> personIds,
+                                              @Param("type") String type,
+                                              @Param("title") String title,
+                                              @Param("message") String message);
+
+    /**
+     * Одна порция напоминаний об отчетах: выбирает до {@code limit} открытых отчетов со сроком в ближайшие
+     * {@code daysAhead} дней, которым сегодня еще не напоминали, отмечает их и создает уведомления кандидатам.
+     * {@code SKIP LOCKED} раздает непересекающиеся порции параллельным узлам.
+     */
+    @Transactional
+    @Query(value = """
+            WITH due AS (
+                SELECT r.report_id, r.agreement_id, r.due_date, aa.candidate_id
+                FROM post_adoption_report r
+                JOIN agreement ag ON ag.agreement_id = r.agreement_id
+                JOIN adoption_application aa ON aa.application_id = ag.application_id
+                WHERE r.submitted_date IS NULL
+                  AND r.status IN ('pending', 'overdue')
+                  AND r.due_date BETWEEN CURRENT_DATE AND CURRENT_DATE + CAST(:daysAhead AS integer)
+                  AND (r.last_reminded_at IS NULL OR r.last_reminded_at < CURRENT_DATE)
+                ORDER BY r.due_date, r.report_id
+                LIMIT :limit
+                FOR UPDATE OF r SKIP LOCKED
+            ), stamped AS (
+                UPDATE post_adoption_report r
+                SET last_reminded_at = now()
+                FROM due
+                WHERE r.report_id = due.report_id
+                RETURNING due.candidate_id, due.agreement_id, due.due_date
+            )
+            INSERT INTO notification (person_id, type, title, message)
+            SELECT s.candidate_id,
+                   CAST('report_due' AS notification_type),
+                   :title,
+                   format('Отчет по договору #%s. Срок: %s', s.agreement_id, to_char(s.due_date, 'YYYY-MM-DD'))
+            FROM stamped s
+            RETURNING *
+            """, nativeQuery = true)
+    List<NotificationEntity> insertReportReminders(@Param("daysAhead") int daysAhead,
+                                                   @Param("limit") int limit,
+                                                   @Param("title") String title);
+
+    /**
+     * Создает недостающие месячные секции до текущего месяца + {@code monthsAhead}; возвращает число созданных.
+     */
+    @Transactional
+    @Query(value = "SELECT ensure_notification_partitions(CURRENT_DATE, :monthsAhead)", nativeQuery = true)
+    int ensurePartitions(@Param("monthsAhead") int monthsAhead);
+
+    @Query(value = """
+            SELECT partition_name AS partitionName,
+                   range_from AS rangeFrom,
+                   range_to AS rangeTo,
+                   attached AS attached
+            FROM expired_notification_partitions(CAST(:before AS date))
+            """, nativeQuery = true)
+    List<NotificationPartitionProjection> findExpiredPartitions(@Param("before") String before);
+
+    /**
+     * Отсоединяет месячную секцию от ленты, ожидая блокировку не дольше {@code lockTimeout}
+     * (например, {@code 2000ms}); false — секция уже отсоединена или удалена.
+     */
+    @Transactional
+    @Query(value = "SELECT detach_notification_partition(:name, :lockTimeout)", nativeQuery = true)
+    boolean detachPartition(@Param("name") String partitionName, @Param("lockTimeout") String lockTimeout);
+
+    /**
+     * Удаляет отсоединенную месячную секцию, списав ее непрочитанные из счетчиков; -1 — секция уже удалена.
+     */
+    @Transactional
+    @Query(value = "SELECT drop_notification_partition(:name)", nativeQuery = true)
+    int dropPartition(@Param("name") String partitionName);
+
+    /**
+     * Уведомления после {@code afterId} для указанных пользователей — догоняющая рассылка после разрыва
+     * LISTEN-соединения; {@code since} отсекает старые секции.
+     */
+    @Query(value = """
+            SELECT *
+            FROM notification
+            WHERE person_id IN (:personIds)
+              AND notification_id > :afterId
+              AND created_at >= :since
+            ORDER BY notification_id
+            LIMIT :limit
+            """, nativeQuery = true)
+    List<NotificationEntity> findCreatedAfter(@Param("personIds") Collection<Long> personIds,
+                                              @Param("afterId") long afterId,
+                                              @Param("since") OffsetDateTime since,
+                                              @Param("limit") int limit);
 
     @Modifying(clearAutomatically = true)
-    @Query(value = "UPDATE notification SET read = true WHERE notification_id = :id AND person_id = :personId", nativeQuery = true)
+    @Query(value = "UPDATE notification SET read = true WHERE notification_id = :id AND person_id = :personId AND NOT read", nativeQuery = true)
     int markRead(@Param("id") Long id, @Param("personId") Long personId);
 
     @Modifying(clearAutomatically = true)
-    @Query(value = "UPDATE notification SET read = true WHERE person_id = :personId", nativeQuery = true)
+    @Query(value = "UPDATE notification SET read = true WHERE person_id = :personId AND NOT read", nativeQuery = true)
     int markAllRead(@Param("personId") Long personId);
 
     @Modifying(clearAutomatically = true)
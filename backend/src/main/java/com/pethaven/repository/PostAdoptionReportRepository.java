@@ -2,8 +2,10 @@ package com.pethaven.repository;
 
 import com.pethaven.entity.PostAdoptionReportEntity;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 import java.util.Optional;
@@ -89,20 +91,19 @@ public interface PostAdoptionReportRepository extends JpaRepository<PostAdoption
 
     boolean existsByAgreementId(Long agreementId);
 
+    /**
+     * Переводит все просроченные неотправленные отчеты в overdue одним UPDATE.
+     */
+    @Transactional
+    @Modifying
     @Query(value = """
-            SELECT r.report_id        AS id,
-                   r.agreement_id     AS agreementId,
-                   r.due_date         AS dueDate,
-                   r.status           AS status,
-                   r.last_reminded_at AS lastRemindedAt,
-                   aa.candidate_id    AS candidateId
-            FROM post_adoption_report r
-                     JOIN agreement ag ON ag.agreement_id = r.agreement_id
-                     JOIN adoption_application aa ON aa.application_id = ag.application_id
-            WHERE r.submitted_date IS NULL
-              AND r.status IN ('pending', 'overdue')
+            UPDATE post_adoption_report
+            SET status = 'overdue'
+            WHERE submitted_date IS NULL
+              AND status = 'pending'
+              AND due_date < CURRENT_DATE
             """, nativeQuery = true)
-    List<PostAdoptionReportReminderProjection> findPendingForReminder();
+    int markOverdue();
 
     @Query(value = """
             SELECT aa.candidate_id
@@ -0,0 +1,53 @@
+package com.pethaven.repository;
+
+import com.pethaven.entity.RefreshTokenEntity;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.OffsetDateTime;
+import java.util.Optional;
+import java.util.UUID;
+
+@Repository
+public interface RefreshTokenRepository extends JpaRepository<RefreshTokenEntity, Long> {
+
+    /**
+     * Строка токена блокируется (SELECT ... FOR UPDATE) до конца транзакции: два одновременных
+     * предъявления одного токена проверяются по очереди, и только первое застает {@code used_at = null}.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT t FROM RefreshTokenEntity t WHERE t.tokenHash = :tokenHash")
+    Optional<RefreshTokenEntity> findByTokenHash(@Param("tokenHash") String tokenHash);
+
+    @Transactional
+    @Modifying(clearAutomatically = true)
+    @Query(value = "UPDATE refresh_token SET revoked_at = NOW() WHERE family_id = :familyId AND revoked_at IS NULL", nativeQuery = true)
+    int revokeFamily(@Param("familyId") UUID familyId);
+
+    @Transactional
+    @Modifying(clearAutomatically = true)
+    @Query(value = "UPDATE refresh_token SET revoked_at = NOW() WHERE person_id = :personId AND revoked_at IS NULL", nativeQuery = true)
+    int revokeAllForPerson(@Param("personId") Long personId);
+
+    /**
+     * Удаляет пачку токенов, просроченных или отозванных раньше {@code before}; возвращает число удаленных.
+     */
+    @Transactional
+    @Modifying
+    @Query(value = """
+            DELETE FROM refresh_token
+            WHERE refresh_token_id IN (
+                SELECT refresh_token_id
+                FROM refresh_token
+                WHERE expires_at < :before OR revoked_at < :before
+                LIMIT :limit
+            )
+            """, nativeQuery = true)
+    int deleteStale(@Param("before") OffsetDateTime before, @Param("limit") int limit);
+}
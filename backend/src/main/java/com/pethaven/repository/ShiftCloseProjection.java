@@ -0,0 +1,7 @@
+package com.pethaven.repository;
+
+public interface ShiftCloseProjection {
+    Long getShiftId();
+    Integer getWorkedHours();
+    Long getApproved();
+}
@@ -1,23 +1,107 @@
 package com.pethaven.repository;
 
 import com.pethaven.entity.ShiftEntity;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
-import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface ShiftRepository extends JpaRepository<ShiftEntity, Long> {
     List<ShiftEntity> findByShiftDateGreaterThanEqualOrderByShiftDateAsc(LocalDate fromDate);
 
+    List<ShiftEntity> findByShiftDateBetweenOrderByShiftDateAscIdAsc(LocalDate from, LocalDate to);
+
     @Query("SELECT s FROM ShiftEntity s WHERE s.shiftDate >= :fromDate AND s.closedAt IS NULL ORDER BY s.shiftDate ASC")
     List<ShiftEntity> findAvailableByShiftDateGreaterThanEqualOrderByShiftDateAsc(@Param("fromDate") LocalDate fromDate);
 
-    @Modifying
-    @Query(value = "CALL signup_for_shift(CAST(:shiftId AS integer), CAST(:volunteerId AS integer))", nativeQuery = true)
-    void signup(@Param("shiftId") Long shiftId, @Param("volunteerId") Long volunteerId);
+    /**
+     * Блокирует строку смены до конца транзакции — ту же блокировку берут shift_signup и
+     * promote_shift_waitlist, поэтому изменения занятых мест не пересекаются.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM ShiftEntity s WHERE s.id = :id")
+    Optional<ShiftEntity> findByIdForUpdate(@Param("id") Long id);
+
+    @Query("SELECT s.id FROM ShiftEntity s WHERE s.shiftDate BETWEEN :from AND :to AND s.closedAt IS NULL")
+    List<Long> findOpenIdsBetween(@Param("from") LocalDate from, @Param("to") LocalDate to);
+
+    /**
+     * Закрывает открытые смены из списка и подтверждает все неподтвержденные записи одним запросом;
+     * лист ожидания закрытых смен переводится в absent. Смены блокируются по возрастанию id.
+     * Часы — {@code workedHours}, если задано, иначе сумма часов выполненных задач смены.
+     * Возвращает по строке на закрытую смену: часы и число подтвержденных волонтеров.
+     */
+    @Transactional
+    @Query(value = """
+            WITH target AS (
+                SELECT s.shift_id
+                FROM shift s
+                WHERE s.shift_id IN (:shiftIds)
+                  AND s.closed_at IS NULL
+                ORDER BY s.shift_id
+                FOR UPDATE
+            ), hours AS (
+                SELECT t.shift_id,
+                       COALESCE(CAST(:workedHours AS integer),
+                                (SELECT CAST(COALESCE(SUM(ts.worked_hours), 0) AS integer)
+                                 FROM task_shift ts
+                                 WHERE ts.shift_id = t.shift_id
+                                   AND lower(ts.task_state) = 'done')) AS worked_hours
+                FROM target t
+            ), approved AS (
+                UPDATE shift_volunteer sv
+                SET attendance_status = 'attended',
+                    approved_at = NOW(),
+                    worked_hours = h.worked_hours
+                FROM hours h
+                WHERE sv.shift_id = h.shift_id
+                  AND sv.approved_at IS NULL
+                  AND sv.attendance_status IN ('signed_up', 'attended')
+                RETURNING sv.shift_id
+            ), released AS (
+                UPDATE shift_volunteer sv
+                SET attendance_status = 'absent',
+                    cancel_reason = COALESCE(sv.cancel_reason, 'Смена закрыта, место не освободилось')
+                FROM target t
+                WHERE sv.shift_id = t.shift_id
+                  AND sv.attendance_status = 'waitlisted'
+                RETURNING sv.shift_id
+            ), closed AS (
+                UPDATE shift s
+                SET closed_at = NOW()
+                FROM target t
+                WHERE s.shift_id = t.shift_id
+                RETURNING s.shift_id
+            )
+            SELECT c.shift_id AS shiftId,
+                   h.worked_hours AS workedHours,
+                   (SELECT COUNT(*) FROM approved a WHERE a.shift_id = c.shift_id) AS approved
+            FROM closed c
+            JOIN hours h ON h.shift_id = c.shift_id
+            ORDER BY c.shift_id
+            """, nativeQuery = true)
+    List<ShiftCloseProjection> closeAndApprove(@Param("shiftIds") Collection<Long> shiftIds,
+                                               @Param("workedHours") Integer workedHours);
+
+    /**
+     * Атомарная запись на смену: проверки, лимит мест и вставка под блокировкой строки смены.
+     * Возвращает итоговый статус записи — signed_up или waitlisted.
+     */
+    @Query(value = "SELECT CAST(shift_signup(CAST(:shiftId AS integer), CAST(:volunteerId AS integer)) AS text)", nativeQuery = true)
+    String signup(@Param("shiftId") Long shiftId, @Param("volunteerId") Long volunteerId);
+
+    /**
+     * Переводит ожидающих на освободившиеся места; возвращает число переведенных.
+     */
+    @Query(value = "SELECT promote_shift_waitlist(CAST(:shiftId AS integer))", nativeQuery = true)
+    int promoteWaitlist(@Param("shiftId") Long shiftId);
 }
@@ -0,0 +1,15 @@
+package com.pethaven.repository;
+
+import java.time.Instant;
+
+public interface ShiftRosterVolunteerProjection {
+    Long getShiftId();
+    Long getVolunteerId();
+    String getFirstName();
+    String getLastName();
+    String getAttendanceStatus();
+    Instant getSignedUpAt();
+    Instant getSubmittedAt();
+    Instant getApprovedAt();
+    Integer getWorkedHours();
+}
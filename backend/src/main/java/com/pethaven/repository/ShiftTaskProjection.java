@@ -0,0 +1,22 @@
+package com.pethaven.repository;
+
+import java.time.Instant;
+
+/**
+ * Задача смены вместе с названием задачи, кличкой животного и автором отметки из одного запроса.
+ */
+public interface ShiftTaskProjection {
+    Long getTaskId();
+    Long getShiftId();
+    String getTitle();
+    String getDescription();
+    Long getAnimalId();
+    String getAnimalName();
+    String getProgressNotes();
+    String getTaskState();
+    Instant getCompletedAt();
+    Long getCompletedBy();
+    String getCompletedByFirstName();
+    String getCompletedByLastName();
+    Integer getWorkedHours();
+}
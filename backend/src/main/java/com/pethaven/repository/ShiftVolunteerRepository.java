@@ -3,12 +3,44 @@ package com.pethaven.repository;
 import com.pethaven.entity.ShiftVolunteerEntity;
 import com.pethaven.entity.ShiftVolunteerId;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDate;
 import java.util.List;
 
 @Repository
 public interface ShiftVolunteerRepository extends JpaRepository<ShiftVolunteerEntity, ShiftVolunteerId> {
     List<ShiftVolunteerEntity> findByIdShiftId(Long shiftId);
     List<ShiftVolunteerEntity> findByIdVolunteerId(Long volunteerId);
+
+    @Query(value = """
+            SELECT COUNT(*)
+            FROM shift_volunteer
+            WHERE shift_id = :shiftId
+              AND attendance_status IN ('signed_up', 'attended')
+            """, nativeQuery = true)
+    long countSeatsTaken(@Param("shiftId") Long shiftId);
+
+    /**
+     * Записи волонтеров с именами для всех смен с датой в [from, to].
+     */
+    @Query(value = """
+            SELECT sv.shift_id AS shiftId,
+                   sv.volunteer_id AS volunteerId,
+                   p.first_name AS firstName,
+                   p.last_name AS lastName,
+                   CAST(sv.attendance_status AS text) AS attendanceStatus,
+                   sv.signed_up_at AS signedUpAt,
+                   sv.submitted_at AS submittedAt,
+                   sv.approved_at AS approvedAt,
+                   sv.worked_hours AS workedHours
+            FROM shift_volunteer sv
+            JOIN shift s ON s.shift_id = sv.shift_id
+            JOIN person p ON p.person_id = sv.volunteer_id
+            WHERE s.shift_date BETWEEN :from AND :to
+            ORDER BY sv.shift_id, p.last_name, p.first_name, sv.volunteer_id
+            """, nativeQuery = true)
+    List<ShiftRosterVolunteerProjection> findRosterInWindow(@Param("from") LocalDate from, @Param("to") LocalDate to);
 }
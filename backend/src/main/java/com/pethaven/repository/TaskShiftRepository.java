@@ -3,13 +3,56 @@ package com.pethaven.repository;
 import com.pethaven.entity.TaskShiftEntity;
 import com.pethaven.entity.TaskShiftId;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
 public interface TaskShiftRepository extends JpaRepository<TaskShiftEntity, TaskShiftId> {
+
+    String VIEW_SELECT = """
+            SELECT ts.task_id AS taskId,
+                   ts.shift_id AS shiftId,
+                   t.title AS title,
+                   t.description AS description,
+                   t.animal_id AS animalId,
+                   an.name AS animalName,
+                   ts.progress_notes AS progressNotes,
+                   ts.task_state AS taskState,
+                   ts.completed_at AS completedAt,
+                   ts.completed_by AS completedBy,
+                   actor.first_name AS completedByFirstName,
+                   actor.last_name AS completedByLastName,
+                   ts.worked_hours AS workedHours
+            FROM task_shift ts
+            JOIN task t ON t.task_id = ts.task_id
+            LEFT JOIN animal an ON an.animal_id = t.animal_id
+            LEFT JOIN person actor ON actor.person_id = ts.completed_by
+            """;
+
     List<TaskShiftEntity> findByIdShiftId(Long shiftId);
     List<TaskShiftEntity> findByIdTaskId(Long taskId);
-    List<TaskShiftEntity> findByIdShiftIdIn(Iterable<Long> shiftIds);
+
+    @Query(value = VIEW_SELECT + """
+            WHERE ts.shift_id IN (:shiftIds)
+            ORDER BY ts.shift_id, ts.task_id
+            """, nativeQuery = true)
+    List<ShiftTaskProjection> findViewsByShiftIds(@Param("shiftIds") Collection<Long> shiftIds);
+
+    @Query(value = VIEW_SELECT + "WHERE ts.task_id = :taskId AND ts.shift_id = :shiftId", nativeQuery = true)
+    List<ShiftTaskProjection> findView(@Param("taskId") Long taskId, @Param("shiftId") Long shiftId);
+
+    /**
+     * Задачи всех смен с датой в [from, to].
+     */
+    @Query(value = VIEW_SELECT + """
+            JOIN shift s ON s.shift_id = ts.shift_id
+            WHERE s.shift_date BETWEEN :from AND :to
+            ORDER BY ts.shift_id, ts.task_id
+            """, nativeQuery = true)
+    List<ShiftTaskProjection> findViewsInWindow(@Param("from") LocalDate from, @Param("to") LocalDate to);
 }
@@ -1,19 +1,27 @@
 package com.pethaven.security;
 
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.security.Keys;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 
 import java.nio.charset.StandardCharsets;
 import java.security.Key;
 import java.time.Instant;
 import java.util.Date;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 
 @Component
@@ -21,9 +29,13 @@ public class JwtService {
 
     private final Key signingKey;
     private final long ttlSeconds;
+    private final JwtParser parser;
+    private final int cacheSize;
+    private final Map<String, VerifiedToken> verified = new ConcurrentHashMap<>();
 
     public JwtService(@Value("${security.jwt.secret:changeme-secret-key}") String secret,
-                      @Value("${security.jwt.ttl-seconds:86400}") long ttlSeconds) {
+                      @Value("${security.jwt.ttl-seconds:900}") long ttlSeconds,
+                      @Value("${security.jwt.cache-size:10000}") int cacheSize) {
         byte[] keyBytes = secret.getBytes(StandardCharsets.UTF_8);
         if (keyBytes.length < 32) {
             this.signingKey = Keys.secretKeyFor(SignatureAlgorithm.HS256);
@@ -31,6 +43,11 @@ public class JwtService {
             this.signingKey = Keys.hmacShaKeyFor(keyBytes);
         }
         this.ttlSeconds = ttlSeconds;
+        // парсер неизменяем и потокобезопасен, собираем его один раз
+        this.parser = Jwts.parserBuilder()
+                .setSigningKey(signingKey)
+                .build();
+        this.cacheSize = cacheSize;
     }
 
     public String generateToken(Long userId, String email, Set<com.pethaven.model.enums.SystemRole> roles) {
@@ -45,33 +62,71 @@ public class JwtService {
                 .compact();
     }
 
-    public UsernamePasswordAuthenticationToken toAuthentication(String token) {
-        Claims claims = parseClaims(token);
+    /**
+     * Проверяет токен и строит аутентификацию за один разбор. Уже проверенные токены берутся
+     * из кэша по строке токена до истечения их {@code exp}, без повторной проверки подписи.
+     */
+    public Optional<UsernamePasswordAuthenticationToken> authenticate(String token) {
+        if (token == null || token.isBlank()) {
+            return Optional.empty();
+        }
+        VerifiedToken cached = verified.get(token);
+        Instant now = Instant.now();
+        if (cached != null && cached.expiresAt().isAfter(now)) {
+            return Optional.of(cached.toAuthentication(token));
+        }
+        VerifiedToken parsed;
+        try {
+            parsed = verify(token);
+        } catch (JwtException | IllegalArgumentException | ClassCastException | NullPointerException e) {
+            return Optional.empty();
+        }
+        if (cached != null) {
+            verified.remove(token, cached);
+        }
+        if (parsed.expiresAt().isAfter(now)) {
+            if (verified.size() >= cacheSize) {
+                evict(now);
+            }
+            verified.put(token, parsed);
+        }
+        return Optional.of(parsed.toAuthentication(token));
+    }
+
+    private VerifiedToken verify(String token) {
+        Claims claims = parser.parseClaimsJws(token).getBody();
         Long userId = claims.get("uid", Integer.class).longValue();
         @SuppressWarnings("unchecked")
-        Set<com.pethaven.model.enums.SystemRole> roles = ((java.util.List<String>) claims.get("roles")).stream()
+        List<GrantedAuthority> authorities = ((List<String>) claims.get("roles")).stream()
                 .map(com.pethaven.model.enums.SystemRole::valueOf)
-                .collect(Collectors.toSet());
-        var authorities = roles.stream()
-                .map(r -> new SimpleGrantedAuthority("ROLE_" + r.name().toUpperCase()))
-                .collect(Collectors.toList());
-        return new UsernamePasswordAuthenticationToken(userId, token, authorities);
+                .distinct()
+                .map(r -> (GrantedAuthority) new SimpleGrantedAuthority("ROLE_" + r.name().toUpperCase()))
+                .collect(Collectors.toUnmodifiableList());
+        Date expiration = claims.getExpiration();
+        Instant expiresAt = expiration != null ? expiration.toInstant() : Instant.now().plusSeconds(ttlSeconds);
+        return new VerifiedToken(userId, authorities, expiresAt);
     }
 
-    public boolean isValid(String token) {
-        try {
-            parseClaims(token);
-            return true;
-        } catch (Exception e) {
-            return false;
+    /**
+     * Удаляет истекшие токены; если кэш все еще полон, освобождает десятую часть мест,
+     * чтобы следующие вставки не сканировали его заново.
+     */
+    private void evict(Instant now) {
+        verified.values().removeIf(entry -> !entry.expiresAt().isAfter(now));
+        if (verified.size() < cacheSize) {
+            return;
+        }
+        int excess = verified.size() - cacheSize + Math.max(1, cacheSize / 10);
+        Iterator<String> keys = verified.keySet().iterator();
+        while (excess-- > 0 && keys.hasNext()) {
+            keys.next();
+            keys.remove();
         }
     }
 
-    private Claims parseClaims(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(signingKey)
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
+    private record VerifiedToken(Long userId, List<GrantedAuthority> authorities, Instant expiresAt) {
+        UsernamePasswordAuthenticationToken toAuthentication(String token) {
+            return new UsernamePasswordAuthenticationToken(userId, token, authorities);
+        }
     }
 }
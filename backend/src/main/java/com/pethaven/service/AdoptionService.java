@@ -2,8 +2,11 @@ package com.pethaven.service;
 
 import com.pethaven.dto.AdoptionDecisionRequest;
 import com.pethaven.dto.AgreementConfirmRequest;
+import com.pethaven.dto.AgreementPageResponse;
 import com.pethaven.dto.AgreementRequest;
 import com.pethaven.dto.AgreementResponse;
+import com.pethaven.dto.ApplicationQueueItemResponse;
+import com.pethaven.dto.ApplicationQueuePageResponse;
 import com.pethaven.dto.ApplicationRequest;
 import com.pethaven.dto.InterviewRescheduleRequest;
 import com.pethaven.dto.InterviewSlotBookRequest;
@@ -14,34 +17,46 @@ import com.pethaven.entity.AdoptionApplicationEntity;
 import com.pethaven.entity.AgreementEntity;
 import com.pethaven.entity.AnimalEntity;
 import com.pethaven.entity.InterviewEntity;
+import com.pethaven.entity.PersonEntity;
+import com.pethaven.model.enums.AgreementDocumentStatus;
 import com.pethaven.model.enums.ReportStatus;
 import com.pethaven.model.enums.ApplicationStatus;
 import com.pethaven.model.enums.InterviewStatus;
 import com.pethaven.model.enums.SystemRole;
 import com.pethaven.repository.AdoptionApplicationRepository;
+import com.pethaven.repository.AgreementListProjection;
+import com.pethaven.repository.ApplicationQueueProjection;
 import com.pethaven.repository.AgreementRepository;
 import com.pethaven.repository.AnimalRepository;
 import com.pethaven.repository.InterviewRepository;
 import com.pethaven.repository.InterviewSlotRepository;
 import com.pethaven.repository.PersonRepository;
 import com.pethaven.service.ObjectStorageService.StorageFile;
-import org.springframework.core.io.ClassPathResource;
+import com.pethaven.support.CursorCodec;
+import org.hibernate.exception.ConstraintViolationException;
 import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.multipart.MultipartFile;
 
-import java.io.ByteArrayOutputStream;
-import java.io.IOException;
-import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeParseException;
 import java.util.List;
 import java.util.Optional;
-import java.util.zip.ZipEntry;
-import java.util.zip.ZipOutputStream;
 
 @Service
 public class AdoptionService {
 
+    private static final int AGREEMENTS_PAGE_DEFAULT = 20;
+    private static final int AGREEMENTS_PAGE_MAX = 100;
+    private static final int QUEUE_PAGE_DEFAULT = 25;
+    private static final int QUEUE_PAGE_MAX = 100;
+    // имя по умолчанию для UNIQUE (application_id) из V1
+    private static final String AGREEMENT_APPLICATION_UNIQUE = "agreement_application_id_key";
+
     private final AdoptionApplicationRepository adoptionRepository;
     private final InterviewRepository interviewRepository;
     private final AgreementRepository agreementRepository;
@@ -52,6 +67,7 @@ public class AdoptionService {
     private final ObjectStorageService storageService;
     private final PostAdoptionReportService postAdoptionReportService;
     private final SettingService settingService;
+    private final AgreementDocumentService agreementDocumentService;
 
     public AdoptionService(AdoptionApplicationRepository adoptionRepository,
                            InterviewRepository interviewRepository,
@@ -62,7 +78,8 @@ public class AdoptionService {
                            PersonRepository personRepository,
                            ObjectStorageService storageService,
                            PostAdoptionReportService postAdoptionReportService,
-                           SettingService settingService) {
+                           SettingService settingService,
+                           AgreementDocumentService agreementDocumentService) {
         this.adoptionRepository = adoptionRepository;
         this.interviewRepository = interviewRepository;
         this.agreementRepository = agreementRepository;
@@ -73,6 +90,7 @@ public class AdoptionService {
         this.storageService = storageService;
         this.postAdoptionReportService = postAdoptionReportService;
         this.settingService = settingService;
+        this.agreementDocumentService = agreementDocumentService;
     }
 
     @Transactional
@@ -132,13 +150,9 @@ public class AdoptionService {
 
     public List<AdoptionApplicationEntity> getApplications(ApplicationStatus status, Long candidateId) {
         if (candidateId != null) {
-            List<AdoptionApplicationEntity> candidateApps = adoptionRepository.findByCandidateId(candidateId);
-            if (status != null) {
-                candidateApps = candidateApps.stream()
-                        .filter(a -> a.getStatus() == status)
-                        .toList();
-            }
-            return candidateApps;
+            return status != null
+                    ? adoptionRepository.findByCandidateIdAndStatus(candidateId, status)
+                    : adoptionRepository.findByCandidateId(candidateId);
         }
         if (status != null) {
             return adoptionRepository.findByStatus(status);
@@ -146,6 +160,66 @@ public class AdoptionService {
         return adoptionRepository.findAll();
     }
 
+    /**
+     * Страница очереди заявок с фильтрами; курсор — (created_at, application_id) последней строки,
+     * его направление задается {@code oldestFirst}.
+     */
+    @Transactional(readOnly = true)
+    public ApplicationQueuePageResponse getApplicationQueue(ApplicationStatus status,
+                                                            Long animalId,
+                                                            Long candidateId,
+                                                            OffsetDateTime createdFrom,
+                                                            OffsetDateTime createdTo,
+                                                            boolean oldestFirst,
+                                                            String cursor,
+                                                            Integer limit) {
+        int pageSize = limit == null ? QUEUE_PAGE_DEFAULT : Math.max(1, Math.min(limit, QUEUE_PAGE_MAX));
+        String cursorCreatedAt = null;
+        Long cursorId = null;
+        if (cursor != null && !cursor.isBlank()) {
+            String[] parts = CursorCodec.decode(cursor, 2);
+            try {
+                cursorCreatedAt = Instant.parse(parts[0]).toString();
+                cursorId = Long.parseLong(parts[1]);
+            } catch (DateTimeParseException | NumberFormatException e) {
+                throw new IllegalArgumentException("Некорректный курсор", e);
+            }
+        }
+        String statusName = status != null ? status.name() : null;
+        String from = createdFrom != null ? createdFrom.toInstant().toString() : null;
+        String to = createdTo != null ? createdTo.toInstant().toString() : null;
+        List<ApplicationQueueProjection> rows = oldestFirst
+                ? adoptionRepository.findQueueOldestFirst(statusName, animalId, candidateId, from, to, cursorCreatedAt, cursorId, pageSize + 1)
+                : adoptionRepository.findQueueNewestFirst(statusName, animalId, candidateId, from, to, cursorCreatedAt, cursorId, pageSize + 1);
+        boolean hasNext = rows.size() > pageSize;
+        if (hasNext) {
+            rows = rows.subList(0, pageSize);
+        }
+        String nextCursor = null;
+        if (hasNext) {
+            ApplicationQueueProjection last = rows.get(rows.size() - 1);
+            nextCursor = CursorCodec.encode(last.getCreatedAt().toString(), last.getId());
+        }
+        List<ApplicationQueueItemResponse> items = rows.stream()
+                .map(row -> new ApplicationQueueItemResponse(
+                        row.getId(),
+                        ApplicationStatus.valueOf(row.getStatus()),
+                        toOffsetDateTime(row.getCreatedAt()),
+                        row.getAnimalId(),
+                        row.getAnimalName(),
+                        row.getAnimalSpecies(),
+                        row.getCandidateId(),
+                        row.getCandidateFirstName(),
+                        row.getCandidateLastName(),
+                        row.getCandidateEmail(),
+                        row.getProcessedBy(),
+                        Boolean.TRUE.equals(row.getHasPassport())
+                                ? "/api/v1/adoptions/applications/" + row.getId() + "/passport"
+                                : null))
+                .toList();
+        return new ApplicationQueuePageResponse(items, nextCursor);
+    }
+
     public Optional<AdoptionApplicationEntity> getApplication(Long id) {
         return adoptionRepository.findById(id);
     }
@@ -347,58 +421,91 @@ public class AdoptionService {
         }
     }
 
+    /**
+     * Договоры с именами кандидата, животного и координатора одним запросом;
+     * {@code candidateId = null} — все договоры.
+     */
+    @Transactional(readOnly = true)
+    public List<AgreementResponse> getAgreements(Long candidateId) {
+        return agreementRepository.findListPage(candidateId, null, null).stream()
+                .map(this::toAgreementResponse)
+                .toList();
+    }
+
+    @Transactional(readOnly = true)
+    public AgreementPageResponse getAgreementsPage(Long candidateId, String cursor, Integer limit) {
+        int pageSize = limit == null ? AGREEMENTS_PAGE_DEFAULT : Math.max(1, Math.min(limit, AGREEMENTS_PAGE_MAX));
+        Long cursorId = null;
+        if (cursor != null && !cursor.isBlank()) {
+            try {
+                cursorId = Long.parseLong(CursorCodec.decode(cursor, 1)[0]);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Некорректный курсор", e);
+            }
+        }
+        List<AgreementListProjection> rows = agreementRepository.findListPage(candidateId, cursorId, pageSize + 1);
+        boolean hasNext = rows.size() > pageSize;
+        if (hasNext) {
+            rows = rows.subList(0, pageSize);
+        }
+        String nextCursor = hasNext ? CursorCodec.encode(rows.get(rows.size() - 1).getId()) : null;
+        return new AgreementPageResponse(rows.stream().map(this::toAgreementResponse).toList(), nextCursor);
+    }
+
+    /**
+     * Договор по заявке; {@code candidateId} ограничивает поиск заявками кандидата.
+     */
     @Transactional(readOnly = true)
-    public List<AgreementEntity> getAgreements() {
-        return agreementRepository.findAll();
+    public Optional<AgreementResponse> getAgreementByApplication(Long applicationId, Long candidateId) {
+        return agreementRepository.findListRowByApplicationId(applicationId, candidateId)
+                .map(this::toAgreementResponse);
     }
 
     public AgreementResponse enrichAgreement(AgreementResponse base) {
         if (base == null) {
             return null;
         }
-        Long coordinatorId = null;
-        String firstName = null;
-        String lastName = null;
-        String phone = null;
-        String avatar = null;
-
-        var appOpt = adoptionRepository.findById(base.applicationId());
-        if (appOpt.isPresent() && appOpt.get().getProcessedBy() != null) {
-            Long processorId = appOpt.get().getProcessedBy();
-            coordinatorId = processorId;
-            var coordinatorOpt = personRepository.findById(processorId);
-            if (coordinatorOpt.isPresent()) {
-                var person = coordinatorOpt.get();
-                firstName = person.getFirstName();
-                lastName = person.getLastName();
-                phone = person.getPhoneNumber();
-                avatar = person.avatarUrlPublic();
-            }
-        }
+        return agreementRepository.findListRow(base.id())
+                .map(this::toAgreementResponse)
+                .orElse(base);
+    }
 
+    private AgreementResponse toAgreementResponse(AgreementListProjection row) {
         return new AgreementResponse(
-                base.id(),
-                base.applicationId(),
-                base.postAdoptionPlan(),
-                base.templateUrl(),
-                base.signedUrl(),
-                base.generatedAt(),
-                base.signedAt(),
-                base.confirmedAt(),
-                base.confirmedBy(),
-                coordinatorId,
-                firstName,
-                lastName,
-                phone,
-                avatar
+                row.getId(),
+                row.getApplicationId(),
+                row.getPostAdoptionPlan(),
+                row.getTemplateStorageKey() != null ? "/api/v1/adoptions/agreements/" + row.getId() + "/template" : null,
+                row.getSignedStorageKey() != null ? "/api/v1/adoptions/agreements/" + row.getId() + "/signed" : null,
+                toOffsetDateTime(row.getGeneratedAt()),
+                toOffsetDateTime(row.getSignedAt()),
+                toOffsetDateTime(row.getConfirmedAt()),
+                row.getConfirmedBy(),
+                row.getCoordinatorId(),
+                row.getCoordinatorFirstName(),
+                row.getCoordinatorLastName(),
+                row.getCoordinatorPhone(),
+                PersonEntity.avatarUrlPublic(row.getCoordinatorId(), row.getCoordinatorAvatarUrl(), row.getCoordinatorAvatarKey()),
+                row.getCandidateId(),
+                row.getCandidateFirstName(),
+                row.getCandidateLastName(),
+                row.getAnimalId(),
+                row.getAnimalName(),
+                row.getDocumentStatus() != null ? AgreementDocumentStatus.valueOf(row.getDocumentStatus()) : null
         );
     }
 
-    public List<AgreementResponse> enrichAgreements(List<AgreementResponse> responses) {
-        if (responses == null) {
-            return List.of();
+    private static boolean violates(DataIntegrityViolationException e, String constraintName) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof ConstraintViolationException violation) {
+                return constraintName.equalsIgnoreCase(violation.getConstraintName());
+            }
         }
-        return responses.stream().map(this::enrichAgreement).toList();
+        return false;
+    }
+
+    private static OffsetDateTime toOffsetDateTime(Instant instant) {
+        return instant != null ? OffsetDateTime.ofInstant(instant, ZoneId.systemDefault()) : null;
     }
 
     @Transactional
@@ -430,7 +537,7 @@ public class AdoptionService {
         if (app.getPassportKey() == null) {
             throw new IllegalStateException("Не загружен паспорт кандидата");
         }
-        if (agreementRepository.findAll().stream().anyMatch(a -> a.getApplicationId().equals(request.applicationId()))) {
+        if (agreementRepository.existsByApplicationId(request.applicationId())) {
             throw new IllegalStateException("Договор по этой заявке уже создан");
         }
         AnimalEntity animal = animalRepository.findById(app.getAnimalId())
@@ -442,19 +549,18 @@ public class AdoptionService {
         agreement.setApplicationId(request.applicationId());
         agreement.setPostAdoptionPlan(request.postAdoptionPlan());
         agreement.setGeneratedAt(java.time.OffsetDateTime.now());
-        agreementRepository.saveAndFlush(agreement);
-        byte[] template = generatePlaceholderDocx(app, animal);
-        String key = storageService.uploadAgreementTemplate(agreement.getId(), template);
-        agreement.setTemplateStorageKey(key);
-        agreementRepository.save(agreement);
-        personRepository.findById(app.getCandidateId()).ifPresent(candidate ->
-                notificationService.push(
-                        candidate.getId(),
-                        com.pethaven.model.enums.NotificationType.new_application,
-                        "Договор готов к подписи",
-                        "Для заявки №" + app.getId() + " сформирован договор, подпишите его"
-                )
-        );
+        agreement.setDocumentStatus(AgreementDocumentStatus.generating);
+        try {
+            agreementRepository.saveAndFlush(agreement);
+        } catch (DataIntegrityViolationException e) {
+            // параллельное создание: уникальность application_id проверяет БД; прочие нарушения не маскируем
+            if (violates(e, AGREEMENT_APPLICATION_UNIQUE)) {
+                throw new IllegalStateException("Договор по этой заявке уже создан");
+            }
+            throw e;
+        }
+        // документ формируется в фоне после коммита; кандидат получит уведомление, когда он будет готов
+        agreementDocumentService.schedule(agreement.getId());
         return agreement;
     }
 
@@ -471,13 +577,12 @@ public class AdoptionService {
         agreement.setSignedStorageKey(key);
         agreement.setSignedAt(java.time.OffsetDateTime.now());
         agreementRepository.saveAndFlush(agreement);
-        personRepository.findActiveByRole(SystemRole.coordinator.name())
-                .forEach(p -> notificationService.push(
-                        p.getId(),
-                        com.pethaven.model.enums.NotificationType.new_application,
-                        "Кандидат загрузил договор",
-                        "Подписанный договор по заявке №" + app.getId() + " загружен кандидатом"
-                ));
+        notificationService.pushToRole(
+                SystemRole.coordinator,
+                com.pethaven.model.enums.NotificationType.new_application,
+                "Кандидат загрузил договор",
+                "Подписанный договор по заявке №" + app.getId() + " загружен кандидатом"
+        );
         return agreement;
     }
 
@@ -523,11 +628,27 @@ public class AdoptionService {
         return agreement;
     }
 
+    /**
+     * Возвращает договор с неудавшимся формированием документа в очередь обработчика.
+     */
+    public void retryAgreementDocument(Long agreementId) {
+        if (!agreementRepository.existsById(agreementId)) {
+            throw new IllegalArgumentException("Договор не найден");
+        }
+        if (agreementRepository.resetFailedDocument(agreementId) == 0) {
+            throw new IllegalStateException("Документ договора уже сформирован или формируется");
+        }
+        agreementDocumentService.schedule(agreementId);
+    }
+
     @Transactional(readOnly = true)
     public StorageFile downloadAgreementFile(Long agreementId, boolean signed) {
         AgreementEntity agreement = agreementRepository.findById(agreementId)
                 .orElseThrow(() -> new IllegalArgumentException("Договор не найден"));
         String key = signed ? agreement.getSignedStorageKey() : agreement.getTemplateStorageKey();
+        if (!signed && agreement.getDocumentStatus() == AgreementDocumentStatus.failed) {
+            throw new IllegalStateException("Не удалось сформировать шаблон договора");
+        }
         if (key == null || key.isBlank()) {
             throw new IllegalStateException(signed ? "Подписанный договор отсутствует" : "Шаблон договора ещё не сформирован");
         }
@@ -556,42 +677,14 @@ public class AdoptionService {
     }
 
     private void notifyCoordinators(String title, String message) {
-        personRepository.findActiveByRole(SystemRole.coordinator.name()).forEach(p -> notificationService.push(
-                p.getId(),
+        notificationService.pushToRole(
+                SystemRole.coordinator,
                 com.pethaven.model.enums.NotificationType.new_application,
                 title,
                 message
-        ));
-    }
-
-    private byte[] generatePlaceholderDocx(AdoptionApplicationEntity app, AnimalEntity animal) {
-        try {
-            ByteArrayOutputStream bos = new ByteArrayOutputStream();
-            try (ZipOutputStream zip = new ZipOutputStream(bos)) {
-                addEntry(zip, "[Content_Types].xml", loadTemplate("templates/agreement-docx/[Content_Types].xml"));
-                addEntry(zip, "_rels/.rels", loadTemplate("templates/agreement-docx/_rels/.rels"));
-                String doc = loadTemplate("templates/agreement-docx/word/document.xml")
-                        .replace("{{PET_NAME}}", animal.getName() == null ? "pet" : animal.getName());
-                addEntry(zip, "word/document.xml", doc);
-            }
-            return bos.toByteArray();
-        } catch (IOException e) {
-            throw new IllegalStateException("Не удалось сгенерировать шаблон договора", e);
-        }
-    }
-
-    private String loadTemplate(String path) throws IOException {
-        ClassPathResource resource = new ClassPathResource(path);
-        try (var is = resource.getInputStream()) {
-            return new String(is.readAllBytes(), StandardCharsets.UTF_8);
-        }
+        );
     }
 
-    private void addEntry(ZipOutputStream zip, String path, String content) throws IOException {
-        zip.putNextEntry(new ZipEntry(path));
-        zip.write(content.getBytes(StandardCharsets.UTF_8));
-        zip.closeEntry();
-    }
 
     private String normalizeDbMessage(DataAccessException ex) {
         Throwable cause = ex.getMostSpecificCause();
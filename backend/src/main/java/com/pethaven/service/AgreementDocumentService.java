@@ -0,0 +1,167 @@
+package com.pethaven.service;
+
+import com.pethaven.config.AgreementProperties;
+import com.pethaven.model.enums.NotificationType;
+import com.pethaven.model.enums.SystemRole;
+import com.pethaven.repository.AgreementDocumentProjection;
+import com.pethaven.repository.AgreementRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.util.UUID;
+
+/**
+ * Фоновое формирование документа договора. Договор создается в состоянии generating, обработчик
+ * вне транзакции запроса рендерит DOCX, загружает его в хранилище и переводит договор в ready.
+ * Неудачные попытки повторяются с экспоненциальной паузой; после {@code max-attempts} договор
+ * переходит в failed. Очередь — сама таблица agreement, поэтому задачи переживают перезапуск.
+ */
+@Service
+public class AgreementDocumentService {
+
+    private static final Logger log = LoggerFactory.getLogger(AgreementDocumentService.class);
+    private static final int MAX_ERROR_LENGTH = 500;
+
+    private final AgreementRepository agreementRepository;
+    private final ObjectStorageService storageService;
+    private final AgreementTemplateEngine templateEngine;
+    private final NotificationService notificationService;
+    private final AgreementProperties.Document config;
+    private final TaskExecutor executor;
+
+    public AgreementDocumentService(AgreementRepository agreementRepository,
+                                    ObjectStorageService storageService,
+                                    AgreementTemplateEngine templateEngine,
+                                    NotificationService notificationService,
+                                    AgreementProperties properties,
+                                    @Qualifier("agreementDocumentExecutor") TaskExecutor executor) {
+        this.agreementRepository = agreementRepository;
+        this.storageService = storageService;
+        this.templateEngine = templateEngine;
+        this.notificationService = notificationService;
+        this.config = properties.getDocument();
+        this.executor = executor;
+    }
+
+    /**
+     * Ставит формирование в пул после коммита транзакции, создавшей договор.
+     */
+    public void schedule(Long agreementId) {
+        Runnable task = () -> submit(agreementId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    task.run();
+                }
+            });
+        } else {
+            task.run();
+        }
+    }
+
+    /**
+     * Подбирает договоры, не попавшие в пул (переполнение, перезапуск) или ждущие повтора.
+     */
+    @Scheduled(fixedDelayString = "${agreements.document.sweep-interval:30s}")
+    public void sweep() {
+        for (Long agreementId : agreementRepository.findDueDocumentIds(config.getSweepBatchSize())) {
+            if (!submit(agreementId)) {
+                break;
+            }
+        }
+    }
+
+    private boolean submit(Long agreementId) {
+        try {
+            executor.execute(() -> generate(agreementId));
+            return true;
+        } catch (TaskRejectedException e) {
+            log.warn("Agreement document queue is full, agreement {} left for the next sweep", agreementId);
+            return false;
+        }
+    }
+
+    private void generate(Long agreementId) {
+        String leaseToken = UUID.randomUUID().toString();
+        if (agreementRepository.claimDocument(agreementId, leaseToken, config.getLease().toSeconds()) == 0) {
+            return;
+        }
+        AgreementDocumentProjection source = agreementRepository.findDocumentSource(agreementId).orElse(null);
+        if (source == null) {
+            return;
+        }
+        try {
+            AgreementTemplateEngine.AgreementData data = new AgreementTemplateEngine.AgreementData(
+                    source.getId(),
+                    source.getApplicationId(),
+                    source.getAnimalName(),
+                    source.getAnimalSpecies(),
+                    fullName(source.getCandidateFirstName(), source.getCandidateLastName()),
+                    source.getCandidateEmail(),
+                    source.getGeneratedAt() != null
+                            ? LocalDate.ofInstant(source.getGeneratedAt(), ZoneId.systemDefault())
+                            : LocalDate.now(),
+                    source.getPostAdoptionPlan());
+            String key = storageService.uploadAgreementTemplate(agreementId, templateEngine.sizeHint(),
+                    out -> templateEngine.render(data, out));
+            // договоры, переведенные в generating миграцией, формируются без уведомления кандидату
+            if (agreementRepository.markDocumentReady(agreementId, leaseToken, key) > 0
+                    && Boolean.TRUE.equals(source.getDocumentNotify())) {
+                notificationService.push(
+                        source.getCandidateId(),
+                        NotificationType.new_application,
+                        "Договор готов к подписи",
+                        "Для заявки №" + source.getApplicationId() + " сформирован договор, подпишите его"
+                );
+            }
+        } catch (RuntimeException e) {
+            recordFailure(source, leaseToken, e);
+        }
+    }
+
+    private void recordFailure(AgreementDocumentProjection source, String leaseToken, RuntimeException error) {
+        int attempt = source.getDocumentAttempts() != null ? source.getDocumentAttempts() : 1;
+        boolean failed = attempt >= config.getMaxAttempts();
+        String message = error.getMessage() != null ? error.getMessage() : error.getClass().getSimpleName();
+        if (message.length() > MAX_ERROR_LENGTH) {
+            message = message.substring(0, MAX_ERROR_LENGTH);
+        }
+        String nextAttemptAt = failed ? null : OffsetDateTime.now().plus(backoff(attempt)).toInstant().toString();
+        if (agreementRepository.markDocumentAttemptFailed(source.getId(), leaseToken, message, nextAttemptAt, failed) == 0) {
+            log.warn("Agreement {} document attempt {} failed after its lease expired: {}", source.getId(), attempt, message);
+            return;
+        }
+        if (failed) {
+            log.error("Agreement {} document generation failed after {} attempts", source.getId(), attempt, error);
+            notificationService.pushToRole(
+                    SystemRole.coordinator,
+                    NotificationType.new_application,
+                    "Договор не сформирован",
+                    "Не удалось сформировать документ договора №" + source.getId() + ", перезапустите формирование"
+            );
+        } else {
+            log.warn("Agreement {} document attempt {} failed, retry at {}: {}", source.getId(), attempt, nextAttemptAt, message);
+        }
+    }
+
+    private Duration backoff(int attempt) {
+        Duration delay = config.getInitialBackoff().multipliedBy(1L << Math.min(attempt - 1, 20));
+        return delay.compareTo(config.getMaxBackoff()) > 0 ? config.getMaxBackoff() : delay;
+    }
+
+    private static String fullName(String first, String last) {
+        return ((first != null ? first : "") + " " + (last != null ? last : "")).trim();
+    }
+}
@@ -0,0 +1,196 @@
+package com.pethaven.service;
+
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Шаблон DOCX договора, подготовленный один раз при старте: служебные части архива лежат готовыми
+ * STORED-записями с заранее посчитанным CRC, а {@code word/document.xml} разбит на байтовые фрагменты
+ * и плейсхолдеры {@code {{NAME}}}. Генерация только склеивает фрагменты и пишет архив в переданный поток.
+ */
+@Component
+public class AgreementTemplateEngine {
+
+    public static final String CONTENT_TYPE = "application/vnd.openxmlformats-officedocument.wordprocessingml.document";
+
+    private static final String TEMPLATE_ROOT = "templates/agreement-docx/";
+    private static final String DOCUMENT_ENTRY = "word/document.xml";
+    private static final List<String> STATIC_ENTRIES = List.of("[Content_Types].xml", "_rels/.rels");
+    private static final Pattern PLACEHOLDER = Pattern.compile("\\{\\{([A-Z_]+)}}");
+    private static final byte[] EMPTY = new byte[0];
+    private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("dd.MM.yyyy");
+
+    private static final Map<String, Function<AgreementData, String>> RESOLVERS = Map.of(
+            "AGREEMENT_ID", data -> String.valueOf(data.agreementId()),
+            "APPLICATION_ID", data -> String.valueOf(data.applicationId()),
+            "PET_NAME", data -> data.petName() == null ? "pet" : data.petName(),
+            "PET_SPECIES", AgreementData::petSpecies,
+            "CANDIDATE_NAME", AgreementData::candidateName,
+            "CANDIDATE_EMAIL", AgreementData::candidateEmail,
+            "AGREEMENT_DATE", data -> data.date() == null ? null : DATE_FORMAT.format(data.date()),
+            "POST_ADOPTION_PLAN", AgreementData::postAdoptionPlan
+    );
+
+    private final List<StaticEntry> staticEntries;
+    private final List<Segment> documentSegments;
+    private final int documentSizeHint;
+
+    public AgreementTemplateEngine() {
+        try {
+            List<StaticEntry> entries = new ArrayList<>();
+            for (String name : STATIC_ENTRIES) {
+                entries.add(StaticEntry.of(name, load(name)));
+            }
+            byte[] document = load(DOCUMENT_ENTRY);
+            this.staticEntries = List.copyOf(entries);
+            this.documentSegments = split(new String(document, StandardCharsets.UTF_8));
+            this.documentSizeHint = document.length;
+        } catch (IOException e) {
+            throw new IllegalStateException("Не удалось загрузить шаблон договора", e);
+        }
+    }
+
+    /**
+     * Ориентировочный размер готового архива — для начальной емкости буфера загрузки.
+     */
+    public int sizeHint() {
+        int size = documentSizeHint + 512;
+        for (StaticEntry entry : staticEntries) {
+            size += entry.content().length + 128;
+        }
+        return size;
+    }
+
+    /**
+     * Пишет готовый DOCX в {@code out}; поток не закрывается.
+     */
+    public void render(AgreementData data, OutputStream out) throws IOException {
+        ZipOutputStream zip = new ZipOutputStream(out);
+        for (StaticEntry entry : staticEntries) {
+            zip.putNextEntry(entry.newZipEntry());
+            zip.write(entry.content());
+            zip.closeEntry();
+        }
+        zip.putNextEntry(new ZipEntry(DOCUMENT_ENTRY));
+        for (Segment segment : documentSegments) {
+            zip.write(segment.render(data));
+        }
+        zip.closeEntry();
+        zip.finish();
+    }
+
+    private static byte[] load(String name) throws IOException {
+        try (InputStream is = new ClassPathResource(TEMPLATE_ROOT + name).getInputStream()) {
+            return is.readAllBytes();
+        }
+    }
+
+    private static List<Segment> split(String template) {
+        List<Segment> segments = new ArrayList<>();
+        Matcher matcher = PLACEHOLDER.matcher(template);
+        int position = 0;
+        while (matcher.find()) {
+            if (matcher.start() > position) {
+                segments.add(new Literal(template.substring(position, matcher.start()).getBytes(StandardCharsets.UTF_8)));
+            }
+            Function<AgreementData, String> resolver = RESOLVERS.get(matcher.group(1));
+            if (resolver == null) {
+                throw new IllegalStateException("Неизвестный плейсхолдер в шаблоне договора: " + matcher.group());
+            }
+            segments.add(new Placeholder(resolver));
+            position = matcher.end();
+        }
+        if (position < template.length()) {
+            segments.add(new Literal(template.substring(position).getBytes(StandardCharsets.UTF_8)));
+        }
+        return List.copyOf(segments);
+    }
+
+    private static String escapeXml(String value) {
+        StringBuilder sb = null;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            String replacement = switch (c) {
+                case '&' -> "&amp;";
+                case '<' -> "&lt;";
+                case '>' -> "&gt;";
+                case '"' -> "&quot;";
+                case '\'' -> "&apos;";
+                default -> null;
+            };
+            if (replacement != null && sb == null) {
+                sb = new StringBuilder(value.length() + 16).append(value, 0, i);
+            }
+            if (sb != null) {
+                if (replacement != null) {
+                    sb.append(replacement);
+                } else {
+                    sb.append(c);
+                }
+            }
+        }
+        return sb != null ? sb.toString() : value;
+    }
+
+    public record AgreementData(Long agreementId,
+                                Long applicationId,
+                                String petName,
+                                String petSpecies,
+                                String candidateName,
+                                String candidateEmail,
+                                LocalDate date,
+                                String postAdoptionPlan) {
+    }
+
+    private sealed interface Segment permits Literal, Placeholder {
+        byte[] render(AgreementData data);
+    }
+
+    private record Literal(byte[] bytes) implements Segment {
+        @Override
+        public byte[] render(AgreementData data) {
+            return bytes;
+        }
+    }
+
+    private record Placeholder(Function<AgreementData, String> resolver) implements Segment {
+        @Override
+        public byte[] render(AgreementData data) {
+            String value = resolver.apply(data);
+            return value == null ? EMPTY : escapeXml(value).getBytes(StandardCharsets.UTF_8);
+        }
+    }
+
+    private record StaticEntry(String name, byte[] content, long crc) {
+        static StaticEntry of(String name, byte[] content) {
+            CRC32 crc = new CRC32();
+            crc.update(content);
+            return new StaticEntry(name, content, crc.getValue());
+        }
+
+        ZipEntry newZipEntry() {
+            ZipEntry entry = new ZipEntry(name);
+            entry.setMethod(ZipEntry.STORED);
+            entry.setSize(content.length);
+            entry.setCompressedSize(content.length);
+            entry.setCrc(crc);
+            return entry;
+        }
+    }
+}
@@ -1,35 +1,53 @@
 package com.pethaven.service;
 
+import com.pethaven.dto.AnimalCatalogPageResponse;
 import com.pethaven.dto.AnimalCreateRequest;
 import com.pethaven.dto.AnimalMediaResponse;
 import com.pethaven.dto.AnimalMedicalUpdateRequest;
+import com.pethaven.dto.AnimalNotePageResponse;
 import com.pethaven.dto.AnimalNoteResponse;
 import com.pethaven.dto.AnimalResponse;
 import com.pethaven.dto.AnimalUpdateRequest;
+import com.pethaven.dto.MediaUploadCompleteRequest;
+import com.pethaven.dto.PresignedUploadRequest;
+import com.pethaven.dto.PresignedUrlResponse;
 import com.pethaven.entity.AnimalEntity;
 import com.pethaven.entity.AnimalMediaEntity;
-import com.pethaven.entity.AnimalNoteEntity;
 import com.pethaven.entity.PersonEntity;
 import com.pethaven.mapper.AnimalMapper;
 import com.pethaven.model.enums.AnimalStatus;
+import com.pethaven.repository.AnimalCatalogProjection;
+import com.pethaven.repository.AnimalMediaLinkProjection;
 import com.pethaven.repository.AnimalMediaRepository;
+import com.pethaven.repository.AnimalNoteProjection;
 import com.pethaven.repository.AnimalRepository;
 import com.pethaven.repository.AnimalNoteRepository;
 import com.pethaven.repository.PersonRepository;
+import com.pethaven.support.CursorCodec;
+import com.pethaven.support.MediaLinkSupport;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Optional;
 import java.util.NoSuchElementException;
 import java.util.Map;
-import java.util.Objects;
-import java.util.function.Function;
-import java.util.stream.Collectors;
 
 @Service
 public class AnimalService {
 
+    private static final int CATALOG_PAGE_DEFAULT = 24;
+    private static final int CATALOG_PAGE_MAX = 100;
+    private static final int NOTES_PAGE_DEFAULT = 20;
+    private static final int NOTES_PAGE_MAX = 100;
+
     private final AnimalRepository animalRepository;
     private final AnimalMediaRepository animalMediaRepository;
     private final AnimalNoteRepository animalNoteRepository;
@@ -38,6 +56,8 @@ public class AnimalService {
     private final PersonRepository personRepository;
     private final AnimalMapper animalMapper;
     private final SettingService settingService;
+    private final MediaVariantService mediaVariantService;
+    private final ObjectStorageService storageService;
 
     public AnimalService(AnimalRepository animalRepository,
                          AnimalMediaRepository animalMediaRepository,
@@ -46,7 +66,9 @@ public class AnimalService {
                          com.pethaven.repository.MedicalRecordRepository medicalRecordRepository,
                          PersonRepository personRepository,
                          AnimalMapper animalMapper,
-                         SettingService settingService) {
+                         SettingService settingService,
+                         MediaVariantService mediaVariantService,
+                         ObjectStorageService storageService) {
         this.animalRepository = animalRepository;
         this.animalMediaRepository = animalMediaRepository;
         this.animalNoteRepository = animalNoteRepository;
@@ -55,11 +77,13 @@ public class AnimalService {
         this.personRepository = personRepository;
         this.animalMapper = animalMapper;
         this.settingService = settingService;
+        this.mediaVariantService = mediaVariantService;
+        this.storageService = storageService;
     }
 
     public List<AnimalResponse> getCatalog(String species, AnimalStatus status, boolean includePending, boolean hideInternalFlags, boolean onlyAvailable) {
         List<AnimalEntity> animals = animalRepository.findCatalog(species, status == null ? null : status.name(), includePending);
-        List<AnimalResponse> responses = animalMapper.toResponses(animals);
+        List<AnimalResponse> responses = toResponses(animals);
         if (!includePending) {
             responses = responses.stream()
                     .filter(a -> a.pendingAdminReview() == null || !a.pendingAdminReview())
@@ -76,6 +100,91 @@ public class AnimalService {
         return responses;
     }
 
+    public AnimalCatalogPageResponse getCatalogPage(String species,
+                                                    AnimalStatus status,
+                                                    boolean includePending,
+                                                    boolean hideInternalFlags,
+                                                    boolean onlyAvailable,
+                                                    boolean excludeAdopted,
+                                                    String cursor,
+                                                    Integer limit) {
+        int pageSize = limit == null ? CATALOG_PAGE_DEFAULT : Math.max(1, Math.min(limit, CATALOG_PAGE_MAX));
+        String cursorStatus = null;
+        long cursorId = 0L;
+        if (cursor != null && !cursor.isBlank()) {
+            String[] parts = CursorCodec.decode(cursor, 2);
+            try {
+                cursorStatus = AnimalStatus.valueOf(parts[0]).name();
+                cursorId = Long.parseLong(parts[1]);
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Некорректный курсор", e);
+            }
+        }
+        List<AnimalCatalogProjection> rows = animalRepository.findCatalogPage(
+                species,
+                status == null ? null : status.name(),
+                includePending,
+                onlyAvailable,
+                excludeAdopted,
+                cursorStatus,
+                cursorId,
+                pageSize + 1);
+        boolean hasNext = rows.size() > pageSize;
+        if (hasNext) {
+            rows = rows.subList(0, pageSize);
+        }
+        Map<Long, List<String>> photos = loadPhotoUrls(rows.stream().map(AnimalCatalogProjection::getId).toList());
+        List<AnimalResponse> items = rows.stream()
+                .map(row -> toCatalogResponse(row, photos.getOrDefault(row.getId(), List.of()), hideInternalFlags))
+                .toList();
+        String nextCursor = null;
+        if (hasNext) {
+            AnimalCatalogProjection last = rows.get(rows.size() - 1);
+            nextCursor = CursorCodec.encode(last.getStatus(), last.getId());
+        }
+        return new AnimalCatalogPageResponse(items, nextCursor);
+    }
+
+    public AnimalResponse toResponse(AnimalEntity entity) {
+        return animalMapper.toResponse(entity, loadPhotoUrls(List.of(entity.getId())).getOrDefault(entity.getId(), List.of()));
+    }
+
+    public List<AnimalResponse> toResponses(List<AnimalEntity> entities) {
+        Map<Long, List<String>> photos = loadPhotoUrls(entities.stream().map(AnimalEntity::getId).toList());
+        return entities.stream()
+                .map(e -> animalMapper.toResponse(e, photos.getOrDefault(e.getId(), List.of())))
+                .toList();
+    }
+
+    private Map<Long, List<String>> loadPhotoUrls(Collection<Long> animalIds) {
+        if (animalIds.isEmpty()) {
+            return Map.of();
+        }
+        Map<Long, List<String>> result = new HashMap<>();
+        for (AnimalMediaLinkProjection link : animalMediaRepository.findLinksByAnimalIds(animalIds)) {
+            result.computeIfAbsent(link.getAnimalId(), k -> new ArrayList<>())
+                    .add(MediaLinkSupport.build("/animals/" + link.getId()));
+        }
+        return result;
+    }
+
+    private AnimalResponse toCatalogResponse(AnimalCatalogProjection row, List<String> photos, boolean hideInternalFlags) {
+        return new AnimalResponse(
+                row.getId(),
+                row.getName(),
+                row.getSpecies(),
+                row.getBreed(),
+                row.getAgeMonths(),
+                row.getGender(),
+                row.getDescription(),
+                row.getStatus() == null ? null : AnimalStatus.valueOf(row.getStatus()),
+                hideInternalFlags ? null : row.getPendingAdminReview(),
+                hideInternalFlags ? null : row.getAdminReviewComment(),
+                hideInternalFlags ? null : row.getReadyForAdoption(),
+                photos
+        );
+    }
+
     public List<String> getAvailableSpecies() {
         List<String> fromSettings = settingService.getList(com.pethaven.service.SettingService.SPECIES_LIST);
         if (fromSettings != null && !fromSettings.isEmpty()) {
@@ -85,7 +194,7 @@ public class AnimalService {
     }
 
     public Optional<AnimalResponse> getById(Long id) {
-        return animalRepository.findById(id).map(animalMapper::toResponse);
+        return animalRepository.findById(id).map(this::toResponse);
     }
 
     public Optional<AnimalEntity> getEntity(Long id) {
@@ -120,7 +229,7 @@ public class AnimalService {
         }
         AnimalEntity saved = animalRepository.save(animal);
         notifyAdminsPendingReview(saved);
-        return animalMapper.toResponse(saved);
+        return toResponse(saved);
     }
 
     @Transactional
@@ -139,7 +248,7 @@ public class AnimalService {
         if (Boolean.TRUE.equals(saved.getPendingAdminReview())) {
             notifyAdminsPendingReview(saved);
         }
-        return animalMapper.toResponse(saved);
+        return toResponse(saved);
     }
 
     public void updateStatus(Long animalId, AnimalStatus status, boolean allowPendingReview) {
@@ -167,7 +276,24 @@ public class AnimalService {
         entity.setAnimal(animal);
         entity.setStorageKey(storageKey);
         entity.setDescription(description);
-        return animalMapper.toMediaResponse(animalMediaRepository.save(entity));
+        AnimalMediaEntity saved = animalMediaRepository.save(entity);
+        mediaVariantService.scheduleAnimalMedia(saved.getId(), storageKey);
+        return animalMapper.toMediaResponse(saved);
+    }
+
+    public PresignedUrlResponse presignMediaUpload(Long animalId, PresignedUploadRequest request) {
+        if (!animalRepository.existsById(animalId)) {
+            throw new NoSuchElementException("Animal not found: " + animalId);
+        }
+        return storageService.presignUpload(storageService.animalMediaKey(animalId, request.fileName()), request.contentType());
+    }
+
+    public AnimalMediaResponse completeMediaUpload(Long animalId, MediaUploadCompleteRequest request) {
+        storageService.verifyUploaded(request.key(), storageService.animalMediaPrefix(animalId));
+        if (animalMediaRepository.existsByStorageKey(request.key())) {
+            throw new IllegalStateException("Файл уже привязан к карточке");
+        }
+        return addMedia(animalId, request.key(), request.description());
     }
 
     public AnimalNoteResponse addBehaviorNote(Long animalId, String note, Long authorId) {
@@ -176,13 +302,7 @@ public class AnimalService {
         }
         AnimalEntity animal = animalRepository.findById(animalId)
                 .orElseThrow(() -> new NoSuchElementException("Animal not found: " + animalId));
-        AnimalNoteEntity entity = new AnimalNoteEntity();
-        entity.setAnimalId(animal.getId());
-        entity.setAuthorId(authorId);
-        entity.setNote(note.trim());
-        AnimalNoteEntity saved = animalNoteRepository.save(entity);
-        PersonEntity author = authorId != null ? personRepository.findById(authorId).orElse(null) : null;
-        return toNoteResponse(saved, author);
+        return toNoteResponse(animalNoteRepository.insertWithAuthor(animal.getId(), authorId, note.trim()));
     }
 
     public AnimalResponse updateMedical(Long id, AnimalMedicalUpdateRequest payload) {
@@ -191,7 +311,7 @@ public class AnimalService {
         if (payload.readyForAdoption() != null) {
             existing.setReadyForAdoption(payload.readyForAdoption());
         }
-        return animalMapper.toResponse(animalRepository.save(existing));
+        return toResponse(animalRepository.save(existing));
     }
 
     public AnimalEntity reviewAnimal(Long id, boolean approved, String comment) {
@@ -207,33 +327,30 @@ public class AnimalService {
         }
         AnimalEntity saved = animalRepository.save(entity);
         if (approved) {
-            personRepository.findActiveByRole(com.pethaven.model.enums.SystemRole.coordinator.name())
-                    .forEach(coord -> notificationService.push(
-                            coord.getId(),
-                            com.pethaven.model.enums.NotificationType.new_application,
-                            "Карточка подтверждена",
-                            "Администратор утвердил карточку питомца #" + saved.getId()
-            ));
+            notificationService.pushToRole(
+                    com.pethaven.model.enums.SystemRole.coordinator,
+                    com.pethaven.model.enums.NotificationType.new_application,
+                    "Карточка подтверждена",
+                    "Администратор утвердил карточку питомца #" + saved.getId()
+            );
         } else {
-            personRepository.findActiveByRole(com.pethaven.model.enums.SystemRole.coordinator.name())
-                    .forEach(coord -> notificationService.push(
-                            coord.getId(),
-                            com.pethaven.model.enums.NotificationType.new_application,
-                            "Карточка отклонена",
-                            "Администратор отправил карточку питомца #" + saved.getId() + " на доработку"
-                    ));
+            notificationService.pushToRole(
+                    com.pethaven.model.enums.SystemRole.coordinator,
+                    com.pethaven.model.enums.NotificationType.new_application,
+                    "Карточка отклонена",
+                    "Администратор отправил карточку питомца #" + saved.getId() + " на доработку"
+            );
         }
         return saved;
     }
 
     private void notifyAdminsPendingReview(AnimalEntity animal) {
-        personRepository.findActiveByRole(com.pethaven.model.enums.SystemRole.admin.name())
-                .forEach(admin -> notificationService.push(
-                        admin.getId(),
-                        com.pethaven.model.enums.NotificationType.new_application,
-                        "Карточка на проверке",
-                        "Новая карточка питомца #" + animal.getId() + " ожидает проверки"
-                ));
+        notificationService.pushToRole(
+                com.pethaven.model.enums.SystemRole.admin,
+                com.pethaven.model.enums.NotificationType.new_application,
+                "Карточка на проверке",
+                "Новая карточка питомца #" + animal.getId() + " ожидает проверки"
+        );
     }
 
     public List<AnimalMediaResponse> getMedia(Long animalId) {
@@ -246,39 +363,64 @@ public class AnimalService {
         if (media.isEmpty()) {
             return List.of();
         }
-        List<String> keys = media.stream()
-                .map(AnimalMediaEntity::getStorageKey)
-                .filter(Objects::nonNull)
-                .toList();
+        List<String> keys = new ArrayList<>();
+        for (AnimalMediaEntity item : media) {
+            if (item.getStorageKey() == null) {
+                continue;
+            }
+            keys.add(item.getStorageKey());
+            if (item.getVariantWidths() != null) {
+                for (Integer width : item.getVariantWidths()) {
+                    keys.add(MediaVariantService.variantKey(item.getStorageKey(), width));
+                }
+            }
+        }
         animalMediaRepository.deleteAll(media);
         return keys;
     }
 
     public List<AnimalNoteResponse> getNotes(Long animalId) {
-        List<AnimalNoteEntity> entities = animalNoteRepository.findByAnimalIdOrderByCreatedAtDesc(animalId);
-        Map<Long, PersonEntity> authors = entities.stream()
-                .map(AnimalNoteEntity::getAuthorId)
-                .filter(id -> id != null)
-                .distinct()
-                .map(personRepository::findById)
-                .filter(Optional::isPresent)
-                .map(Optional::get)
-                .collect(Collectors.toMap(PersonEntity::getId, Function.identity()));
-        return entities.stream()
-                .map(e -> toNoteResponse(e, authors.get(e.getAuthorId())))
+        return animalNoteRepository.findPageWithAuthors(animalId, null, null, null).stream()
+                .map(this::toNoteResponse)
                 .toList();
     }
 
-    private AnimalNoteResponse toNoteResponse(AnimalNoteEntity entity, PersonEntity author) {
+    public AnimalNotePageResponse getNotesPage(Long animalId, String cursor, Integer limit) {
+        int pageSize = limit == null ? NOTES_PAGE_DEFAULT : Math.max(1, Math.min(limit, NOTES_PAGE_MAX));
+        String cursorCreatedAt = null;
+        Long cursorId = null;
+        if (cursor != null && !cursor.isBlank()) {
+            String[] parts = CursorCodec.decode(cursor, 2);
+            try {
+                cursorCreatedAt = Instant.parse(parts[0]).toString();
+                cursorId = Long.parseLong(parts[1]);
+            } catch (DateTimeParseException | NumberFormatException e) {
+                throw new IllegalArgumentException("Некорректный курсор", e);
+            }
+        }
+        List<AnimalNoteProjection> rows = animalNoteRepository.findPageWithAuthors(animalId, cursorCreatedAt, cursorId, pageSize + 1);
+        boolean hasNext = rows.size() > pageSize;
+        if (hasNext) {
+            rows = rows.subList(0, pageSize);
+        }
+        String nextCursor = null;
+        if (hasNext) {
+            AnimalNoteProjection last = rows.get(rows.size() - 1);
+            nextCursor = CursorCodec.encode(last.getCreatedAt().toString(), last.getId());
+        }
+        return new AnimalNotePageResponse(rows.stream().map(this::toNoteResponse).toList(), nextCursor);
+    }
+
+    private AnimalNoteResponse toNoteResponse(AnimalNoteProjection row) {
         return new AnimalNoteResponse(
-                entity.getId(),
-                entity.getAnimalId(),
-                entity.getAuthorId(),
-                author != null ? author.getFirstName() : null,
-                author != null ? author.getLastName() : null,
-                author != null ? author.avatarUrlPublic() : null,
-                entity.getNote(),
-                entity.getCreatedAt()
+                row.getId(),
+                row.getAnimalId(),
+                row.getAuthorId(),
+                row.getAuthorFirstName(),
+                row.getAuthorLastName(),
+                PersonEntity.avatarUrlPublic(row.getAuthorId(), row.getAuthorAvatarUrl(), row.getAuthorAvatarKey()),
+                row.getNote(),
+                row.getCreatedAt() != null ? OffsetDateTime.ofInstant(row.getCreatedAt(), ZoneId.systemDefault()) : null
         );
     }
 
@@ -2,14 +2,17 @@ package com.pethaven.service;
 
 import com.pethaven.dto.AuthResponse;
 import com.pethaven.dto.LoginRequest;
+import com.pethaven.dto.RefreshTokenRequest;
 import com.pethaven.dto.RegisterRequest;
 import com.pethaven.entity.PersonEntity;
+import com.pethaven.entity.RefreshTokenEntity;
 import com.pethaven.entity.RoleEntity;
 import com.pethaven.repository.PersonRepository;
 import com.pethaven.repository.RoleRepository;
 import com.pethaven.model.enums.SystemRole;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.HashSet;
 import java.util.Optional;
@@ -61,7 +64,7 @@ public class AuthService {
         Set<SystemRole> roles = Set.of(targetRole);
         TokenService.TokenPair pair = tokenService.issueTokens(saved.getId(), saved.getEmail(), roles);
         return new AuthResponse(saved.getId(), saved.getEmail(), saved.getFirstName(), saved.getLastName(), saved.getPhoneNumber(),
-                roles, pair.accessToken(), avatarUrl(saved));
+                roles, pair.accessToken(), pair.refreshToken(), avatarUrl(saved));
     }
 
     public LoginResult login(LoginRequest request) {
@@ -92,10 +95,55 @@ public class AuthService {
                 person.getPhoneNumber(),
                 roles,
                 pair.accessToken(),
+                pair.refreshToken(),
                 avatarUrl(person)
         ));
     }
 
+    /**
+     * Обменивает refresh-токен на новую пару. Роли и статус читаются из БД, поэтому
+     * изменения, сделанные администратором, попадают в новый access-токен.
+     */
+    @Transactional
+    public LoginResult refresh(RefreshTokenRequest request) {
+        Optional<TokenService.ConsumedToken> consumed = tokenService.consume(request.refreshToken());
+        if (consumed.isEmpty()) {
+            return LoginResult.error("Сессия истекла, войдите снова", false);
+        }
+        RefreshTokenEntity token = consumed.get().token();
+        PersonEntity person = personRepository.findById(token.getPersonId()).orElse(null);
+        if (person == null || person.getRoles().isEmpty()) {
+            return LoginResult.error("Сессия истекла, войдите снова", false);
+        }
+        if (Boolean.FALSE.equals(person.getActive())) {
+            tokenService.revokeAll(person.getId());
+            return LoginResult.error("Учётная запись заблокирована", true);
+        }
+        Set<SystemRole> roles = person.getRoles().stream()
+                .map(RoleEntity::getName)
+                .map(SystemRole::valueOf)
+                .collect(Collectors.toSet());
+        // повтор в окне одновременного обновления: только access-токен, refresh-токен клиент берет у вкладки-победителя
+        TokenService.TokenPair pair = consumed.get().rotate()
+                ? tokenService.issueTokens(person.getId(), person.getEmail(), roles, token.getFamilyId())
+                : new TokenService.TokenPair(tokenService.issueAccessToken(person.getId(), person.getEmail(), roles), null);
+        return LoginResult.success(new AuthResponse(
+                person.getId(),
+                person.getEmail(),
+                person.getFirstName(),
+                person.getLastName(),
+                person.getPhoneNumber(),
+                roles,
+                pair.accessToken(),
+                pair.refreshToken(),
+                avatarUrl(person)
+        ));
+    }
+
+    public void logout(RefreshTokenRequest request) {
+        tokenService.revoke(request.refreshToken());
+    }
+
     public record LoginResult(AuthResponse auth, String error, boolean blocked) {
         public static LoginResult success(AuthResponse auth) {
             return new LoginResult(auth, null, false);
@@ -0,0 +1,278 @@
+package com.pethaven.service;
+
+import com.pethaven.config.StorageProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.util.DigestUtils;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Дисковый LRU-кэш неизменяемых объектов хранилища с небольшим набором горячих аватаров в памяти.
+ * Индекс хранится только в памяти, поэтому при старте из каталога удаляются файлы кэша (имена-хэши и
+ * незавершенные {@code tmp-*.part}); прочие файлы не трогаются.
+ */
+@Service
+public class MediaCacheService {
+
+    private static final Logger log = LoggerFactory.getLogger(MediaCacheService.class);
+    private static final String AVATAR_PREFIX = "avatars/";
+    private static final String TEMP_FILE_PREFIX = "tmp-";
+    private static final String TEMP_FILE_SUFFIX = ".part";
+    private static final Pattern ENTRY_NAME = Pattern.compile("[0-9a-f]{32}");
+    private static final Pattern TEMP_NAME = Pattern.compile(Pattern.quote(TEMP_FILE_PREFIX) + "\\d+" + Pattern.quote(TEMP_FILE_SUFFIX));
+
+    private final StorageProperties.Cache config;
+    private final Path directory;
+    private final LinkedHashMap<String, Entry> index = new LinkedHashMap<>(64, 0.75f, true);
+    private final Map<String, byte[]> hotSet;
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private long totalBytes;
+    private volatile boolean enabled;
+
+    public MediaCacheService(StorageProperties properties) {
+        this.config = properties.getCache();
+        this.directory = Path.of(config.getDirectory());
+        int hotEntries = config.getHotSetEntries();
+        this.hotSet = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, byte[]> eldest) {
+                return size() > hotEntries;
+            }
+        });
+        this.enabled = config.isEnabled() && prepareDirectory();
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public Optional<CachedMedia> lookup(String key) {
+        if (!enabled) {
+            return Optional.empty();
+        }
+        Entry entry;
+        synchronized (this) {
+            entry = index.get(key);
+        }
+        if (entry == null) {
+            misses.incrementAndGet();
+            return Optional.empty();
+        }
+        hits.incrementAndGet();
+        byte[] hot = hotSet.get(key);
+        if (hot == null && key.startsWith(AVATAR_PREFIX) && entry.size() <= config.getHotSetMaxEntrySize().toBytes()) {
+            hot = promote(key, entry);
+        }
+        return Optional.of(new CachedMedia(key, entry.info(), entry.path(), entry.size(), hot));
+    }
+
+    /**
+     * Копирует диапазон закэшированного объекта в выходной поток через {@link FileChannel#transferTo}.
+     *
+     * @throws java.nio.file.NoSuchFileException если файл был вытеснен после {@link #lookup(String)}
+     */
+    public void transferTo(CachedMedia media, long position, long count, OutputStream out) throws IOException {
+        if (media.bytes() != null) {
+            out.write(media.bytes(), (int) position, (int) count);
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(media.path(), StandardOpenOption.READ)) {
+            WritableByteChannel target = Channels.newChannel(out);
+            long written = 0;
+            while (written < count) {
+                long transferred = channel.transferTo(position + written, count - written, target);
+                if (transferred <= 0) {
+                    break;
+                }
+                written += transferred;
+            }
+        }
+    }
+
+    /**
+     * Начинает запись объекта в кэш во временный файл. Пустой результат — объект не кэшируется.
+     */
+    public Optional<PendingWrite> beginWrite(String key, ObjectStorageService.StorageObjectInfo info) {
+        if (!enabled || info.contentLength() == null || info.contentLength() > config.getMaxEntrySize().toBytes()) {
+            return Optional.empty();
+        }
+        try {
+            Path temp = Files.createTempFile(directory, TEMP_FILE_PREFIX, TEMP_FILE_SUFFIX);
+            return Optional.of(new PendingWrite(key, info, temp, Files.newOutputStream(temp)));
+        } catch (IOException e) {
+            log.warn("Failed to start media cache write for {}: {}", key, e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    public void evict(String key) {
+        Entry removed;
+        synchronized (this) {
+            removed = index.remove(key);
+            if (removed != null) {
+                totalBytes -= removed.size();
+            }
+        }
+        hotSet.remove(key);
+        if (removed != null) {
+            deleteQuietly(removed.path());
+        }
+    }
+
+    public CacheStats stats() {
+        synchronized (this) {
+            return new CacheStats(hits.get(), misses.get(), evictions.get(), index.size(), totalBytes, hotSet.size());
+        }
+    }
+
+    private void register(String key, Entry entry) {
+        List<Path> evicted = new ArrayList<>();
+        long maxBytes = config.getMaxSize().toBytes();
+        synchronized (this) {
+            Entry previous = index.put(key, entry);
+            if (previous != null) {
+                totalBytes -= previous.size();
+            }
+            totalBytes += entry.size();
+            Iterator<Map.Entry<String, Entry>> it = index.entrySet().iterator();
+            while (totalBytes > maxBytes && it.hasNext()) {
+                Map.Entry<String, Entry> eldest = it.next();
+                if (eldest.getKey().equals(key)) {
+                    continue;
+                }
+                it.remove();
+                totalBytes -= eldest.getValue().size();
+                hotSet.remove(eldest.getKey());
+                evicted.add(eldest.getValue().path());
+                evictions.incrementAndGet();
+            }
+        }
+        evicted.forEach(this::deleteQuietly);
+        if (!evicted.isEmpty()) {
+            log.debug("Media cache evicted {} entries, stats {}", evicted.size(), stats());
+        }
+    }
+
+    private byte[] promote(String key, Entry entry) {
+        try {
+            byte[] bytes = Files.readAllBytes(entry.path());
+            hotSet.put(key, bytes);
+            return bytes;
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private Path pathFor(String key) {
+        return directory.resolve(DigestUtils.md5DigestAsHex(key.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private boolean prepareDirectory() {
+        try {
+            Files.createDirectories(directory);
+            // удаляются только файлы с именами самого кэша: каталог мог быть указан общим
+            try (Stream<Path> files = Files.list(directory)) {
+                files.filter(this::isOwnFile).forEach(this::deleteQuietly);
+            }
+            return true;
+        } catch (IOException e) {
+            log.warn("Media cache disabled, directory {} is not usable: {}", directory, e.getMessage());
+            return false;
+        }
+    }
+
+    private boolean isOwnFile(Path path) {
+        String name = path.getFileName().toString();
+        return Files.isRegularFile(path, LinkOption.NOFOLLOW_LINKS)
+                && (ENTRY_NAME.matcher(name).matches() || TEMP_NAME.matcher(name).matches());
+    }
+
+    private void deleteQuietly(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            log.debug("Failed to delete media cache file {}", path, e);
+        }
+    }
+
+    private record Entry(Path path, long size, ObjectStorageService.StorageObjectInfo info) {
+    }
+
+    public record CachedMedia(String key, ObjectStorageService.StorageObjectInfo info, Path path, long size, byte[] bytes) {
+    }
+
+    public record CacheStats(long hits, long misses, long evictions, int entries, long bytes, int hotEntries) {
+    }
+
+    /**
+     * Запись объекта во временный файл; {@link #commit()} атомарно переносит его в кэш.
+     */
+    public final class PendingWrite {
+        private final String key;
+        private final ObjectStorageService.StorageObjectInfo info;
+        private final Path temp;
+        private final OutputStream stream;
+        private long written;
+
+        private PendingWrite(String key, ObjectStorageService.StorageObjectInfo info, Path temp, OutputStream stream) {
+            this.key = key;
+            this.info = info;
+            this.temp = temp;
+            this.stream = stream;
+        }
+
+        public void write(byte[] buffer, int offset, int length) throws IOException {
+            stream.write(buffer, offset, length);
+            written += length;
+        }
+
+        public void commit() {
+            try {
+                stream.close();
+                if (written != info.contentLength()) {
+                    deleteQuietly(temp);
+                    return;
+                }
+                Path target = pathFor(key);
+                Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+                register(key, new Entry(target, written, info));
+            } catch (IOException e) {
+                log.warn("Failed to store {} in media cache: {}", key, e.getMessage());
+                deleteQuietly(temp);
+            }
+        }
+
+        public void abort() {
+            try {
+                stream.close();
+            } catch (IOException ignored) {
+                // временный файл удаляется ниже
+            }
+            deleteQuietly(temp);
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package com.pethaven.service;
+
+import com.pethaven.config.StorageProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import software.amazon.awssdk.core.async.AsyncRequestBody;
+import software.amazon.awssdk.core.exception.SdkException;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
+import software.amazon.awssdk.services.s3.model.CompletedPart;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Загрузка крупных файлов частями через {@link S3AsyncClient}: части уходят параллельно,
+ * упавшая часть перезапускается отдельно, при ошибке или отмене загрузка прерывается в хранилище.
+ */
+@Service
+public class MultipartUploadService {
+
+    private static final Logger log = LoggerFactory.getLogger(MultipartUploadService.class);
+    private static final long RETRY_BACKOFF_MS = 200;
+
+    private final S3AsyncClient s3AsyncClient;
+    private final StorageProperties properties;
+
+    public MultipartUploadService(S3AsyncClient s3AsyncClient, StorageProperties properties) {
+        this.s3AsyncClient = s3AsyncClient;
+        this.properties = properties;
+    }
+
+    public boolean shouldUse(StorageProperties.UploadType type, long size) {
+        StorageProperties.Multipart config = properties.getMultipart();
+        return config.isEnabledFor(type) && size > config.getPartSize().toBytes();
+    }
+
+    /**
+     * Загружает поток частями и блокируется до завершения. Память ограничена concurrency × part-size.
+     */
+    public void upload(String key, String contentType, InputStream in, long size, ProgressListener listener) {
+        StorageProperties.Multipart config = properties.getMultipart();
+        int partSize = (int) config.getPartSize().toBytes();
+        String bucket = properties.getBucket();
+        String uploadId;
+        try {
+            uploadId = s3AsyncClient.createMultipartUpload(b -> b.bucket(bucket).key(key).contentType(contentType))
+                    .join()
+                    .uploadId();
+        } catch (CompletionException | SdkException e) {
+            log.error("Failed to start multipart upload {}", key, e);
+            throw new IllegalStateException("Не удалось загрузить файл в хранилище", e);
+        }
+        Semaphore permits = new Semaphore(Math.max(1, config.getConcurrency()));
+        List<CompletableFuture<CompletedPart>> parts = new ArrayList<>();
+        AtomicLong uploaded = new AtomicLong();
+        try {
+            int partNumber = 1;
+            byte[] chunk;
+            while ((chunk = in.readNBytes(partSize)).length > 0) {
+                permits.acquire();
+                if (parts.stream().anyMatch(CompletableFuture::isCompletedExceptionally)) {
+                    permits.release();
+                    break;
+                }
+                byte[] body = chunk;
+                parts.add(uploadPart(bucket, key, uploadId, partNumber++, body, 1, config.getMaxPartAttempts())
+                        .whenComplete((part, error) -> {
+                            permits.release();
+                            if (error == null) {
+                                listener.onProgress(uploaded.addAndGet(body.length), size);
+                            }
+                        }));
+            }
+            List<CompletedPart> completed = parts.stream()
+                    .map(CompletableFuture::join)
+                    .sorted(Comparator.comparing(CompletedPart::partNumber))
+                    .toList();
+            s3AsyncClient.completeMultipartUpload(b -> b.bucket(bucket)
+                            .key(key)
+                            .uploadId(uploadId)
+                            .multipartUpload(m -> m.parts(completed)))
+                    .join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            abort(bucket, key, uploadId, parts);
+            throw new IllegalStateException("Загрузка файла отменена", e);
+        } catch (IOException | CompletionException | SdkException e) {
+            log.error("Multipart upload {} failed", key, e);
+            abort(bucket, key, uploadId, parts);
+            throw new IllegalStateException("Не удалось загрузить файл в хранилище", e);
+        }
+    }
+
+    private CompletableFuture<CompletedPart> uploadPart(String bucket, String key, String uploadId,
+                                                        int partNumber, byte[] body, int attempt, int maxAttempts) {
+        return s3AsyncClient.uploadPart(b -> b.bucket(bucket)
+                                .key(key)
+                                .uploadId(uploadId)
+                                .partNumber(partNumber)
+                                .contentLength((long) body.length),
+                        AsyncRequestBody.fromBytesUnsafe(body))
+                .thenApply(response -> CompletedPart.builder().partNumber(partNumber).eTag(response.eTag()).build())
+                .exceptionallyComposeAsync(error -> {
+                    if (attempt >= maxAttempts) {
+                        return CompletableFuture.failedFuture(error);
+                    }
+                    log.warn("Retrying part {} of {} (attempt {}): {}", partNumber, key, attempt + 1, error.getMessage());
+                    return uploadPart(bucket, key, uploadId, partNumber, body, attempt + 1, maxAttempts);
+                }, CompletableFuture.delayedExecutor(RETRY_BACKOFF_MS * attempt, TimeUnit.MILLISECONDS));
+    }
+
+    private void abort(String bucket, String key, String uploadId, List<CompletableFuture<CompletedPart>> parts) {
+        parts.forEach(part -> part.cancel(true));
+        s3AsyncClient.abortMultipartUpload(b -> b.bucket(bucket).key(key).uploadId(uploadId))
+                .whenComplete((response, error) -> {
+                    if (error != null) {
+                        log.warn("Failed to abort multipart upload {}: {}", key, error.getMessage());
+                    }
+                });
+    }
+
+    @FunctionalInterface
+    public interface ProgressListener {
+        ProgressListener NONE = (uploadedBytes, totalBytes) -> {
+        };
+
+        void onProgress(long uploadedBytes, long totalBytes);
+    }
+}
@@ -0,0 +1,88 @@
+package com.pethaven.service;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pethaven.repository.NotificationPartitionProjection;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.OffsetDateTime;
+import java.util.Iterator;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Выгрузка отсоединенной месячной секции уведомлений в JSON Lines + gzip: по строке на уведомление с короткими ключами.
+ * Секция читается напрямую серверным курсором (fetch size внутри транзакции), без промежуточной
+ * материализации месяца в базе или в памяти.
+ */
+@Component
+public class NotificationArchiveWriter {
+
+    private static final Pattern PARTITION_NAME = Pattern.compile("^notification_p\\d{6}$");
+    private static final int FETCH_SIZE = 1000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+
+    public NotificationArchiveWriter(DataSource dataSource, ObjectMapper objectMapper) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.jdbcTemplate.setFetchSize(FETCH_SIZE);
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Пишет строки секции в {@code target}; возвращает число выгруженных уведомлений.
+     */
+    @Transactional(readOnly = true)
+    public long write(NotificationPartitionProjection partition, Path target) throws IOException {
+        String name = partition.getPartitionName();
+        if (name == null || !PARTITION_NAME.matcher(name).matches()) {
+            throw new IllegalArgumentException("Not a monthly notification partition: " + name);
+        }
+        // имя таблицы нельзя передать параметром; оно проверено по шаблону выше
+        String sql = "SELECT notification_id, person_id, CAST(type AS text) AS type, title, message, read, created_at FROM \""
+                + name + "\"";
+        long written = 0;
+        try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(target), 64 * 1024);
+             JsonGenerator json = objectMapper.getFactory().createGenerator(out, JsonEncoding.UTF8);
+             Stream<ArchiveRow> rows = jdbcTemplate.queryForStream(sql, (rs, rowNum) -> new ArchiveRow(
+                     rs.getLong("notification_id"),
+                     rs.getLong("person_id"),
+                     rs.getString("type"),
+                     rs.getString("title"),
+                     rs.getString("message"),
+                     rs.getBoolean("read"),
+                     rs.getObject("created_at", OffsetDateTime.class)))) {
+            json.setRootValueSeparator(null);
+            Iterator<ArchiveRow> it = rows.iterator();
+            while (it.hasNext()) {
+                ArchiveRow row = it.next();
+                json.writeStartObject();
+                json.writeNumberField("id", row.id());
+                json.writeNumberField("p", row.personId());
+                json.writeStringField("t", row.type());
+                json.writeStringField("ti", row.title());
+                json.writeStringField("m", row.message());
+                json.writeBooleanField("r", row.read());
+                json.writeStringField("c", row.createdAt() != null ? row.createdAt().toInstant().toString() : null);
+                json.writeEndObject();
+                json.writeRaw('\n');
+                written++;
+            }
+        }
+        return written;
+    }
+
+    private record ArchiveRow(long id, long personId, String type, String title, String message,
+                              boolean read, OffsetDateTime createdAt) {
+    }
+}
@@ -0,0 +1,115 @@
+package com.pethaven.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pethaven.config.NotificationProperties;
+import com.pethaven.entity.NotificationEntity;
+import com.pethaven.repository.NotificationRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Доставка уведомлений между узлами: триггер на {@code notification} шлет {@code pg_notify} при коммите,
+ * а каждый узел через {@link PgNotifyListener} получает уведомления в JSON и рассылает их
+ * своим WebSocket-сессиям. Так в реальном времени доходят и уведомления, созданные в PL/pgSQL-функциях.
+ * После переподключения LISTEN-соединения уведомления, созданные во время разрыва, дочитываются из ленты
+ * по последнему полученному notification_id.
+ */
+@Service
+public class NotificationListener {
+
+    public static final String CHANNEL = "notification_created";
+
+    private static final Logger log = LoggerFactory.getLogger(NotificationListener.class);
+    private static final int CATCH_UP_LIMIT = 1000;
+    // запас на транзакции, закоммиченные не в порядке выдачи идентификаторов
+    private static final Duration CATCH_UP_MARGIN = Duration.ofMinutes(1);
+
+    private final NotificationRepository notificationRepository;
+    private final NotificationService notificationService;
+    private final ObjectMapper objectMapper;
+    private final AtomicLong lastSeenId = new AtomicLong();
+    private volatile OffsetDateTime lastSeenAt = OffsetDateTime.now();
+
+    public NotificationListener(PgNotifyListener pgNotifyListener,
+                                NotificationRepository notificationRepository,
+                                NotificationService notificationService,
+                                NotificationProperties notificationProperties,
+                                ObjectMapper objectMapper) {
+        this.notificationRepository = notificationRepository;
+        this.notificationService = notificationService;
+        this.objectMapper = objectMapper;
+        if (notificationProperties.getListen().isEnabled()) {
+            pgNotifyListener.subscribe(CHANNEL, this::deliver, this::catchUp);
+        }
+    }
+
+    /**
+     * Полезная нагрузка — уведомление в JSON; слишком длинные уведомления приходят как
+     * {@code notification_id:person_id} и читаются из базы. Пропускаются уведомления пользователей,
+     * у которых нет сессий на этом узле.
+     */
+    private void deliver(List<String> payloads) {
+        List<NotificationEntity> received = new ArrayList<>();
+        Set<Long> ids = new LinkedHashSet<>();
+        lastSeenAt = OffsetDateTime.now();
+        for (String payload : payloads) {
+            if (payload.startsWith("{")) {
+                try {
+                    NotificationEntity notification = objectMapper.readValue(payload, NotificationEntity.class);
+                    lastSeenId.accumulateAndGet(notification.getId(), Math::max);
+                    if (notificationService.hasLocalSessions(notification.getPersonId())) {
+                        received.add(notification);
+                    }
+                } catch (JsonProcessingException e) {
+                    log.debug("Ignoring malformed notification payload {}", payload);
+                }
+                continue;
+            }
+            int separator = payload.indexOf(':');
+            try {
+                long id = Long.parseLong(separator > 0 ? payload.substring(0, separator) : payload);
+                lastSeenId.accumulateAndGet(id, Math::max);
+                if (separator > 0 && !notificationService.hasLocalSessions(Long.parseLong(payload.substring(separator + 1)))) {
+                    continue;
+                }
+                ids.add(id);
+            } catch (NumberFormatException e) {
+                log.debug("Ignoring malformed notification payload {}", payload);
+            }
+        }
+        if (!ids.isEmpty()) {
+            received.addAll(notificationRepository.findAllById(ids));
+        }
+        if (!received.isEmpty()) {
+            notificationService.deliverLocal(received);
+        }
+    }
+
+    /**
+     * Дочитывает уведомления, созданные, пока LISTEN-соединение было разорвано, для пользователей
+     * с сессиями на этом узле.
+     */
+    private void catchUp() {
+        Set<Long> personIds = notificationService.localPersonIds();
+        if (personIds.isEmpty()) {
+            return;
+        }
+        List<NotificationEntity> missed = notificationRepository.findCreatedAfter(
+                personIds, lastSeenId.get(), lastSeenAt.minus(CATCH_UP_MARGIN), CATCH_UP_LIMIT);
+        if (!missed.isEmpty()) {
+            lastSeenId.accumulateAndGet(missed.get(missed.size() - 1).getId(), Math::max);
+            log.info("Delivering {} notifications missed during LISTEN reconnect", missed.size());
+            notificationService.deliverLocal(missed);
+        }
+    }
+}
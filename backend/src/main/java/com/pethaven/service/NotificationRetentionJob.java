@@ -0,0 +1,112 @@
+package com.pethaven.service;
+
+import com.pethaven.config.NotificationProperties;
+import com.pethaven.repository.NotificationPartitionProjection;
+import com.pethaven.repository.NotificationRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Обслуживание секционированной ленты уведомлений: заранее создает месячные секции и удаляет
+ * месяцы старше {@code notifications.retention.keep-months} целиком. Секция сначала отсоединяется
+ * под коротким lock_timeout, затем выгружается в архив и только после этого удаляется.
+ * Если выгрузка не удалась, отсоединенная таблица остается до следующего запуска.
+ */
+@Component
+public class NotificationRetentionJob {
+
+    private static final Logger log = LoggerFactory.getLogger(NotificationRetentionJob.class);
+    private static final String ARCHIVE_CONTENT_TYPE = "application/gzip";
+    private static final Duration DETACH_RETRY_PAUSE = Duration.ofSeconds(1);
+    private static final DateTimeFormatter ARCHIVE_MONTH = DateTimeFormatter.ofPattern("yyyy-MM");
+
+    private final NotificationRepository notificationRepository;
+    private final NotificationArchiveWriter archiveWriter;
+    private final ObjectStorageService storageService;
+    private final NotificationProperties.Retention config;
+
+    public NotificationRetentionJob(NotificationRepository notificationRepository,
+                                    NotificationArchiveWriter archiveWriter,
+                                    ObjectStorageService storageService,
+                                    NotificationProperties notificationProperties) {
+        this.notificationRepository = notificationRepository;
+        this.archiveWriter = archiveWriter;
+        this.storageService = storageService;
+        this.config = notificationProperties.getRetention();
+    }
+
+    // Ежедневно в 03:30
+    @Scheduled(cron = "${notifications.retention.cron:0 30 3 * * *}")
+    public void run() {
+        int created = notificationRepository.ensurePartitions(config.getPartitionsAhead());
+        if (created > 0) {
+            log.info("Created {} notification partitions", created);
+        }
+        if (!config.isEnabled()) {
+            return;
+        }
+        LocalDate keepFrom = LocalDate.now().withDayOfMonth(1).minusMonths(Math.max(config.getKeepMonths(), 1));
+        for (NotificationPartitionProjection partition : notificationRepository.findExpiredPartitions(keepFrom.toString())) {
+            try {
+                if (Boolean.TRUE.equals(partition.getAttached()) && !detach(partition.getPartitionName())) {
+                    continue;
+                }
+                long archived = config.isArchive() ? archive(partition) : 0;
+                int unread = notificationRepository.dropPartition(partition.getPartitionName());
+                if (unread >= 0) {
+                    log.info("Dropped notification partition {} ({} archived, {} unread expired)",
+                            partition.getPartitionName(), archived, unread);
+                }
+            } catch (IOException | RuntimeException e) {
+                log.warn("Notification partition {} kept: {}", partition.getPartitionName(), e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Отсоединяет секцию, повторяя попытку, если блокировку ленты не удалось получить за lock_timeout.
+     * false — секцию уже обработал другой узел.
+     */
+    private boolean detach(String partitionName) {
+        String lockTimeout = config.getDetachLockTimeout().toMillis() + "ms";
+        int attempts = Math.max(config.getDetachAttempts(), 1);
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return notificationRepository.detachPartition(partitionName, lockTimeout);
+            } catch (DataAccessException e) {
+                if (attempt >= attempts) {
+                    throw e;
+                }
+                log.debug("Detach of {} failed (attempt {}): {}", partitionName, attempt, e.getMessage());
+                try {
+                    Thread.sleep(DETACH_RETRY_PAUSE.toMillis());
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    throw e;
+                }
+            }
+        }
+    }
+
+    private long archive(NotificationPartitionProjection partition) throws IOException {
+        Path file = Files.createTempFile("notifications-", ".jsonl.gz");
+        try {
+            long rows = archiveWriter.write(partition, file);
+            String key = config.getArchivePrefix() + "notification-" + ARCHIVE_MONTH.format(partition.getRangeFrom()) + ".jsonl.gz";
+            storageService.uploadFile(key, file, ARCHIVE_CONTENT_TYPE);
+            return rows;
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+}
@@ -1,43 +1,119 @@
 package com.pethaven.service;
 
+import com.pethaven.dto.NotificationPageResponse;
 import com.pethaven.entity.NotificationEntity;
 import com.pethaven.repository.NotificationRepository;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pethaven.config.NotificationProperties;
+import com.pethaven.model.enums.NotificationType;
+import com.pethaven.model.enums.SystemRole;
+import com.pethaven.support.CursorCodec;
+import com.pethaven.websocket.NotificationDispatcher;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import org.springframework.web.socket.TextMessage;
 import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.ConcurrentWebSocketSessionDecorator;
 
-import java.io.IOException;
-import java.util.ArrayList;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 
 @Service
 public class NotificationService {
 
+    private static final Logger log = LoggerFactory.getLogger(NotificationService.class);
+    private static final int INBOX_PAGE_DEFAULT = 20;
+    private static final int INBOX_PAGE_MAX = 100;
+
     private final NotificationRepository notificationRepository;
-    private final Map<Long, List<WebSocketSession>> wsSessions = new ConcurrentHashMap<>();
+    /**
+     * Сессии пользователя по id сессии. Изменения идут через compute/computeIfPresent, поэтому
+     * регистрация не теряется при одновременном закрытии последней сессии того же пользователя.
+     */
+    private final Map<Long, Map<String, WebSocketSession>> wsSessions = new ConcurrentHashMap<>();
     private final ObjectMapper objectMapper;
+    private final NotificationDispatcher dispatcher;
+    private final NotificationProperties.Dispatch dispatchConfig;
+    private final boolean clusterDelivery;
 
-    public NotificationService(NotificationRepository notificationRepository, ObjectMapper objectMapper) {
+    public NotificationService(NotificationRepository notificationRepository,
+                               ObjectMapper objectMapper,
+                               NotificationDispatcher dispatcher,
+                               NotificationProperties notificationProperties) {
         this.notificationRepository = notificationRepository;
         this.objectMapper = objectMapper;
+        this.dispatcher = dispatcher;
+        this.dispatchConfig = notificationProperties.getDispatch();
+        this.clusterDelivery = notificationProperties.getListen().isEnabled();
     }
 
     public List<NotificationEntity> getUserNotifications(Long personId) {
         return notificationRepository.findByPersonIdOrderByCreatedAtDesc(personId, PageRequest.of(0, 50));
     }
 
-    public NotificationEntity push(Long personId, com.pethaven.model.enums.NotificationType type, String title, String message) {
-        Long id = notificationRepository.createNotification(personId, type.name(), title, message);
-        NotificationEntity entity = notificationRepository.findById(id).orElse(null);
-        if (entity != null) {
-            broadcast(entity);
+    @Transactional(readOnly = true)
+    public NotificationPageResponse getInbox(Long personId, String before, Integer limit) {
+        int pageSize = limit == null ? INBOX_PAGE_DEFAULT : Math.max(1, Math.min(limit, INBOX_PAGE_MAX));
+        String beforeCreatedAt = null;
+        Long beforeId = null;
+        if (before != null && !before.isBlank()) {
+            String[] parts = CursorCodec.decode(before, 2);
+            try {
+                beforeCreatedAt = Instant.parse(parts[0]).toString();
+                beforeId = Long.parseLong(parts[1]);
+            } catch (DateTimeParseException | NumberFormatException e) {
+                throw new IllegalArgumentException("Некорректный курсор", e);
+            }
+        }
+        List<NotificationEntity> rows = notificationRepository.findInboxPage(personId, beforeCreatedAt, beforeId, pageSize + 1);
+        boolean hasNext = rows.size() > pageSize;
+        if (hasNext) {
+            rows = rows.subList(0, pageSize);
         }
-        return entity;
+        String nextCursor = null;
+        if (hasNext) {
+            NotificationEntity last = rows.get(rows.size() - 1);
+            nextCursor = CursorCodec.encode(last.getCreatedAt().toInstant().toString(), last.getId());
+        }
+        return new NotificationPageResponse(rows, nextCursor);
+    }
+
+    public int getUnreadCount(Long personId) {
+        return notificationRepository.findUnreadCount(personId);
+    }
+
+    public NotificationEntity push(Long personId, NotificationType type, String title, String message) {
+        List<NotificationEntity> created = pushMany(List.of(personId), type, title, message);
+        return created.isEmpty() ? null : created.get(0);
+    }
+
+    /**
+     * Создает уведомления для всех активных пользователей роли одним INSERT ... SELECT.
+     */
+    public List<NotificationEntity> pushToRole(SystemRole role, NotificationType type, String title, String message) {
+        List<NotificationEntity> created = notificationRepository.insertForRole(role.name(), type.name(), title, message);
+        dispatchAfterCommit(created);
+        return created;
+    }
+
+    public List<NotificationEntity> pushMany(Collection<Long> personIds, NotificationType type, String title, String message) {
+        if (personIds.isEmpty()) {
+            return List.of();
+        }
+        List<NotificationEntity> created = notificationRepository.insertForPersons(personIds, type.name(), title, message);
+        dispatchAfterCommit(created);
+        return created;
     }
 
     @Transactional
@@ -55,32 +131,109 @@ public class NotificationService {
         notificationRepository.deleteAllByPersonId(personId);
     }
 
-    public void registerSocket(Long personId, WebSocketSession session) {
-        wsSessions.computeIfAbsent(personId, k -> new ArrayList<>()).add(session);
+    /**
+     * Регистрирует сессию и возвращает обертку, через которую в нее нужно отправлять сообщения:
+     * она ограничивает время отправки и объем буфера для медленного клиента.
+     */
+    public WebSocketSession registerSocket(Long personId, WebSocketSession session) {
+        WebSocketSession decorated = new ConcurrentWebSocketSessionDecorator(
+                session,
+                (int) dispatchConfig.getSendTimeLimit().toMillis(),
+                (int) dispatchConfig.getSendBufferSizeLimit().toBytes(),
+                ConcurrentWebSocketSessionDecorator.OverflowStrategy.TERMINATE);
+        wsSessions.compute(personId, (id, sessions) -> {
+            Map<String, WebSocketSession> target = sessions != null ? sessions : new ConcurrentHashMap<>();
+            target.put(session.getId(), decorated);
+            return target;
+        });
+        return decorated;
     }
 
+    /**
+     * Сначала сессия убирается из рассылки, затем ее очередь: иначе параллельная рассылка
+     * могла бы заново создать очередь уже закрытой сессии.
+     */
     public void unregisterSocket(Long personId, WebSocketSession session) {
-        List<WebSocketSession> list = wsSessions.get(personId);
-        if (list != null) {
-            list.remove(session);
-            if (list.isEmpty()) {
-                wsSessions.remove(personId);
-            }
+        wsSessions.computeIfPresent(personId, (id, sessions) -> {
+            sessions.remove(session.getId());
+            return sessions.isEmpty() ? null : sessions;
+        });
+        dispatcher.remove(session);
+    }
+
+    /**
+     * Есть ли у пользователя открытые WebSocket-сессии на этом узле.
+     */
+    public boolean hasLocalSessions(Long personId) {
+        Map<String, WebSocketSession> sockets = wsSessions.get(personId);
+        return sockets != null && !sockets.isEmpty();
+    }
+
+    /**
+     * Пользователи с открытыми WebSocket-сессиями на этом узле.
+     */
+    public Set<Long> localPersonIds() {
+        return Set.copyOf(wsSessions.keySet());
+    }
+
+    /**
+     * Отправляет по WebSocket служебное событие без сохранения в ленте уведомлений.
+     */
+    public void sendEvent(Long personId, Map<String, Object> event) {
+        broadcast(personId, event);
+    }
+
+    public NotificationDispatcher.DispatchStats dispatchStats() {
+        return dispatcher.stats();
+    }
+
+    /**
+     * Рассылает уже сохраненные уведомления WebSocket-сессиям этого узла.
+     */
+    public void deliverLocal(Collection<NotificationEntity> notifications) {
+        notifications.forEach(this::broadcast);
+    }
+
+    /**
+     * Уведомления ставятся в очереди сессий только после коммита, чтобы клиент не получил
+     * уведомление об откатившейся транзакции; сама отправка идет в пуле диспетчера.
+     * При включенном LISTEN/NOTIFY рассылкой занимается {@link NotificationListener} на каждом узле.
+     * Вызывается и для уведомлений, созданных пакетными запросами вне этого сервиса.
+     */
+    public void dispatchAfterCommit(List<NotificationEntity> notifications) {
+        if (notifications.isEmpty() || clusterDelivery) {
+            return;
+        }
+        Runnable task = () -> notifications.forEach(this::broadcast);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    task.run();
+                }
+            });
+        } else {
+            task.run();
         }
     }
 
     private void broadcast(NotificationEntity notification) {
-        List<WebSocketSession> sockets = wsSessions.get(notification.getPersonId());
-        if (sockets != null) {
-            List<WebSocketSession> closeList = new ArrayList<>();
-            for (WebSocketSession session : sockets) {
-                try {
-                    session.sendMessage(new TextMessage(objectMapper.writeValueAsString(notification)));
-                } catch (IOException e) {
-                    closeList.add(session);
-                }
-            }
-            closeList.forEach(ws -> unregisterSocket(notification.getPersonId(), ws));
+        broadcast(notification.getPersonId(), notification);
+    }
+
+    private void broadcast(Long personId, Object payload) {
+        Map<String, WebSocketSession> sockets = wsSessions.get(personId);
+        if (sockets == null || sockets.isEmpty()) {
+            return;
+        }
+        TextMessage message;
+        try {
+            message = new TextMessage(objectMapper.writeValueAsString(payload));
+        } catch (JsonProcessingException e) {
+            log.warn("Failed to serialize notification for person {}: {}", personId, e.getMessage());
+            return;
         }
+        // один TextMessage на всех получателей: сериализация не повторяется для каждой сессии
+        sockets.values().forEach(session -> dispatcher.enqueue(session, message));
     }
 }
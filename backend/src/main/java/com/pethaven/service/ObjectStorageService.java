@@ -1,86 +1,222 @@
 package com.pethaven.service;
 
 import com.pethaven.config.StorageProperties;
+import com.pethaven.dto.PresignedUrlResponse;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.stereotype.Service;
 import org.springframework.util.StringUtils;
 import org.springframework.web.multipart.MultipartFile;
+import software.amazon.awssdk.core.ResponseInputStream;
 import software.amazon.awssdk.core.exception.SdkException;
 import software.amazon.awssdk.core.sync.RequestBody;
 import software.amazon.awssdk.services.s3.S3Client;
 import software.amazon.awssdk.services.s3.model.CreateBucketRequest;
 import software.amazon.awssdk.services.s3.model.DeleteObjectRequest;
+import software.amazon.awssdk.services.s3.model.GetObjectRequest;
+import software.amazon.awssdk.services.s3.model.GetObjectResponse;
 import software.amazon.awssdk.services.s3.model.HeadBucketRequest;
+import software.amazon.awssdk.services.s3.model.HeadObjectRequest;
+import software.amazon.awssdk.services.s3.model.HeadObjectResponse;
 import software.amazon.awssdk.services.s3.model.NoSuchBucketException;
 import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+import software.amazon.awssdk.services.s3.model.S3Exception;
+import software.amazon.awssdk.services.s3.presigner.S3Presigner;
+import software.amazon.awssdk.services.s3.presigner.model.GetObjectPresignRequest;
+import software.amazon.awssdk.services.s3.presigner.model.PresignedGetObjectRequest;
+import software.amazon.awssdk.services.s3.presigner.model.PresignedPutObjectRequest;
+import software.amazon.awssdk.services.s3.presigner.model.PutObjectPresignRequest;
 
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
 import java.time.Instant;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.UUID;
 
 @Service
 public class ObjectStorageService {
 
     private static final Logger log = LoggerFactory.getLogger(ObjectStorageService.class);
+    private static final String KEY_SIGNATURE_ALGORITHM = "HmacSHA256";
+    private static final int KEY_SIGNATURE_BYTES = 16;
     private final S3Client s3Client;
     private final StorageProperties properties;
+    private final S3Presigner s3Presigner;
+    private final MediaCacheService mediaCache;
+    private final MultipartUploadService multipartUploadService;
     private volatile boolean bucketChecked = false;
 
-    public ObjectStorageService(S3Client s3Client, StorageProperties properties) {
+    public ObjectStorageService(S3Client s3Client,
+                                S3Presigner s3Presigner,
+                                StorageProperties properties,
+                                MediaCacheService mediaCache,
+                                MultipartUploadService multipartUploadService) {
         this.s3Client = s3Client;
+        this.s3Presigner = s3Presigner;
         this.properties = properties;
+        this.mediaCache = mediaCache;
+        this.multipartUploadService = multipartUploadService;
     }
 
     public String uploadAvatar(Long personId, MultipartFile file) {
         String ext = extension(file.getOriginalFilename());
         String key = "avatars/" + personId + "/" + UUID.randomUUID() + ext;
-        uploadInternal(key, file);
+        uploadInternal(key, file, StorageProperties.UploadType.AVATAR, MultipartUploadService.ProgressListener.NONE);
         return key;
     }
 
     public String uploadAnimalMedia(Long animalId, MultipartFile file) {
-        String ext = extension(file.getOriginalFilename());
-        String key = "animals/" + animalId + "/" + Instant.now().toEpochMilli() + "-" + UUID.randomUUID() + ext;
-        uploadInternal(key, file);
+        String key = animalMediaKey(animalId, file.getOriginalFilename());
+        uploadInternal(key, file, StorageProperties.UploadType.ANIMAL_MEDIA, MultipartUploadService.ProgressListener.NONE);
         return key;
     }
 
     public String uploadReportMedia(Long reportId, MultipartFile file) {
-        String ext = extension(file.getOriginalFilename());
-        String key = "reports/" + reportId + "/" + Instant.now().toEpochMilli() + "-" + UUID.randomUUID() + ext;
-        uploadInternal(key, file);
+        return uploadReportMedia(reportId, file, MultipartUploadService.ProgressListener.NONE);
+    }
+
+    public String uploadReportMedia(Long reportId, MultipartFile file, MultipartUploadService.ProgressListener listener) {
+        String key = reportMediaKey(reportId, file.getOriginalFilename());
+        uploadInternal(key, file, StorageProperties.UploadType.REPORT_MEDIA, listener);
         return key;
     }
 
+    public String animalMediaKey(Long animalId, String filename) {
+        return signedKey(animalMediaPrefix(animalId), filename);
+    }
+
+    public String animalMediaPrefix(Long animalId) {
+        return "animals/" + animalId + "/";
+    }
+
+    public String reportMediaKey(Long reportId, String filename) {
+        return signedKey(reportMediaPrefix(reportId), filename);
+    }
+
+    public String reportMediaPrefix(Long reportId) {
+        return "reports/" + reportId + "/";
+    }
+
+    /**
+     * Выдает ссылку для прямой загрузки клиентом методом PUT. Ссылка привязана к ключу и типу содержимого.
+     */
+    public PresignedUrlResponse presignUpload(String key, String contentType) {
+        ensureBucket();
+        String type = contentTypeOrDefault(contentType);
+        PresignedPutObjectRequest presigned = s3Presigner.presignPutObject(PutObjectPresignRequest.builder()
+                .signatureDuration(properties.getPresign().getTtl())
+                .putObjectRequest(PutObjectRequest.builder()
+                        .bucket(properties.getBucket())
+                        .key(key)
+                        .contentType(type)
+                        .build())
+                .build());
+        return new PresignedUrlResponse(key, presigned.url().toString(), "PUT", Map.of(HttpHeaders.CONTENT_TYPE, type),
+                presigned.expiration());
+    }
+
+    public PresignedUrlResponse presignDownload(String key) {
+        PresignedGetObjectRequest presigned = s3Presigner.presignGetObject(GetObjectPresignRequest.builder()
+                .signatureDuration(properties.getPresign().getTtl())
+                .getObjectRequest(GetObjectRequest.builder()
+                        .bucket(properties.getBucket())
+                        .key(key)
+                        .build())
+                .build());
+        return new PresignedUrlResponse(key, presigned.url().toString(), "GET", Map.of(), presigned.expiration());
+    }
+
+    /**
+     * Проверяет, что ключ выдан этим сервисом для указанного объекта, клиент действительно загрузил
+     * по нему файл и файл не превышает лимит. Ключи вариантов и прочие объекты под тем же префиксом
+     * не проходят проверку подписи.
+     */
+    public StorageObjectInfo verifyUploaded(String key, String expectedPrefix) {
+        if (key == null || !key.startsWith(expectedPrefix) || !isSignedKey(key, expectedPrefix)) {
+            throw new IllegalArgumentException("Ключ файла не относится к этому объекту");
+        }
+        StorageObjectInfo info;
+        try {
+            info = head(key);
+        } catch (IllegalStateException | NoSuchElementException e) {
+            throw new IllegalArgumentException("Файл не загружен в хранилище", e);
+        }
+        if (info.contentLength() != null && info.contentLength() > properties.getPresign().getMaxUploadSize().toBytes()) {
+            delete(key);
+            throw new IllegalArgumentException("Файл превышает допустимый размер");
+        }
+        return info;
+    }
+
     public String uploadPassport(Long applicationId, MultipartFile file) {
         String ext = extension(file.getOriginalFilename());
         String key = "passports/" + applicationId + "/" + Instant.now().toEpochMilli() + "-" + UUID.randomUUID() + ext;
-        uploadInternal(key, file);
+        uploadInternal(key, file, StorageProperties.UploadType.PASSPORT, MultipartUploadService.ProgressListener.NONE);
         return key;
     }
 
-    public String uploadAgreementTemplate(Long agreementId, byte[] content) {
+    /**
+     * Загружает сгенерированный договор: {@code writer} пишет DOCX прямо в буфер запроса,
+     * без промежуточных копий массива.
+     */
+    public String uploadAgreementTemplate(Long agreementId, int sizeHint, ContentWriter writer) {
         String key = "agreements/" + agreementId + "/template.docx";
-        uploadBytes(key, content, "application/vnd.openxmlformats-officedocument.wordprocessingml.document");
+        RequestBuffer buffer = new RequestBuffer(sizeHint);
+        try {
+            writer.writeTo(buffer);
+        } catch (IOException e) {
+            throw new IllegalStateException("Не удалось сгенерировать шаблон договора", e);
+        }
+        putObject(key, AgreementTemplateEngine.CONTENT_TYPE,
+                RequestBody.fromContentProvider(buffer::newInputStream, buffer.size(), AgreementTemplateEngine.CONTENT_TYPE));
         return key;
     }
 
     public String uploadSignedAgreement(Long agreementId, MultipartFile file) {
         String ext = extension(file.getOriginalFilename());
         String key = "agreements/" + agreementId + "/signed-" + Instant.now().toEpochMilli() + "-" + UUID.randomUUID() + ext;
-        uploadInternal(key, file);
+        uploadInternal(key, file, StorageProperties.UploadType.AGREEMENT, MultipartUploadService.ProgressListener.NONE);
         return key;
     }
 
-    private void uploadInternal(String key, MultipartFile file) {
+    public void uploadDerived(String key, byte[] content, String contentType) {
+        uploadBytes(key, content, contentType);
+    }
+
+    /**
+     * Загружает файл с диска потоком, не читая его в память целиком.
+     */
+    public void uploadFile(String key, Path file, String contentType) {
+        putObject(key, contentType, RequestBody.fromFile(file));
+    }
+
+    private void uploadInternal(String key, MultipartFile file, StorageProperties.UploadType type,
+                                MultipartUploadService.ProgressListener listener) {
         ensureBucket();
         try {
             String contentType = file.getContentType();
             if (!StringUtils.hasText(contentType)) {
                 contentType = MediaType.APPLICATION_OCTET_STREAM_VALUE;
             }
+            if (multipartUploadService.shouldUse(type, file.getSize())) {
+                try (InputStream in = file.getInputStream()) {
+                    multipartUploadService.upload(key, contentType, in, file.getSize(), listener);
+                }
+                return;
+            }
             PutObjectRequest putRequest = PutObjectRequest.builder()
                     .bucket(properties.getBucket())
                     .key(key)
@@ -94,6 +230,10 @@ public class ObjectStorageService {
     }
 
     private void uploadBytes(String key, byte[] content, String contentType) {
+        putObject(key, contentType, RequestBody.fromBytes(content));
+    }
+
+    private void putObject(String key, String contentType, RequestBody body) {
         ensureBucket();
         try {
             if (!StringUtils.hasText(contentType)) {
@@ -104,13 +244,48 @@ public class ObjectStorageService {
                     .key(key)
                     .contentType(contentType)
                     .build();
-            s3Client.putObject(putRequest, RequestBody.fromBytes(content));
+            s3Client.putObject(putRequest, body);
         } catch (SdkException e) {
             log.error("Failed to upload object {}", key, e);
             throw new IllegalStateException("Не удалось загрузить файл в хранилище", e);
         }
     }
 
+    /**
+     * Ключ вида {@code <prefix><time>-<uuid>-<подпись><ext>}: подпись — HMAC от остальной части ключа.
+     */
+    private String signedKey(String prefix, String filename) {
+        String stem = prefix + Instant.now().toEpochMilli() + "-" + UUID.randomUUID();
+        String ext = extension(filename);
+        return stem + "-" + keySignature(stem + ext) + ext;
+    }
+
+    private boolean isSignedKey(String key, String prefix) {
+        String name = key.substring(prefix.length());
+        int dot = name.indexOf('.');
+        String base = dot >= 0 ? name.substring(0, dot) : name;
+        int separator = base.lastIndexOf('-');
+        if (name.indexOf('/') >= 0 || separator < 0) {
+            return false;
+        }
+        String stem = prefix + base.substring(0, separator);
+        String ext = dot >= 0 ? name.substring(dot) : "";
+        byte[] expected = keySignature(stem + ext).getBytes(StandardCharsets.US_ASCII);
+        return MessageDigest.isEqual(expected, base.substring(separator + 1).getBytes(StandardCharsets.US_ASCII));
+    }
+
+    private String keySignature(String value) {
+        try {
+            Mac mac = Mac.getInstance(KEY_SIGNATURE_ALGORITHM);
+            mac.init(new SecretKeySpec(properties.getPresign().getKeySecret().getBytes(StandardCharsets.UTF_8),
+                    KEY_SIGNATURE_ALGORITHM));
+            byte[] digest = mac.doFinal(value.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest, 0, KEY_SIGNATURE_BYTES);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Не удалось подписать ключ файла", e);
+        }
+    }
+
     private String extension(String filename) {
         String ext = StringUtils.getFilenameExtension(filename);
         return ext != null ? "." + ext : "";
@@ -132,10 +307,68 @@ public class ObjectStorageService {
         }
     }
 
+    public StorageObjectInfo head(String key) {
+        ensureBucket();
+        try {
+            HeadObjectResponse response = s3Client.headObject(HeadObjectRequest.builder()
+                    .bucket(properties.getBucket())
+                    .key(key)
+                    .build());
+            return new StorageObjectInfo(contentTypeOrDefault(response.contentType()), response.contentLength(),
+                    response.eTag(), response.lastModified());
+        } catch (S3Exception e) {
+            if (e.statusCode() == 404) {
+                throw new NoSuchElementException("Файл не найден: " + key);
+            }
+            log.error("Failed to stat object {}", key, e);
+            throw new IllegalStateException("Не удалось получить файл", e);
+        } catch (SdkException e) {
+            log.error("Failed to stat object {}", key, e);
+            throw new IllegalStateException("Не удалось получить файл", e);
+        }
+    }
+
+    /**
+     * Открывает поток объекта без буферизации в памяти. Поток должен быть закрыт вызывающей стороной.
+     *
+     * @param range значение заголовка Range (например {@code bytes=0-1023}) или {@code null} для всего объекта
+     */
+    public StorageStream openStream(String key, String range) {
+        ensureBucket();
+        try {
+            ResponseInputStream<GetObjectResponse> obj = s3Client.getObject(GetObjectRequest.builder()
+                    .bucket(properties.getBucket())
+                    .key(key)
+                    .range(range)
+                    .build());
+            GetObjectResponse response = obj.response();
+            StorageObjectInfo info = new StorageObjectInfo(contentTypeOrDefault(response.contentType()),
+                    response.contentLength(), response.eTag(), response.lastModified());
+            return new StorageStream(obj, info, response.contentRange());
+        } catch (S3Exception e) {
+            if (e.statusCode() == 416) {
+                throw new RangeNotSatisfiableException(key, e);
+            }
+            if (e.statusCode() == 404) {
+                throw new NoSuchElementException("Файл не найден: " + key);
+            }
+            log.error("Failed to read object {}", key, e);
+            throw new IllegalStateException("Не удалось получить файл", e);
+        } catch (SdkException e) {
+            log.error("Failed to read object {}", key, e);
+            throw new IllegalStateException("Не удалось получить файл", e);
+        }
+    }
+
+    private String contentTypeOrDefault(String contentType) {
+        return StringUtils.hasText(contentType) ? contentType : MediaType.APPLICATION_OCTET_STREAM_VALUE;
+    }
+
     public void delete(String key) {
         if (!StringUtils.hasText(key)) {
             return;
         }
+        mediaCache.evict(key);
         ensureBucket();
         try {
             s3Client.deleteObject(DeleteObjectRequest.builder()
@@ -177,4 +410,35 @@ public class ObjectStorageService {
 
     public record StorageFile(byte[] bytes, String contentType) {
     }
+
+    public record StorageObjectInfo(String contentType, Long contentLength, String eTag, Instant lastModified) {
+    }
+
+    public record StorageStream(InputStream body, StorageObjectInfo info, String contentRange) {
+    }
+
+    @FunctionalInterface
+    public interface ContentWriter {
+        void writeTo(OutputStream out) throws IOException;
+    }
+
+    /**
+     * Буфер, который отдает SDK свое содержимое без {@code toByteArray()}; на повтор запроса
+     * открывается новый поток поверх тех же байт.
+     */
+    private static final class RequestBuffer extends ByteArrayOutputStream {
+        RequestBuffer(int size) {
+            super(size);
+        }
+
+        InputStream newInputStream() {
+            return new ByteArrayInputStream(buf, 0, count);
+        }
+    }
+
+    public static class RangeNotSatisfiableException extends RuntimeException {
+        public RangeNotSatisfiableException(String key, Throwable cause) {
+            super("Запрошенный диапазон недоступен для " + key, cause);
+        }
+    }
 }
@@ -19,11 +19,16 @@ public class PersonService {
     private final PersonRepository personRepository;
     private final RoleRepository roleRepository;
     private final PasswordEncoder passwordEncoder;
+    private final TokenService tokenService;
 
-    public PersonService(PersonRepository personRepository, RoleRepository roleRepository, PasswordEncoder passwordEncoder) {
+    public PersonService(PersonRepository personRepository,
+                         RoleRepository roleRepository,
+                         PasswordEncoder passwordEncoder,
+                         TokenService tokenService) {
         this.personRepository = personRepository;
         this.roleRepository = roleRepository;
         this.passwordEncoder = passwordEncoder;
+        this.tokenService = tokenService;
     }
 
     public List<PersonEntity> findAll() {
@@ -72,14 +77,21 @@ public class PersonService {
             RoleEntity role = roleRepository.findByName(r.name()).orElseThrow();
             person.getRoles().add(role);
         });
-        return personRepository.save(person);
+        PersonEntity saved = personRepository.saveAndFlush(person);
+        // старые сессии отзываются: после истечения access-токена пользователь войдет заново уже с новыми ролями
+        tokenService.revokeAll(personId);
+        return saved;
     }
 
     @Transactional
     public PersonEntity updateActive(Long personId, boolean active) {
         PersonEntity person = personRepository.findById(personId).orElseThrow();
         person.setActive(active);
-        return personRepository.save(person);
+        PersonEntity saved = personRepository.saveAndFlush(person);
+        if (!active) {
+            tokenService.revokeAll(personId);
+        }
+        return saved;
     }
 
     @Transactional
@@ -116,7 +128,8 @@ public class PersonService {
             return false;
         }
         person.setActive(false);
-        personRepository.save(person);
+        personRepository.saveAndFlush(person);
+        tokenService.revokeAll(personId);
         return true;
     }
 }
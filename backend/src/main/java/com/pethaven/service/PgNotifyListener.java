@@ -0,0 +1,159 @@
+package com.pethaven.service;
+
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Service;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * Одно выделенное соединение на узел, слушающее каналы {@code pg_notify}. Подписчики регистрируются
+ * при старте контекста и получают полезные нагрузки пачкой, сгруппированными по каналу.
+ */
+@Service
+public class PgNotifyListener implements SmartLifecycle {
+
+    private static final Logger log = LoggerFactory.getLogger(PgNotifyListener.class);
+    private static final int POLL_TIMEOUT_MS = 1000;
+    private static final long MAX_RECONNECT_DELAY_MS = 30_000;
+
+    private final DataSourceProperties dataSourceProperties;
+    private final Map<String, Consumer<List<String>>> handlers = new ConcurrentHashMap<>();
+    private final List<Runnable> reconnectHandlers = new ArrayList<>();
+    private volatile boolean running;
+    private Thread worker;
+
+    public PgNotifyListener(DataSourceProperties dataSourceProperties) {
+        this.dataSourceProperties = dataSourceProperties;
+    }
+
+    /**
+     * Подписывает обработчик на канал. {@code onReconnect} вызывается после восстановления соединения:
+     * события, пришедшие во время разрыва, потеряны, и подписчик может перечитать состояние.
+     */
+    public void subscribe(String channel, Consumer<List<String>> handler, Runnable onReconnect) {
+        handlers.put(channel, handler);
+        if (onReconnect != null) {
+            synchronized (reconnectHandlers) {
+                reconnectHandlers.add(onReconnect);
+            }
+        }
+    }
+
+    @Override
+    public synchronized void start() {
+        if (running || handlers.isEmpty()) {
+            return;
+        }
+        running = true;
+        worker = new Thread(this::listenLoop, "pg-notify-listener");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    @Override
+    public synchronized void stop() {
+        running = false;
+        if (worker != null) {
+            worker.interrupt();
+            worker = null;
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    private void listenLoop() {
+        long delay = 1000;
+        boolean reconnect = false;
+        while (running) {
+            try (Connection connection = openConnection()) {
+                try (Statement statement = connection.createStatement()) {
+                    for (String channel : handlers.keySet()) {
+                        statement.execute("LISTEN " + channel);
+                    }
+                }
+                log.info("Listening for {} notifications", handlers.keySet());
+                delay = 1000;
+                if (reconnect) {
+                    runReconnectHandlers();
+                }
+                reconnect = true;
+                PGConnection pg = connection.unwrap(PGConnection.class);
+                while (running) {
+                    PGNotification[] batch = pg.getNotifications(POLL_TIMEOUT_MS);
+                    if (batch != null && batch.length > 0) {
+                        dispatch(batch);
+                    }
+                }
+            } catch (SQLException e) {
+                if (!running) {
+                    return;
+                }
+                log.warn("pg_notify listener connection lost, reconnecting in {} ms: {}", delay, e.getMessage());
+                try {
+                    Thread.sleep(delay);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                delay = Math.min(delay * 2, MAX_RECONNECT_DELAY_MS);
+            }
+        }
+    }
+
+    private void dispatch(PGNotification[] batch) {
+        Map<String, List<String>> byChannel = new LinkedHashMap<>();
+        for (PGNotification notification : batch) {
+            byChannel.computeIfAbsent(notification.getName(), k -> new ArrayList<>()).add(notification.getParameter());
+        }
+        byChannel.forEach((channel, payloads) -> {
+            Consumer<List<String>> handler = handlers.get(channel);
+            if (handler == null) {
+                return;
+            }
+            try {
+                handler.accept(payloads);
+            } catch (RuntimeException e) {
+                log.warn("Failed to handle {} notifications on {}: {}", payloads.size(), channel, e.getMessage());
+            }
+        });
+    }
+
+    private void runReconnectHandlers() {
+        List<Runnable> snapshot;
+        synchronized (reconnectHandlers) {
+            snapshot = List.copyOf(reconnectHandlers);
+        }
+        for (Runnable handler : snapshot) {
+            try {
+                handler.run();
+            } catch (RuntimeException e) {
+                log.warn("Reconnect handler failed: {}", e.getMessage());
+            }
+        }
+    }
+
+    private Connection openConnection() throws SQLException {
+        // отдельное соединение вне пула: LISTEN держит его все время работы узла
+        return DriverManager.getConnection(
+                dataSourceProperties.determineUrl(),
+                dataSourceProperties.determineUsername(),
+                dataSourceProperties.determinePassword());
+    }
+}
@@ -1,89 +1,67 @@
 package com.pethaven.service;
 
-import com.pethaven.entity.PostAdoptionReportEntity;
-import com.pethaven.model.enums.NotificationType;
-import com.pethaven.model.enums.ReportStatus;
-import com.pethaven.repository.PostAdoptionReportReminderProjection;
+import com.pethaven.entity.NotificationEntity;
+import com.pethaven.repository.NotificationRepository;
 import com.pethaven.repository.PostAdoptionReportRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
-import org.springframework.transaction.annotation.Transactional;
 
-import java.time.LocalDate;
-import java.time.OffsetDateTime;
-import java.time.temporal.ChronoUnit;
 import java.util.List;
-import java.util.Map;
-import java.util.function.Function;
-import java.util.stream.Collectors;
 
+/**
+ * Ежедневная обработка постадопционных отчетов: просрочка одним UPDATE, напоминания — порциями,
+ * каждая в своей транзакции. Порции выбираются с {@code SKIP LOCKED}, а отметка last_reminded_at
+ * исключает повтор, поэтому запуск на нескольких узлах одновременно безопасен.
+ */
 @Component
 public class PostAdoptionReminderScheduler {
 
     private static final Logger log = LoggerFactory.getLogger(PostAdoptionReminderScheduler.class);
+    private static final int REMIND_DAYS_AHEAD = 3;
+    private static final String REMINDER_TITLE = "Напоминание об отчете";
+
     private final PostAdoptionReportRepository reportRepository;
+    private final NotificationRepository notificationRepository;
     private final NotificationService notificationService;
+    private final int chunkSize;
 
     public PostAdoptionReminderScheduler(PostAdoptionReportRepository reportRepository,
-                                         NotificationService notificationService) {
+                                         NotificationRepository notificationRepository,
+                                         NotificationService notificationService,
+                                         @Value("${reports.reminders.chunk-size:500}") int chunkSize) {
         this.reportRepository = reportRepository;
+        this.notificationRepository = notificationRepository;
         this.notificationService = notificationService;
+        this.chunkSize = Math.max(1, chunkSize);
     }
 
     // Ежедневно в 09:00
     @Scheduled(cron = "0 0 9 * * *")
-    @Transactional
     public void sendReminders() {
-        List<PostAdoptionReportReminderProjection> pending = reportRepository.findPendingForReminder();
-        if (pending.isEmpty()) {
-            log.info("Post-adoption reminders processed: 0");
-            return;
-        }
-
-        LocalDate today = LocalDate.now();
-        OffsetDateTime now = OffsetDateTime.now();
-        Map<Long, PostAdoptionReportReminderProjection> metaById = pending.stream()
-                .collect(Collectors.toMap(PostAdoptionReportReminderProjection::getId, Function.identity()));
+        long started = System.nanoTime();
+        int overdue = reportRepository.markOverdue();
+        long overdueMs = elapsedMs(started);
 
-        List<PostAdoptionReportEntity> reports = reportRepository.findAllById(metaById.keySet());
         int notified = 0;
-        int updated = 0;
-
-        for (PostAdoptionReportEntity report : reports) {
-            PostAdoptionReportReminderProjection meta = metaById.get(report.getId());
-            if (meta == null) {
-                continue;
-            }
-            boolean changed = false;
-
-            if (report.getDueDate() != null && report.getDueDate().isBefore(today) && report.getStatus() != ReportStatus.overdue) {
-                report.setStatus(ReportStatus.overdue);
-                changed = true;
-            }
+        int chunks = 0;
+        List<NotificationEntity> created;
+        do {
+            long chunkStarted = System.nanoTime();
+            created = notificationRepository.insertReportReminders(REMIND_DAYS_AHEAD, chunkSize, REMINDER_TITLE);
+            notificationService.dispatchAfterCommit(created);
+            chunks++;
+            notified += created.size();
+            log.debug("Post-adoption reminder chunk {}: {} notifications in {} ms", chunks, created.size(), elapsedMs(chunkStarted));
+        } while (created.size() == chunkSize);
 
-            long daysLeft = report.getDueDate() != null ? ChronoUnit.DAYS.between(today, report.getDueDate()) : Long.MAX_VALUE;
-            boolean alreadyRemindedToday = report.getLastRemindedAt() != null && !report.getLastRemindedAt().toLocalDate().isBefore(today);
-
-            if (daysLeft <= 3 && daysLeft >= 0 && !alreadyRemindedToday && meta.getCandidateId() != null) {
-                notificationService.push(
-                        meta.getCandidateId(),
-                        NotificationType.report_due,
-                        "Напоминание об отчете",
-                        String.format("Отчет по договору #%d. Срок: %s", report.getAgreementId(), report.getDueDate())
-                );
-                report.setLastRemindedAt(now);
-                notified++;
-                changed = true;
-            }
-
-            if (changed) {
-                updated++;
-                reportRepository.save(report);
-            }
-        }
+        log.info("Post-adoption reminders processed: {} reports marked overdue in {} ms, {} notifications in {} chunks, total {} ms",
+                overdue, overdueMs, notified, chunks, elapsedMs(started));
+    }
 
-        log.info("Post-adoption reminders processed: {} notifications, {} reports updated", notified, updated);
+    private static long elapsedMs(long startedNanos) {
+        return (System.nanoTime() - startedNanos) / 1_000_000;
     }
 }
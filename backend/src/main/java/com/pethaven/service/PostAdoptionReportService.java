@@ -3,12 +3,14 @@ package com.pethaven.service;
 import com.pethaven.dto.PostAdoptionReportDto;
 import com.pethaven.dto.PostAdoptionReportRequest;
 import com.pethaven.dto.PostAdoptionReportResponse;
+import com.pethaven.dto.MediaUploadCompleteRequest;
+import com.pethaven.dto.PresignedUploadRequest;
+import com.pethaven.dto.PresignedUrlResponse;
 import com.pethaven.dto.ReportMediaResponse;
 import com.pethaven.entity.PostAdoptionReportEntity;
 import com.pethaven.entity.ReportMediaEntity;
 import com.pethaven.mapper.ReportMapper;
 import com.pethaven.model.enums.ReportStatus;
-import com.pethaven.repository.PersonRepository;
 import com.pethaven.repository.PostAdoptionReportRepository;
 import com.pethaven.repository.ReportMediaRepository;
 import org.springframework.security.access.AccessDeniedException;
@@ -17,6 +19,7 @@ import org.springframework.web.multipart.MultipartFile;
 
 import java.time.LocalDate;
 import java.util.List;
+import java.util.Map;
 import java.util.NoSuchElementException;
 
 @Service
@@ -27,23 +30,23 @@ public class PostAdoptionReportService {
     private final ObjectStorageService storageService;
     private final SettingService settingService;
     private final NotificationService notificationService;
-    private final PersonRepository personRepository;
     private final ReportMapper reportMapper;
+    private final MediaVariantService mediaVariantService;
 
     public PostAdoptionReportService(PostAdoptionReportRepository reportRepository,
                                      ReportMediaRepository reportMediaRepository,
                                      ObjectStorageService storageService,
                                      SettingService settingService,
                                      NotificationService notificationService,
-                                     PersonRepository personRepository,
-                                     ReportMapper reportMapper) {
+                                     ReportMapper reportMapper,
+                                     MediaVariantService mediaVariantService) {
         this.reportRepository = reportRepository;
         this.reportMediaRepository = reportMediaRepository;
         this.storageService = storageService;
         this.settingService = settingService;
         this.notificationService = notificationService;
-        this.personRepository = personRepository;
         this.reportMapper = reportMapper;
+        this.mediaVariantService = mediaVariantService;
     }
 
     public List<PostAdoptionReportDto> listForCandidate(Long candidateId) {
@@ -162,12 +165,41 @@ public class PostAdoptionReportService {
         }
         PostAdoptionReportEntity report = reportRepository.findByIdAndCandidate(reportId, candidateId)
                 .orElseThrow(() -> new AccessDeniedException("Отчёт не найден или не принадлежит кандидату"));
-        String key = storageService.uploadReportMedia(reportId, file);
+        String fileName = file.getOriginalFilename();
+        String key = storageService.uploadReportMedia(reportId, file, (uploaded, total) ->
+                notificationService.sendEvent(candidateId, Map.of(
+                        "type", "upload_progress",
+                        "reportId", reportId,
+                        "fileName", fileName != null ? fileName : "",
+                        "uploadedBytes", uploaded,
+                        "totalBytes", total)));
+        return attachMedia(report, key, description);
+    }
+
+    public PresignedUrlResponse presignMediaUpload(Long reportId, PresignedUploadRequest request, Long candidateId) {
+        reportRepository.findByIdAndCandidate(reportId, candidateId)
+                .orElseThrow(() -> new AccessDeniedException("Отчёт не найден или не принадлежит кандидату"));
+        return storageService.presignUpload(storageService.reportMediaKey(reportId, request.fileName()), request.contentType());
+    }
+
+    public ReportMediaResponse completeMediaUpload(Long reportId, MediaUploadCompleteRequest request, Long candidateId) {
+        PostAdoptionReportEntity report = reportRepository.findByIdAndCandidate(reportId, candidateId)
+                .orElseThrow(() -> new AccessDeniedException("Отчёт не найден или не принадлежит кандидату"));
+        storageService.verifyUploaded(request.key(), storageService.reportMediaPrefix(reportId));
+        if (reportMediaRepository.existsByStorageKey(request.key())) {
+            throw new IllegalStateException("Файл уже привязан к отчёту");
+        }
+        return attachMedia(report, request.key(), request.description());
+    }
+
+    private ReportMediaResponse attachMedia(PostAdoptionReportEntity report, String key, String description) {
         ReportMediaEntity media = new ReportMediaEntity();
         media.setReport(report);
         media.setStorageKey(key);
         media.setDescription(description);
-        return reportMapper.toMediaResponse(reportMediaRepository.save(media));
+        ReportMediaEntity saved = reportMediaRepository.save(media);
+        mediaVariantService.scheduleReportMedia(saved.getId(), key);
+        return reportMapper.toMediaResponse(saved);
     }
 
     private void applyRequest(PostAdoptionReportEntity entity, PostAdoptionReportRequest request) {
@@ -210,12 +242,11 @@ public class PostAdoptionReportService {
     }
 
     private void notifyCoordinators(Long reportId) {
-        personRepository.findActiveByRole(com.pethaven.model.enums.SystemRole.coordinator.name())
-                .forEach(person -> notificationService.push(
-                        person.getId(),
-                        com.pethaven.model.enums.NotificationType.report_due,
-                        "Новый постадопционный отчёт",
-                        "Поступил отчёт #" + reportId + " от кандидата"
-                ));
+        notificationService.pushToRole(
+                com.pethaven.model.enums.SystemRole.coordinator,
+                com.pethaven.model.enums.NotificationType.report_due,
+                "Новый постадопционный отчёт",
+                "Поступил отчёт #" + reportId + " от кандидата"
+        );
     }
 }
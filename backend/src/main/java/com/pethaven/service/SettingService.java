@@ -2,36 +2,53 @@ package com.pethaven.service;
 
 import com.pethaven.entity.SystemSettingEntity;
 import com.pethaven.repository.SystemSettingRepository;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
-import java.util.Optional;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
 
+/**
+ * Настройки читаются из кэша с уже разобранными значениями. Таблица целиком перечитывается после
+ * {@link #set}, по {@code pg_notify} от триггера на {@code system_setting} (изменения с других узлов)
+ * и при чтении, если снимок старше {@code settings.cache.max-staleness}.
+ */
 @Service
 public class SettingService {
     public static final String REPORT_OFFSET_DAYS = "report_offset_days";
     public static final String REPORT_FILL_DAYS = "report_fill_days";
     public static final String SPECIES_LIST = "species_list";
+    public static final String CHANNEL = "system_setting_changed";
 
     private final SystemSettingRepository repository;
+    private final long maxStalenessNanos;
+    private volatile Snapshot snapshot = new Snapshot(Map.of(), Long.MIN_VALUE);
 
-    public SettingService(SystemSettingRepository repository) {
+    public SettingService(SystemSettingRepository repository,
+                          PgNotifyListener pgNotifyListener,
+                          @Value("${settings.cache.max-staleness:5m}") Duration maxStaleness) {
         this.repository = repository;
+        this.maxStalenessNanos = maxStaleness.toNanos();
+        pgNotifyListener.subscribe(CHANNEL, keys -> reload(), this::reload);
     }
 
     public int getInt(String key, int defaultValue) {
-        return parseInt(repository.findById(key).map(SystemSettingEntity::getValue), defaultValue);
+        CachedSetting setting = current().get(key);
+        return setting == null || setting.intValue() == null ? defaultValue : setting.intValue();
     }
 
     public String get(String key, String defaultValue) {
-        return repository.findById(key).map(SystemSettingEntity::getValue).orElse(defaultValue);
+        CachedSetting setting = current().get(key);
+        return setting == null || setting.raw() == null ? defaultValue : setting.raw();
     }
 
     public java.util.List<String> getList(String key) {
-        return repository.findById(key)
-                .map(SystemSettingEntity::getValue)
-                .map(this::splitList)
-                .orElseGet(java.util.List::of);
+        CachedSetting setting = current().get(key);
+        return setting == null ? java.util.List.of() : setting.list();
     }
 
     @Transactional
@@ -40,6 +57,7 @@ public class SettingService {
         entity.setKey(key);
         entity.setValue(value);
         repository.save(entity);
+        reloadAfterCommit();
     }
 
     @Transactional
@@ -64,13 +82,53 @@ public class SettingService {
         return Math.max(1, getInt(REPORT_FILL_DAYS, 7));
     }
 
-    private int parseInt(Optional<String> val, int defaultValue) {
-        if (val.isEmpty())
-            return defaultValue;
+    /**
+     * Перечитывает все настройки одним запросом: таблица маленькая, а полный снимок
+     * не оставляет в кэше удаленных ключей.
+     */
+    public synchronized void reload() {
+        Map<String, CachedSetting> values = new HashMap<>();
+        for (SystemSettingEntity entity : repository.findAll()) {
+            String raw = entity.getValue();
+            values.put(entity.getKey(), new CachedSetting(raw, parseInt(raw), splitList(raw)));
+        }
+        snapshot = new Snapshot(Map.copyOf(values), System.nanoTime());
+    }
+
+    private Map<String, CachedSetting> current() {
+        Snapshot current = snapshot;
+        if (current.loadedAt() == Long.MIN_VALUE || System.nanoTime() - current.loadedAt() > maxStalenessNanos) {
+            synchronized (this) {
+                if (snapshot == current) {
+                    reload();
+                }
+            }
+            current = snapshot;
+        }
+        return current.values();
+    }
+
+    private void reloadAfterCommit() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    reload();
+                }
+            });
+        } else {
+            reload();
+        }
+    }
+
+    private Integer parseInt(String raw) {
+        if (raw == null) {
+            return null;
+        }
         try {
-            return Integer.parseInt(val.get());
+            return Integer.parseInt(raw.trim());
         } catch (NumberFormatException e) {
-            return defaultValue;
+            return null;
         }
     }
 
@@ -83,4 +141,10 @@ public class SettingService {
                 .filter(s -> !s.isBlank())
                 .toList();
     }
+
+    private record CachedSetting(String raw, Integer intValue, java.util.List<String> list) {
+    }
+
+    private record Snapshot(Map<String, CachedSetting> values, long loadedAt) {
+    }
 }
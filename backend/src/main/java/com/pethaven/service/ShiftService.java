@@ -1,26 +1,30 @@
 package com.pethaven.service;
 
+import com.pethaven.dto.ShiftBulkCloseRequest;
+import com.pethaven.dto.ShiftBulkCloseResponse;
+import com.pethaven.dto.ShiftCloseSummary;
 import com.pethaven.dto.ShiftCreateRequest;
 import com.pethaven.dto.ShiftResponse;
+import com.pethaven.dto.ShiftRosterResponse;
+import com.pethaven.dto.ShiftRosterVolunteer;
 import com.pethaven.dto.ShiftTaskView;
 import com.pethaven.dto.TaskShiftAssignmentRequest;
 import com.pethaven.dto.TaskShiftUpdateRequest;
 import com.pethaven.dto.VolunteerShiftResponse;
-import com.pethaven.entity.AnimalEntity;
 import com.pethaven.entity.ShiftEntity;
 import com.pethaven.entity.ShiftVolunteerEntity;
 import com.pethaven.entity.TaskEntity;
 import com.pethaven.entity.TaskShiftEntity;
 import com.pethaven.entity.TaskShiftId;
 import com.pethaven.entity.ShiftVolunteerId;
-import com.pethaven.entity.PersonEntity;
 import com.pethaven.model.enums.AttendanceStatus;
 import com.pethaven.model.enums.ShiftType;
 import com.pethaven.model.enums.TaskStatus;
 import com.pethaven.mapper.ShiftMapper;
-import com.pethaven.repository.AnimalRepository;
-import com.pethaven.repository.PersonRepository;
+import com.pethaven.repository.ShiftCloseProjection;
 import com.pethaven.repository.ShiftRepository;
+import com.pethaven.repository.ShiftRosterVolunteerProjection;
+import com.pethaven.repository.ShiftTaskProjection;
 import com.pethaven.repository.ShiftVolunteerRepository;
 import com.pethaven.repository.TaskRepository;
 import com.pethaven.repository.TaskShiftRepository;
@@ -29,6 +33,9 @@ import org.springframework.transaction.annotation.Transactional;
 import org.springframework.security.access.AccessDeniedException;
 
 import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
 import java.time.OffsetDateTime;
 import java.time.LocalDate;
 import java.util.Collection;
@@ -36,36 +43,32 @@ import java.util.Comparator;
 import java.util.List;
 import java.util.NoSuchElementException;
 import java.util.Map;
-import java.util.Objects;
-import java.util.Optional;
 import java.util.Set;
+import java.util.TreeSet;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
 public class ShiftService {
 
+    private static final int ROSTER_MAX_DAYS = 42;
+    private static final int BULK_CLOSE_MAX_DAYS = 92;
+
     private final ShiftRepository shiftRepository;
     private final ShiftVolunteerRepository shiftVolunteerRepository;
     private final TaskShiftRepository taskShiftRepository;
     private final TaskRepository taskRepository;
-    private final AnimalRepository animalRepository;
-    private final PersonRepository personRepository;
     private final ShiftMapper shiftMapper;
 
     public ShiftService(ShiftRepository shiftRepository,
                         ShiftVolunteerRepository shiftVolunteerRepository,
                         TaskShiftRepository taskShiftRepository,
                         TaskRepository taskRepository,
-                        AnimalRepository animalRepository,
-                        PersonRepository personRepository,
                         ShiftMapper shiftMapper) {
         this.shiftRepository = shiftRepository;
         this.shiftVolunteerRepository = shiftVolunteerRepository;
         this.taskShiftRepository = taskShiftRepository;
         this.taskRepository = taskRepository;
-        this.animalRepository = animalRepository;
-        this.personRepository = personRepository;
         this.shiftMapper = shiftMapper;
     }
 
@@ -78,45 +81,14 @@ public class ShiftService {
         return shiftMapper.toResponse(shiftRepository.save(shift));
     }
 
+    /**
+     * Записывает волонтера на смену одним вызовом {@code shift_signup}. При заполненной смене
+     * запись попадает в лист ожидания; возвращается итоговый статус.
+     */
     @Transactional
-    public void signup(Long shiftId, Long volunteerId) {
+    public AttendanceStatus signup(Long shiftId, Long volunteerId) {
         try {
-            ShiftVolunteerId id = new ShiftVolunteerId(shiftId, volunteerId);
-            Optional<ShiftVolunteerEntity> existing = shiftVolunteerRepository.findById(id);
-            if (existing.isPresent()) {
-                ShiftVolunteerEntity entity = existing.get();
-                if (entity.getAttendanceStatus() == AttendanceStatus.absent) {
-                    entity.setAttendanceStatus(AttendanceStatus.signed_up);
-                    entity.setCancelReason(null);
-                    entity.setSubmittedAt(null);
-                    entity.setApprovedAt(null);
-                    entity.setWorkedHours(0);
-                    shiftVolunteerRepository.save(entity);
-                    return;
-                } else {
-                    throw new IllegalStateException("Вы уже записаны на эту смену");
-                }
-            }
-            ShiftEntity shift = shiftRepository.findById(shiftId)
-                    .orElseThrow(() -> new NoSuchElementException("Смена не найдена"));
-            if (shift.getClosedAt() != null) {
-                throw new IllegalStateException("Нельзя записаться на закрытую смену");
-            }
-            LocalDate date = shift.getShiftDate();
-            List<ShiftVolunteerEntity> myShifts = shiftVolunteerRepository.findByIdVolunteerId(volunteerId);
-            Set<Long> otherShiftIds = myShifts.stream()
-                    .filter(v -> !v.getId().getShiftId().equals(shiftId) && v.getAttendanceStatus() != AttendanceStatus.absent)
-                    .map(v -> v.getId().getShiftId())
-                    .collect(Collectors.toSet());
-            if (!otherShiftIds.isEmpty()) {
-                Map<Long, ShiftEntity> other = shiftRepository.findAllById(otherShiftIds).stream()
-                        .collect(Collectors.toMap(ShiftEntity::getId, Function.identity()));
-                boolean conflict = other.values().stream().anyMatch(s -> date.equals(s.getShiftDate()));
-                if (conflict) {
-                    throw new IllegalStateException("Вы уже записаны на другую смену в этот день");
-                }
-            }
-            shiftRepository.signup(shiftId, volunteerId);
+            return AttendanceStatus.valueOf(shiftRepository.signup(shiftId, volunteerId));
         } catch (org.springframework.dao.DataAccessException ex) {
             throw new IllegalStateException(toUserMessage(ex));
         }
@@ -147,10 +119,13 @@ public class ShiftService {
         if (normalized.contains("Only volunteers can sign up for shifts")) {
             return "Записаться на смену может только волонтёр";
         }
-        if (normalized.contains("violates foreign key constraint") && normalized.contains("shift")) {
+        if (normalized.contains("Shift not found")) {
             return "Смена не найдена";
         }
-        if (normalized.contains("not a procedure") && normalized.contains("signup_for_shift")) {
+        if (normalized.contains("Shift is closed")) {
+            return "Нельзя записаться на закрытую смену";
+        }
+        if (normalized.contains("function shift_signup") && normalized.contains("does not exist")) {
             return "Сервис записи на смену недоступен: не применены миграции БД";
         }
 
@@ -162,7 +137,46 @@ public class ShiftService {
     }
 
     public List<ShiftTaskView> getShiftTasks(Long shiftId) {
-        return toViews(taskShiftRepository.findByIdShiftId(shiftId));
+        return tasksByShiftId(List.of(shiftId)).getOrDefault(shiftId, List.of());
+    }
+
+    /**
+     * Смены с датой в [from, to] вместе с волонтерами и задачами — три запроса на любое число смен.
+     */
+    @Transactional(readOnly = true)
+    public List<ShiftRosterResponse> getRoster(LocalDate from, LocalDate to) {
+        if (to.isBefore(from)) {
+            throw new IllegalArgumentException("Дата окончания раньше даты начала");
+        }
+        if (ChronoUnit.DAYS.between(from, to) >= ROSTER_MAX_DAYS) {
+            throw new IllegalArgumentException("Период расписания не может превышать " + ROSTER_MAX_DAYS + " дней");
+        }
+        List<ShiftEntity> shifts = shiftRepository.findByShiftDateBetweenOrderByShiftDateAscIdAsc(from, to);
+        if (shifts.isEmpty()) {
+            return List.of();
+        }
+        Map<Long, List<ShiftRosterVolunteer>> volunteersByShift = shiftVolunteerRepository.findRosterInWindow(from, to).stream()
+                .collect(Collectors.groupingBy(ShiftRosterVolunteerProjection::getShiftId,
+                        Collectors.mapping(row -> new ShiftRosterVolunteer(
+                                row.getVolunteerId(),
+                                row.getFirstName(),
+                                row.getLastName(),
+                                row.getAttendanceStatus() != null ? AttendanceStatus.valueOf(row.getAttendanceStatus()) : null,
+                                toOffsetDateTime(row.getSignedUpAt()),
+                                toOffsetDateTime(row.getSubmittedAt()),
+                                toOffsetDateTime(row.getApprovedAt()),
+                                row.getWorkedHours()), Collectors.toList())));
+        Map<Long, List<ShiftTaskView>> tasksByShift = groupByShift(taskShiftRepository.findViewsInWindow(from, to));
+        return shifts.stream()
+                .map(shift -> new ShiftRosterResponse(
+                        shift.getId(),
+                        shift.getShiftDate(),
+                        shift.getShiftType(),
+                        shift.getClosedAt(),
+                        shift.getCapacity(),
+                        volunteersByShift.getOrDefault(shift.getId(), List.of()),
+                        tasksByShift.getOrDefault(shift.getId(), List.of())))
+                .toList();
     }
 
     public TaskShiftEntity assignTask(TaskShiftAssignmentRequest request) {
@@ -181,17 +195,27 @@ public class ShiftService {
         refreshTaskStatus(taskId);
     }
 
+    /**
+     * Отписка освобождает место: первый из листа ожидания переводится в записанные в той же транзакции.
+     */
+    @Transactional
     public ShiftVolunteerEntity unsubscribe(Long shiftId, Long volunteerId, String reason) {
+        lockShift(shiftId);
         ShiftVolunteerEntity entity = shiftVolunteerRepository.findById(new ShiftVolunteerId(shiftId, volunteerId))
                 .orElseThrow(() -> new NoSuchElementException("Смена или волонтёр не найдены"));
         if (entity.getApprovedAt() != null) {
             throw new IllegalStateException("Смена уже закрыта, отписка невозможна");
         }
+        boolean heldSeat = holdsSeat(entity.getAttendanceStatus());
         entity.setAttendanceStatus(AttendanceStatus.absent);
         entity.setCancelReason(reason);
         entity.setSubmittedAt(null);
         entity.setWorkedHours(0);
-        return shiftVolunteerRepository.save(entity);
+        ShiftVolunteerEntity saved = shiftVolunteerRepository.saveAndFlush(entity);
+        if (heldSeat) {
+            shiftRepository.promoteWaitlist(shiftId);
+        }
+        return saved;
     }
 
     public ShiftTaskView updateTask(Long shiftId, Long taskId, TaskShiftUpdateRequest request, Long actorId, boolean canManageAny) {
@@ -208,7 +232,7 @@ public class ShiftService {
         if (!canManageAny) {
             ShiftVolunteerEntity actorShift = shiftVolunteerRepository.findById(new ShiftVolunteerId(shiftId, actorId))
                     .orElse(null);
-            if (actorShift == null || actorShift.getAttendanceStatus() == AttendanceStatus.absent) {
+            if (actorShift == null || !holdsSeat(actorShift.getAttendanceStatus())) {
                 throw new AccessDeniedException("Недостаточно прав для изменения задачи");
             }
         }
@@ -229,14 +253,32 @@ public class ShiftService {
         if (request.workedHours() != null) {
             assignment.setWorkedHours(request.workedHours());
         }
-        TaskShiftEntity saved = taskShiftRepository.save(assignment);
+        taskShiftRepository.saveAndFlush(assignment);
         refreshTaskStatus(taskId);
-        return toViews(List.of(saved)).stream().findFirst().orElseThrow();
+        return taskShiftRepository.findView(taskId, shiftId).stream()
+                .map(ShiftService::toView)
+                .findFirst()
+                .orElseThrow();
     }
 
+    @Transactional
     public ShiftVolunteerEntity markAttendance(Long shiftId, Long volunteerId, AttendanceStatus status, Integer workedHours) {
+        ShiftEntity shift = lockShift(shiftId);
         ShiftVolunteerEntity entity = shiftVolunteerRepository.findById(new ShiftVolunteerId(shiftId, volunteerId))
                 .orElseThrow(() -> new NoSuchElementException("Смена или волонтёр не найдены"));
+        AttendanceStatus current = entity.getAttendanceStatus();
+        if (status == AttendanceStatus.waitlisted && current != AttendanceStatus.waitlisted) {
+            throw new IllegalArgumentException("В лист ожидания волонтёр попадает только при записи на смену");
+        }
+        if (current == AttendanceStatus.absent && status != AttendanceStatus.absent) {
+            // повторная запись проверяет лимит мест и другие смены в этот день
+            throw new IllegalStateException("Волонтёр отписан от смены, ему нужно записаться заново");
+        }
+        if (current == AttendanceStatus.waitlisted && holdsSeat(status) && shift.getCapacity() != null
+                && shiftVolunteerRepository.countSeatsTaken(shiftId) >= shift.getCapacity()) {
+            throw new IllegalStateException("На смене нет свободных мест");
+        }
+        boolean releasesSeat = holdsSeat(current) && !holdsSeat(status);
         entity.setAttendanceStatus(status);
         if (status == AttendanceStatus.attended && entity.getSignedUpAt() == null) {
             entity.setSignedUpAt(OffsetDateTime.now());
@@ -244,7 +286,11 @@ public class ShiftService {
         if (workedHours != null) {
             entity.setWorkedHours(workedHours);
         }
-        return shiftVolunteerRepository.save(entity);
+        ShiftVolunteerEntity saved = shiftVolunteerRepository.saveAndFlush(entity);
+        if (releasesSeat) {
+            shiftRepository.promoteWaitlist(shiftId);
+        }
+        return saved;
     }
 
     public ShiftVolunteerEntity submitShift(Long shiftId, Long volunteerId, Integer workedHours) {
@@ -258,6 +304,9 @@ public class ShiftService {
         if (entity.getAttendanceStatus() == AttendanceStatus.absent) {
             throw new IllegalStateException("Нельзя сдать смену со статусом 'отсутствовал'");
         }
+        if (entity.getAttendanceStatus() == AttendanceStatus.waitlisted) {
+            throw new IllegalStateException("Нельзя сдать смену из листа ожидания");
+        }
         List<TaskShiftEntity> assignments = taskShiftRepository.findByIdShiftId(shiftId);
         boolean hasIncomplete = !assignments.isEmpty() && assignments.stream().anyMatch(t -> !"done".equalsIgnoreCase(t.getTaskState()));
         if (hasIncomplete) {
@@ -285,29 +334,52 @@ public class ShiftService {
 
     @Transactional
     public ShiftResponse closeShift(Long shiftId, Integer workedHoursOverride) {
+        List<ShiftCloseProjection> closed = shiftRepository.closeAndApprove(List.of(shiftId), workedHoursOverride);
         ShiftEntity shift = shiftRepository.findById(shiftId)
                 .orElseThrow(() -> new NoSuchElementException("Смена не найдена"));
-        List<TaskShiftEntity> assignments = taskShiftRepository.findByIdShiftId(shiftId);
-        int hours = workedHoursOverride != null ? workedHoursOverride : assignments.stream()
-                .filter(t -> "done".equalsIgnoreCase(t.getTaskState()))
-                .map(TaskShiftEntity::getWorkedHours)
-                .filter(Objects::nonNull)
-                .mapToInt(Integer::intValue)
-                .sum();
-        List<ShiftVolunteerEntity> vols = shiftVolunteerRepository.findByIdShiftId(shiftId);
-        OffsetDateTime now = OffsetDateTime.now();
-        for (ShiftVolunteerEntity v : vols) {
-            if (v.getApprovedAt() != null) continue;
-            v.setAttendanceStatus(AttendanceStatus.attended);
-            v.setApprovedAt(now);
-            v.setWorkedHours(hours);
-            shiftVolunteerRepository.saveAndFlush(v);
-        }
-        shift.setClosedAt(now);
-        shiftRepository.saveAndFlush(shift);
+        if (closed.isEmpty()) {
+            throw new IllegalStateException("Смена уже закрыта");
+        }
         return shiftMapper.toResponse(shift);
     }
 
+    /**
+     * Закрывает открытые смены из списка и периода и подтверждает их записи одним UPDATE на все смены.
+     */
+    @Transactional
+    public ShiftBulkCloseResponse closeShifts(ShiftBulkCloseRequest request) {
+        boolean hasIds = request.shiftIds() != null && !request.shiftIds().isEmpty();
+        boolean hasPeriod = request.from() != null || request.to() != null;
+        if (!hasIds && !hasPeriod) {
+            throw new IllegalArgumentException("Укажите смены или период");
+        }
+        Set<Long> shiftIds = new TreeSet<>();
+        if (hasIds) {
+            shiftIds.addAll(request.shiftIds());
+        }
+        if (hasPeriod) {
+            if (request.from() == null || request.to() == null) {
+                throw new IllegalArgumentException("Укажите обе даты периода");
+            }
+            if (request.to().isBefore(request.from())) {
+                throw new IllegalArgumentException("Дата окончания раньше даты начала");
+            }
+            if (ChronoUnit.DAYS.between(request.from(), request.to()) >= BULK_CLOSE_MAX_DAYS) {
+                throw new IllegalArgumentException("Период закрытия не может превышать " + BULK_CLOSE_MAX_DAYS + " дней");
+            }
+            shiftIds.addAll(shiftRepository.findOpenIdsBetween(request.from(), request.to()));
+        }
+        if (shiftIds.isEmpty()) {
+            return new ShiftBulkCloseResponse(0, 0, List.of());
+        }
+        List<ShiftCloseSummary> shifts = shiftRepository.closeAndApprove(shiftIds, request.workedHours()).stream()
+                .map(row -> new ShiftCloseSummary(row.getShiftId(), row.getWorkedHours(),
+                        row.getApproved() != null ? row.getApproved() : 0))
+                .toList();
+        long approved = shifts.stream().mapToLong(ShiftCloseSummary::volunteersApproved).sum();
+        return new ShiftBulkCloseResponse(shifts.size(), approved, shifts);
+    }
+
     public List<VolunteerShiftResponse> getVolunteerShifts(Long volunteerId) {
         List<ShiftVolunteerEntity> signups = shiftVolunteerRepository.findByIdVolunteerId(volunteerId);
         if (signups.isEmpty()) {
@@ -340,6 +412,15 @@ public class ShiftService {
                 .toList();
     }
 
+    private ShiftEntity lockShift(Long shiftId) {
+        return shiftRepository.findByIdForUpdate(shiftId)
+                .orElseThrow(() -> new NoSuchElementException("Смена не найдена"));
+    }
+
+    private static boolean holdsSeat(AttendanceStatus status) {
+        return status == AttendanceStatus.signed_up || status == AttendanceStatus.attended;
+    }
+
     private void refreshTaskStatus(Long taskId) {
         TaskEntity task = taskRepository.findById(taskId).orElse(null);
         if (task == null || task.getStatus() == TaskStatus.cancelled) {
@@ -360,66 +441,43 @@ public class ShiftService {
     }
 
     private Map<Long, List<ShiftTaskView>> tasksByShiftId(Collection<Long> shiftIds) {
-        List<TaskShiftEntity> assignments = taskShiftRepository.findByIdShiftIdIn(shiftIds);
-        Map<Long, List<TaskShiftEntity>> byShift = assignments.stream()
-                .collect(Collectors.groupingBy(a -> a.getId().getShiftId()));
-        Map<Long, List<ShiftTaskView>> result = new java.util.HashMap<>();
-        byShift.forEach((shiftId, items) -> result.put(shiftId, toViews(items)));
-        return result;
+        return groupByShift(taskShiftRepository.findViewsByShiftIds(shiftIds));
     }
 
-    private List<ShiftTaskView> toViews(List<TaskShiftEntity> assignments) {
-        if (assignments == null || assignments.isEmpty()) {
-            return List.of();
+    private static Map<Long, List<ShiftTaskView>> groupByShift(List<ShiftTaskProjection> rows) {
+        return rows.stream()
+                .map(ShiftService::toView)
+                .collect(Collectors.groupingBy(ShiftTaskView::shiftId));
+    }
+
+    private static ShiftTaskView toView(ShiftTaskProjection row) {
+        Long actorId = row.getCompletedBy();
+        String actorName = null;
+        if (actorId != null) {
+            actorName = ((row.getCompletedByFirstName() != null ? row.getCompletedByFirstName() : "") + " "
+                    + (row.getCompletedByLastName() != null ? row.getCompletedByLastName() : "")).trim();
+            if (actorName.isBlank()) {
+                actorName = "ID " + actorId;
+            }
         }
-        Set<Long> taskIds = assignments.stream()
-                .map(a -> a.getId().getTaskId())
-                .collect(Collectors.toSet());
-        Set<Long> actorIds = assignments.stream()
-                .map(TaskShiftEntity::getCompletedBy)
-                .filter(Objects::nonNull)
-                .collect(Collectors.toSet());
-        Map<Long, TaskEntity> taskMap = taskRepository.findAllById(taskIds).stream()
-                .collect(Collectors.toMap(TaskEntity::getId, Function.identity()));
-        Set<Long> animalIds = taskMap.values().stream()
-                .map(TaskEntity::getAnimalId)
-                .filter(Objects::nonNull)
-                .collect(Collectors.toSet());
-        Map<Long, AnimalEntity> animalMap = animalRepository.findAllById(animalIds).stream()
-                .collect(Collectors.toMap(AnimalEntity::getId, Function.identity()));
-        Map<Long, String> actorNames = personRepository.findAllById(actorIds).stream()
-                .collect(Collectors.toMap(PersonEntity::getId, p -> {
-                    String name = ((p.getFirstName() != null ? p.getFirstName() : "") + " " + (p.getLastName() != null ? p.getLastName() : "")).trim();
-                    if (name.isBlank()) {
-                        name = "ID " + p.getId();
-                    }
-                    return name;
-                }));
-
-        return assignments.stream()
-                .map(a -> {
-                    TaskEntity task = taskMap.get(a.getId().getTaskId());
-                    Long animalId = task != null ? task.getAnimalId() : null;
-                    String animalName = animalId != null && animalMap.containsKey(animalId)
-                            ? animalMap.get(animalId).getName()
-                            : null;
-                    Long actorId = a.getCompletedBy();
-                    return new ShiftTaskView(
-                            a.getId().getTaskId(),
-                            a.getId().getShiftId(),
-                            task != null ? task.getTitle() : ("Задача #" + a.getId().getTaskId()),
-                            task != null ? task.getDescription() : null,
-                            animalId,
-                            animalName,
-                            a.getProgressNotes(),
-                            a.getTaskState(),
-                            a.getCompletedAt(),
-                            actorId,
-                            actorId != null ? actorNames.get(actorId) : null,
-                            a.getWorkedHours()
-                    );
-                })
-                .toList();
+        return new ShiftTaskView(
+                row.getTaskId(),
+                row.getShiftId(),
+                row.getTitle() != null ? row.getTitle() : ("Задача #" + row.getTaskId()),
+                row.getDescription(),
+                row.getAnimalId(),
+                row.getAnimalName(),
+                row.getProgressNotes(),
+                row.getTaskState(),
+                toOffsetDateTime(row.getCompletedAt()),
+                actorId,
+                actorName,
+                row.getWorkedHours()
+        );
+    }
+
+    private static OffsetDateTime toOffsetDateTime(Instant instant) {
+        return instant != null ? OffsetDateTime.ofInstant(instant, ZoneId.systemDefault()) : null;
     }
 
     private int resolveHours(Long shiftId, Integer requested, ShiftVolunteerEntity entity, OffsetDateTime endTime) {
@@ -1,25 +1,173 @@
 package com.pethaven.service;
 
+import com.pethaven.entity.RefreshTokenEntity;
 import com.pethaven.model.enums.SystemRole;
+import com.pethaven.repository.RefreshTokenRepository;
 import com.pethaven.security.JwtService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.Base64;
+import java.util.HexFormat;
+import java.util.Optional;
 import java.util.Set;
+import java.util.UUID;
 
+/**
+ * Выдача пары токенов: короткоживущий JWT для запросов и refresh-токен, который хранится в БД
+ * только в виде SHA-256 и меняется при каждом использовании. Повторное предъявление уже
+ * использованного refresh-токена считается кражей и отзывает всю цепочку — кроме короткого окна
+ * после использования, в котором одновременно обновляются несколько вкладок одного браузера: там
+ * выдается только access-токен. Просроченные и отозванные токены периодически удаляются.
+ */
 @Service
 public class TokenService {
 
+    private static final Logger log = LoggerFactory.getLogger(TokenService.class);
+    private static final int REFRESH_TOKEN_BYTES = 32;
+    private static final int PURGE_BATCH_SIZE = 1000;
+    private static final int PURGE_MAX_BATCHES = 100;
+
     private final JwtService jwtService;
+    private final RefreshTokenRepository refreshTokenRepository;
+    private final long refreshTtlSeconds;
+    private final long reuseGraceSeconds;
+    private final Duration purgeRetention;
+    private final SecureRandom random = new SecureRandom();
 
-    public TokenService(JwtService jwtService) {
+    public TokenService(JwtService jwtService,
+                        RefreshTokenRepository refreshTokenRepository,
+                        @Value("${security.jwt.refresh-ttl-seconds:2592000}") long refreshTtlSeconds,
+                        @Value("${security.jwt.refresh-reuse-grace-seconds:10}") long reuseGraceSeconds,
+                        @Value("${security.jwt.refresh-purge-retention:7d}") Duration purgeRetention) {
         this.jwtService = jwtService;
+        this.refreshTokenRepository = refreshTokenRepository;
+        this.refreshTtlSeconds = refreshTtlSeconds;
+        this.reuseGraceSeconds = reuseGraceSeconds;
+        this.purgeRetention = purgeRetention;
     }
 
     public TokenPair issueTokens(Long personId, String email, Set<SystemRole> roles) {
+        return issueTokens(personId, email, roles, UUID.randomUUID());
+    }
+
+    @Transactional
+    public TokenPair issueTokens(Long personId, String email, Set<SystemRole> roles, UUID familyId) {
         String access = jwtService.generateToken(personId, email, roles);
-        return new TokenPair(access);
+        byte[] bytes = new byte[REFRESH_TOKEN_BYTES];
+        random.nextBytes(bytes);
+        String refresh = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+        RefreshTokenEntity entity = new RefreshTokenEntity();
+        entity.setPersonId(personId);
+        entity.setTokenHash(hash(refresh));
+        entity.setFamilyId(familyId);
+        entity.setExpiresAt(OffsetDateTime.now().plusSeconds(refreshTtlSeconds));
+        refreshTokenRepository.save(entity);
+        return new TokenPair(access, refresh);
+    }
+
+    /**
+     * Access-токен без нового refresh-токена — ответ на повторное предъявление в окне одновременного обновления.
+     */
+    public String issueAccessToken(Long personId, String email, Set<SystemRole> roles) {
+        return jwtService.generateToken(personId, email, roles);
+    }
+
+    /**
+     * Погашает refresh-токен. Пустой результат — токен неизвестен, просрочен, отозван или уже использован;
+     * в последнем случае отзывается вся цепочка, выданная по одному входу. Токен, использованный не более
+     * {@code refresh-reuse-grace-seconds} назад, принимается с {@code rotate = false}: вызывающий выдает
+     * только access-токен, новая ветка цепочки не появляется. Преемника вернуть нельзя — в БД хранится только хэш.
+     */
+    @Transactional
+    public Optional<ConsumedToken> consume(String refreshToken) {
+        Optional<RefreshTokenEntity> found = refreshTokenRepository.findByTokenHash(hash(refreshToken));
+        if (found.isEmpty()) {
+            return Optional.empty();
+        }
+        RefreshTokenEntity token = found.get();
+        OffsetDateTime now = OffsetDateTime.now();
+        if (token.getRevokedAt() == null && token.getUsedAt() != null
+                && !token.getUsedAt().plusSeconds(reuseGraceSeconds).isBefore(now)
+                && token.getExpiresAt().isAfter(now)) {
+            log.debug("Refresh token of person {} reused within grace window", token.getPersonId());
+            return Optional.of(new ConsumedToken(token, false));
+        }
+        if (token.getUsedAt() != null || token.getRevokedAt() != null) {
+            if (token.getUsedAt() != null && token.getRevokedAt() == null) {
+                log.warn("Refresh token reuse detected for person {}, revoking family {}", token.getPersonId(), token.getFamilyId());
+            }
+            refreshTokenRepository.revokeFamily(token.getFamilyId());
+            return Optional.empty();
+        }
+        if (!token.getExpiresAt().isAfter(now)) {
+            return Optional.empty();
+        }
+        token.setUsedAt(now);
+        refreshTokenRepository.save(token);
+        return Optional.of(new ConsumedToken(token, true));
+    }
+
+    @Transactional
+    public void revoke(String refreshToken) {
+        refreshTokenRepository.findByTokenHash(hash(refreshToken))
+                .ifPresent(token -> refreshTokenRepository.revokeFamily(token.getFamilyId()));
+    }
+
+    /**
+     * Отзывает все refresh-токены пользователя; действующий JWT истечет сам в пределах access TTL.
+     */
+    @Transactional
+    public void revokeAll(Long personId) {
+        refreshTokenRepository.revokeAllForPerson(personId);
+    }
+
+    /**
+     * Удаляет просроченные и отозванные токены старше {@code security.jwt.refresh-purge-retention} пачками,
+     * чтобы не держать длинную транзакцию. Использованные, но не просроченные токены остаются:
+     * по ним распознается повторное предъявление.
+     */
+    @Scheduled(fixedDelayString = "${security.jwt.refresh-purge-interval:1h}")
+    public void purgeStale() {
+        OffsetDateTime before = OffsetDateTime.now().minus(purgeRetention);
+        int total = 0;
+        for (int batch = 0; batch < PURGE_MAX_BATCHES; batch++) {
+            int deleted = refreshTokenRepository.deleteStale(before, PURGE_BATCH_SIZE);
+            total += deleted;
+            if (deleted < PURGE_BATCH_SIZE) {
+                break;
+            }
+        }
+        if (total > 0) {
+            log.info("Purged {} stale refresh tokens", total);
+        }
+    }
+
+    private static String hash(String token) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    public record TokenPair(String accessToken, String refreshToken) {
     }
 
-    public record TokenPair(String accessToken) {
+    /**
+     * Погашенный токен; {@code rotate = false} — повтор в окне одновременного обновления, новая пара не выдается.
+     */
+    public record ConsumedToken(RefreshTokenEntity token, boolean rotate) {
     }
 }
@@ -0,0 +1,192 @@
+package com.pethaven.websocket;
+
+import com.pethaven.config.NotificationProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.SessionLimitExceededException;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Очередь отправки WebSocket-сообщений: у каждой сессии своя ограниченная очередь, которую
+ * вычерпывает пул {@code notificationDispatchExecutor}. Медленный клиент задерживает только себя,
+ * а при переполнении теряет самые старые сообщения — лента уведомлений все равно хранится в БД.
+ */
+@Component
+public class NotificationDispatcher {
+
+    private static final Logger log = LoggerFactory.getLogger(NotificationDispatcher.class);
+
+    private final Map<String, SessionQueue> queues = new ConcurrentHashMap<>();
+    private final TaskExecutor executor;
+    private final int queueCapacity;
+    private final AtomicLong sent = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong sendNanos = new AtomicLong();
+    private final AtomicLong maxSendNanos = new AtomicLong();
+    private final AtomicLong queuedNanos = new AtomicLong();
+
+    public NotificationDispatcher(@Qualifier("notificationDispatchExecutor") TaskExecutor executor,
+                                  NotificationProperties properties) {
+        this.executor = executor;
+        this.queueCapacity = Math.max(1, properties.getDispatch().getSessionQueueCapacity());
+    }
+
+    public void enqueue(WebSocketSession session, TextMessage message) {
+        if (!session.isOpen()) {
+            return;
+        }
+        SessionQueue queue = queues.computeIfAbsent(session.getId(), id -> new SessionQueue(session, queueCapacity));
+        Pending pending = new Pending(message, System.nanoTime());
+        while (!queue.messages.offer(pending)) {
+            if (queue.messages.poll() != null) {
+                dropped.incrementAndGet();
+            }
+        }
+        // сессия могла закрыться и сняться с учета после проверки выше — не оставляем ей очередь
+        if (!session.isOpen()) {
+            remove(session);
+            return;
+        }
+        scheduleDrain(queue);
+    }
+
+    public void remove(WebSocketSession session) {
+        SessionQueue queue = queues.remove(session.getId());
+        if (queue != null) {
+            dropped.addAndGet(queue.messages.size());
+            queue.messages.clear();
+        }
+    }
+
+    public DispatchStats stats() {
+        int depth = 0;
+        int maxDepth = 0;
+        for (SessionQueue queue : queues.values()) {
+            int size = queue.messages.size();
+            depth += size;
+            maxDepth = Math.max(maxDepth, size);
+        }
+        long sentCount = sent.get();
+        return new DispatchStats(
+                queues.size(),
+                depth,
+                maxDepth,
+                sentCount,
+                dropped.get(),
+                failed.get(),
+                sentCount == 0 ? 0 : sendNanos.get() / sentCount / 1_000,
+                maxSendNanos.get() / 1_000,
+                sentCount == 0 ? 0 : queuedNanos.get() / sentCount / 1_000
+        );
+    }
+
+    private void scheduleDrain(SessionQueue queue) {
+        if (!queue.draining.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            executor.execute(() -> drain(queue));
+        } catch (TaskRejectedException e) {
+            queue.draining.set(false);
+            log.warn("Notification dispatch pool is saturated, session {} will be drained by the sweep", queue.session.getId());
+        }
+    }
+
+    /**
+     * Повторно ставит в пул очереди, которые остались непустыми после отказа пула: без этого
+     * сообщения ждали бы следующей отправки в ту же сессию.
+     */
+    @Scheduled(fixedDelayString = "${notifications.dispatch.redrain-interval:1s}")
+    public void redrainStalled() {
+        for (SessionQueue queue : queues.values()) {
+            if (!queue.messages.isEmpty() && !queue.draining.get()) {
+                scheduleDrain(queue);
+            }
+        }
+    }
+
+    private void drain(SessionQueue queue) {
+        try {
+            Pending pending;
+            while ((pending = queue.messages.poll()) != null) {
+                if (!send(queue.session, pending)) {
+                    remove(queue.session);
+                    return;
+                }
+            }
+        } finally {
+            queue.draining.set(false);
+        }
+        // сообщение могло прийти между последним poll и сбросом флага
+        if (!queue.messages.isEmpty() && queues.containsKey(queue.session.getId())) {
+            scheduleDrain(queue);
+        }
+    }
+
+    private boolean send(WebSocketSession session, Pending pending) {
+        long start = System.nanoTime();
+        try {
+            session.sendMessage(pending.message());
+        } catch (IOException | IllegalStateException | SessionLimitExceededException e) {
+            failed.incrementAndGet();
+            log.debug("Failed to send notification to session {}: {}", session.getId(), e.getMessage());
+            closeQuietly(session);
+            return false;
+        }
+        long elapsed = System.nanoTime() - start;
+        sent.incrementAndGet();
+        sendNanos.addAndGet(elapsed);
+        maxSendNanos.accumulateAndGet(elapsed, Math::max);
+        queuedNanos.addAndGet(start - pending.enqueuedAt());
+        return true;
+    }
+
+    private void closeQuietly(WebSocketSession session) {
+        try {
+            session.close(CloseStatus.SESSION_NOT_RELIABLE);
+        } catch (IOException ignored) {
+            // сессия уже закрыта, afterConnectionClosed снимет ее с учета
+        }
+    }
+
+    private record Pending(TextMessage message, long enqueuedAt) {
+    }
+
+    private static final class SessionQueue {
+        private final WebSocketSession session;
+        private final BlockingQueue<Pending> messages;
+        private final AtomicBoolean draining = new AtomicBoolean();
+
+        private SessionQueue(WebSocketSession session, int capacity) {
+            this.session = session;
+            this.messages = new ArrayBlockingQueue<>(capacity);
+        }
+    }
+
+    public record DispatchStats(int sessions,
+                                int queuedMessages,
+                                int maxSessionQueue,
+                                long sent,
+                                long dropped,
+                                long failed,
+                                long avgSendMicros,
+                                long maxSendMicros,
+                                long avgQueuedMicros) {
+    }
+}
@@ -18,13 +18,16 @@ public class NotificationWebSocketHandler extends TextWebSocketHandler {
     private final JwtService jwtService;
     private final NotificationService notificationService;
     private final ObjectMapper objectMapper;
+    private final NotificationDispatcher dispatcher;
 
     public NotificationWebSocketHandler(JwtService jwtService,
                                         NotificationService notificationService,
-                                        ObjectMapper objectMapper) {
+                                        ObjectMapper objectMapper,
+                                        NotificationDispatcher dispatcher) {
         this.jwtService = jwtService;
         this.notificationService = notificationService;
         this.objectMapper = objectMapper;
+        this.dispatcher = dispatcher;
     }
 
     @Override
@@ -35,8 +38,9 @@ public class NotificationWebSocketHandler extends TextWebSocketHandler {
             return;
         }
         session.getAttributes().put("uid", userId);
-        notificationService.registerSocket(userId, session);
-        session.sendMessage(new TextMessage(objectMapper.writeValueAsString(Map.of("type", "connected"))));
+        WebSocketSession registered = notificationService.registerSocket(userId, session);
+        // через очередь сессии: прямой sendMessage мог бы пересечься с отправкой уведомления
+        dispatcher.enqueue(registered, new TextMessage(objectMapper.writeValueAsString(Map.of("type", "connected"))));
     }
 
     @Override
@@ -60,9 +64,9 @@ public class NotificationWebSocketHandler extends TextWebSocketHandler {
             String[] kv = part.split("=");
             if (kv.length == 2 && kv[0].equals("token")) {
                 String token = kv[1];
-                if (jwtService.isValid(token)) {
-                    return jwtService.toAuthentication(token).getPrincipal() instanceof Long uid ? uid : null;
-                }
+                return jwtService.authenticate(token)
+                        .map(auth -> auth.getPrincipal() instanceof Long uid ? uid : null)
+                        .orElse(null);
             }
         }
         return null;
@@ -0,0 +1,13 @@
+CREATE TABLE refresh_token (
+    refresh_token_id SERIAL PRIMARY KEY,
+    person_id        INTEGER NOT NULL REFERENCES person(person_id) ON DELETE CASCADE,
+    token_hash       TEXT NOT NULL UNIQUE,
+    family_id        UUID NOT NULL,
+    created_at       TIMESTAMPTZ NOT NULL DEFAULT NOW(),
+    expires_at       TIMESTAMPTZ NOT NULL,
+    used_at          TIMESTAMPTZ,
+    revoked_at       TIMESTAMPTZ
+);
+
+CREATE INDEX idx_refresh_token_person ON refresh_token(person_id) WHERE revoked_at IS NULL;
+CREATE INDEX idx_refresh_token_family ON refresh_token(family_id);
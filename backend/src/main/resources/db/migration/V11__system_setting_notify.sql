@@ -0,0 +1,15 @@
+CREATE FUNCTION notify_system_setting_changed() RETURNS TRIGGER AS $$
+BEGIN
+    IF TG_OP = 'DELETE' THEN
+        PERFORM pg_notify('system_setting_changed', OLD.key);
+    ELSE
+        PERFORM pg_notify('system_setting_changed', NEW.key);
+    END IF;
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER system_setting_changed_notify
+    AFTER INSERT OR UPDATE OR DELETE ON system_setting
+    FOR EACH ROW
+    EXECUTE FUNCTION notify_system_setting_changed();
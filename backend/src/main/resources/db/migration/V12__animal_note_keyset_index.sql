@@ -0,0 +1,3 @@
+-- note_id в индексе нужен как второй ключ курсора при одинаковом created_at
+DROP INDEX IF EXISTS idx_animal_note_animal;
+CREATE INDEX idx_animal_note_animal ON animal_note(animal_id, created_at DESC, note_id DESC);
@@ -0,0 +1,8 @@
+-- Индексы под очередь заявок: фильтр + порядок (created_at, application_id) для курсора
+CREATE INDEX idx_application_created ON adoption_application(created_at DESC, application_id DESC);
+CREATE INDEX idx_application_status_created ON adoption_application(status, created_at DESC, application_id DESC);
+CREATE INDEX idx_application_animal_created ON adoption_application(animal_id, created_at DESC, application_id DESC);
+
+-- покрывается новым индексом по (candidate_id, created_at, application_id)
+DROP INDEX IF EXISTS idx_application_candidate;
+CREATE INDEX idx_application_candidate_created ON adoption_application(candidate_id, created_at DESC, application_id DESC);
@@ -0,0 +1,15 @@
+-- Асинхронная генерация договора: строка создается в состоянии generating,
+-- документ формирует фоновый обработчик с повторами.
+CREATE TYPE agreement_document_status AS ENUM ('generating', 'ready', 'failed');
+
+ALTER TABLE agreement
+    ADD COLUMN document_status agreement_document_status NOT NULL DEFAULT 'ready',
+    ADD COLUMN document_attempts INTEGER NOT NULL DEFAULT 0,
+    ADD COLUMN document_error TEXT,
+    ADD COLUMN document_next_attempt_at TIMESTAMPTZ;
+
+UPDATE agreement SET document_status = 'generating' WHERE template_storage_key IS NULL;
+
+CREATE INDEX idx_agreement_document_pending
+    ON agreement (document_next_attempt_at NULLS FIRST, agreement_id)
+    WHERE document_status = 'generating';
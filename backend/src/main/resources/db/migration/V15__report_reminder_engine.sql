@@ -0,0 +1,7 @@
+-- Напоминания об отчетах обрабатывает приложение пакетами; дублирующая PL/pgSQL-функция не используется.
+DROP FUNCTION IF EXISTS process_post_adoption_reports();
+
+-- Открытые отчеты, по которым выбираются кандидаты на напоминание и просрочку.
+CREATE INDEX idx_post_adoption_report_open_due
+    ON post_adoption_report (due_date, report_id)
+    WHERE submitted_date IS NULL AND status IN ('pending', 'overdue');
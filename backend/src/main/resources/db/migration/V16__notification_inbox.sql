@@ -0,0 +1,83 @@
+-- Ключ курсора ленты — (created_at, notification_id).
+DROP INDEX IF EXISTS idx_notification_person_created;
+CREATE INDEX idx_notification_person_created ON notification (person_id, created_at DESC, notification_id DESC);
+
+-- Непрочитанные строки: отметка «прочитать все» и пересчет счетчика не читают всю ленту.
+CREATE INDEX idx_notification_person_unread ON notification (person_id) WHERE NOT read;
+
+-- Счетчик непрочитанных на пользователя; ведется триггерами по изменениям notification.
+CREATE TABLE notification_unread_counter (
+    person_id INTEGER PRIMARY KEY REFERENCES person(person_id) ON DELETE CASCADE,
+    unread    INTEGER NOT NULL DEFAULT 0 CHECK (unread >= 0)
+);
+
+INSERT INTO notification_unread_counter (person_id, unread)
+SELECT person_id, count(*)
+FROM notification
+WHERE NOT read
+GROUP BY person_id;
+
+-- Триггеры уровня оператора: пакетная вставка или «прочитать все» меняют счетчик
+-- одним UPDATE на пользователя, а не на каждую строку.
+CREATE FUNCTION notification_unread_on_insert() RETURNS TRIGGER AS $$
+BEGIN
+    INSERT INTO notification_unread_counter AS c (person_id, unread)
+    SELECT person_id, count(*)
+    FROM new_rows
+    WHERE NOT read
+    GROUP BY person_id
+    ON CONFLICT (person_id) DO UPDATE SET unread = c.unread + EXCLUDED.unread;
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE FUNCTION notification_unread_on_update() RETURNS TRIGGER AS $$
+BEGIN
+    WITH delta AS (
+        SELECT o.person_id, sum(CASE WHEN o.read THEN 0 ELSE -1 END + CASE WHEN n.read THEN 0 ELSE 1 END) AS diff
+        FROM old_rows o
+        JOIN new_rows n ON n.notification_id = o.notification_id
+        WHERE o.read IS DISTINCT FROM n.read
+        GROUP BY o.person_id
+    )
+    UPDATE notification_unread_counter c
+    SET unread = GREATEST(c.unread + d.diff, 0)
+    FROM delta d
+    WHERE c.person_id = d.person_id AND d.diff <> 0;
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE FUNCTION notification_unread_on_delete() RETURNS TRIGGER AS $$
+BEGIN
+    WITH delta AS (
+        SELECT person_id, count(*) AS removed
+        FROM old_rows
+        WHERE NOT read
+        GROUP BY person_id
+    )
+    UPDATE notification_unread_counter c
+    SET unread = GREATEST(c.unread - d.removed, 0)
+    FROM delta d
+    WHERE c.person_id = d.person_id;
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER notification_unread_insert
+    AFTER INSERT ON notification
+    REFERENCING NEW TABLE AS new_rows
+    FOR EACH STATEMENT
+    EXECUTE FUNCTION notification_unread_on_insert();
+
+CREATE TRIGGER notification_unread_update
+    AFTER UPDATE ON notification
+    REFERENCING OLD TABLE AS old_rows NEW TABLE AS new_rows
+    FOR EACH STATEMENT
+    EXECUTE FUNCTION notification_unread_on_update();
+
+CREATE TRIGGER notification_unread_delete
+    AFTER DELETE ON notification
+    REFERENCING OLD TABLE AS old_rows
+    FOR EACH STATEMENT
+    EXECUTE FUNCTION notification_unread_on_delete();
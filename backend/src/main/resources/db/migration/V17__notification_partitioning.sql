@@ -0,0 +1,142 @@
+-- Лента уведомлений секционируется по месяцам created_at: старые месяцы удаляются целиком
+-- (DROP секции), без построчного DELETE и последующего VACUUM.
+
+ALTER TABLE notification RENAME TO notification_legacy;
+ALTER TABLE notification_legacy RENAME CONSTRAINT notification_pkey TO notification_legacy_pkey;
+ALTER SEQUENCE notification_notification_id_seq OWNED BY NONE;
+DROP TRIGGER notification_created_notify ON notification_legacy;
+DROP TRIGGER notification_unread_insert ON notification_legacy;
+DROP TRIGGER notification_unread_update ON notification_legacy;
+DROP TRIGGER notification_unread_delete ON notification_legacy;
+DROP INDEX idx_notification_person_created;
+DROP INDEX idx_notification_person_unread;
+
+CREATE TABLE notification (
+    notification_id INTEGER NOT NULL DEFAULT nextval('notification_notification_id_seq'),
+    person_id       INTEGER NOT NULL REFERENCES person(person_id) ON DELETE CASCADE,
+    type            notification_type NOT NULL,
+    title           TEXT NOT NULL,
+    message         TEXT NOT NULL,
+    read            BOOLEAN DEFAULT FALSE NOT NULL,
+    created_at      TIMESTAMPTZ NOT NULL DEFAULT NOW(),
+    PRIMARY KEY (notification_id, created_at)
+) PARTITION BY RANGE (created_at);
+
+ALTER SEQUENCE notification_notification_id_seq OWNED BY notification.notification_id;
+
+-- Страховка на случай, если месячная секция не была создана заранее.
+CREATE TABLE notification_default PARTITION OF notification DEFAULT;
+
+-- Создает месячные секции notification_pYYYYMM от месяца p_from до текущего месяца + p_months_ahead.
+-- Месяц, строки которого уже попали в секцию по умолчанию, пропускается с предупреждением.
+CREATE FUNCTION ensure_notification_partitions(p_from DATE, p_months_ahead INTEGER)
+RETURNS INTEGER AS $$
+DECLARE
+    v_month DATE := date_trunc('month', p_from)::DATE;
+    v_last DATE := (date_trunc('month', CURRENT_DATE) + make_interval(months => GREATEST(p_months_ahead, 0)))::DATE;
+    v_name TEXT;
+    v_created INTEGER := 0;
+BEGIN
+    WHILE v_month <= v_last LOOP
+        v_name := 'notification_p' || to_char(v_month, 'YYYYMM');
+        IF to_regclass(v_name) IS NULL THEN
+            IF EXISTS (
+                SELECT 1 FROM notification_default
+                WHERE created_at >= v_month AND created_at < (v_month + INTERVAL '1 month')
+            ) THEN
+                RAISE WARNING 'notification_default has rows for %, partition % not created', v_month, v_name;
+            ELSE
+                EXECUTE format(
+                    'CREATE TABLE %I PARTITION OF notification FOR VALUES FROM (%L) TO (%L)',
+                    v_name, v_month, (v_month + INTERVAL '1 month')::DATE
+                );
+                v_created := v_created + 1;
+            END IF;
+        END IF;
+        v_month := (v_month + INTERVAL '1 month')::DATE;
+    END LOOP;
+    RETURN v_created;
+END;
+$$ LANGUAGE plpgsql;
+
+-- Месячные секции, целиком лежащие раньше p_before.
+CREATE FUNCTION expired_notification_partitions(p_before DATE)
+RETURNS TABLE (partition_name TEXT, range_from DATE, range_to DATE) AS $$
+    SELECT c.relname::TEXT,
+           to_date(substring(c.relname FROM 15), 'YYYYMM'),
+           (to_date(substring(c.relname FROM 15), 'YYYYMM') + INTERVAL '1 month')::DATE
+    FROM pg_inherits i
+    JOIN pg_class c ON c.oid = i.inhrelid
+    WHERE i.inhparent = 'notification'::regclass
+      AND c.relname ~ '^notification_p[0-9]{6}$'
+      AND (to_date(substring(c.relname FROM 15), 'YYYYMM') + INTERVAL '1 month')::DATE <= p_before
+    ORDER BY 2;
+$$ LANGUAGE sql STABLE;
+
+-- Удаляет месячную секцию целиком, предварительно списав ее непрочитанные из счетчиков
+-- (DROP не вызывает триггеры DELETE). Возвращает число списанных непрочитанных либо -1,
+-- если секцию уже удалил другой узел.
+CREATE FUNCTION drop_notification_partition(p_name TEXT)
+RETURNS INTEGER AS $$
+DECLARE
+    v_unread INTEGER;
+BEGIN
+    IF p_name !~ '^notification_p[0-9]{6}$' THEN
+        RAISE EXCEPTION 'Not a monthly notification partition: %', p_name;
+    END IF;
+    PERFORM pg_advisory_xact_lock(hashtext('notification_retention'));
+    IF to_regclass(p_name) IS NULL THEN
+        RETURN -1;
+    END IF;
+    EXECUTE format(
+        'WITH d AS (SELECT person_id, count(*) AS removed FROM %I WHERE NOT read GROUP BY person_id),
+              upd AS (UPDATE notification_unread_counter c
+                      SET unread = GREATEST(c.unread - d.removed, 0)
+                      FROM d WHERE c.person_id = d.person_id
+                      RETURNING d.removed)
+         SELECT COALESCE(sum(removed), 0) FROM upd',
+        p_name
+    ) INTO v_unread;
+    EXECUTE format('DROP TABLE %I', p_name);
+    RETURN v_unread;
+END;
+$$ LANGUAGE plpgsql;
+
+SELECT ensure_notification_partitions(
+    COALESCE((SELECT min(created_at) FROM notification_legacy)::DATE, CURRENT_DATE),
+    3
+);
+
+-- Триггеры создаются после переноса: счетчики непрочитанных уже посчитаны, а старые
+-- уведомления не должны повторно уходить в pg_notify.
+INSERT INTO notification (notification_id, person_id, type, title, message, read, created_at)
+SELECT notification_id, person_id, type, title, message, read, COALESCE(created_at, NOW())
+FROM notification_legacy;
+
+DROP TABLE notification_legacy;
+
+CREATE INDEX idx_notification_person_created ON notification (person_id, created_at DESC, notification_id DESC);
+CREATE INDEX idx_notification_person_unread ON notification (person_id) WHERE NOT read;
+
+CREATE TRIGGER notification_created_notify
+    AFTER INSERT ON notification
+    FOR EACH ROW
+    EXECUTE FUNCTION notify_notification_created();
+
+CREATE TRIGGER notification_unread_insert
+    AFTER INSERT ON notification
+    REFERENCING NEW TABLE AS new_rows
+    FOR EACH STATEMENT
+    EXECUTE FUNCTION notification_unread_on_insert();
+
+CREATE TRIGGER notification_unread_update
+    AFTER UPDATE ON notification
+    REFERENCING OLD TABLE AS old_rows NEW TABLE AS new_rows
+    FOR EACH STATEMENT
+    EXECUTE FUNCTION notification_unread_on_update();
+
+CREATE TRIGGER notification_unread_delete
+    AFTER DELETE ON notification
+    REFERENCING OLD TABLE AS old_rows
+    FOR EACH STATEMENT
+    EXECUTE FUNCTION notification_unread_on_delete();
@@ -0,0 +1,3 @@
+-- Лист ожидания смены. Значение добавляется отдельной миграцией: новое значение enum
+-- можно использовать только после коммита транзакции, в которой оно добавлено.
+ALTER TYPE attendance_status ADD VALUE IF NOT EXISTS 'waitlisted' AFTER 'signed_up';
@@ -0,0 +1,169 @@
+-- Запись на смену одним атомарным вызовом: лимит мест с листом ожидания,
+-- конфликт дат проверяется уникальным частичным индексом вместо триггера.
+ALTER TABLE shift
+    ADD COLUMN capacity INTEGER CHECK (capacity > 0),
+    ADD CONSTRAINT uq_shift_id_date UNIQUE (shift_id, shift_date);
+
+-- Дата смены копируется в запись волонтера; составной внешний ключ держит копию в актуальном состоянии.
+ALTER TABLE shift_volunteer ADD COLUMN shift_date DATE;
+
+UPDATE shift_volunteer sv
+SET shift_date = s.shift_date
+FROM shift s
+WHERE s.shift_id = sv.shift_id;
+
+ALTER TABLE shift_volunteer
+    ALTER COLUMN shift_date SET NOT NULL,
+    ADD CONSTRAINT fk_shift_volunteer_shift_date FOREIGN KEY (shift_id, shift_date)
+        REFERENCES shift (shift_id, shift_date) ON UPDATE CASCADE ON DELETE CASCADE;
+
+-- Повторная запись после отписки обходила проверку триггера: лишние активные записи на ту же дату
+-- переводятся в absent, остается подтвержденная или самая ранняя.
+UPDATE shift_volunteer sv
+SET attendance_status = 'absent',
+    cancel_reason = COALESCE(sv.cancel_reason, 'Повторная запись на ту же дату')
+FROM (
+    SELECT shift_id,
+           volunteer_id,
+           ROW_NUMBER() OVER (
+               PARTITION BY volunteer_id, shift_date
+               ORDER BY approved_at IS NULL, attendance_status <> 'attended', signed_up_at, shift_id
+           ) AS rn
+    FROM shift_volunteer
+    WHERE attendance_status <> 'absent'
+) d
+WHERE d.shift_id = sv.shift_id
+  AND d.volunteer_id = sv.volunteer_id
+  AND d.rn > 1;
+
+CREATE UNIQUE INDEX uq_shift_volunteer_active_date
+    ON shift_volunteer (volunteer_id, shift_date)
+    WHERE attendance_status <> 'absent';
+
+CREATE INDEX idx_shift_volunteer_waitlist
+    ON shift_volunteer (shift_id, signed_up_at, volunteer_id)
+    WHERE attendance_status = 'waitlisted';
+
+DROP TRIGGER IF EXISTS volunteer_shift_conflict_check ON shift_volunteer;
+DROP FUNCTION IF EXISTS check_volunteer_availability();
+DROP PROCEDURE IF EXISTS signup_for_shift(INTEGER, INTEGER);
+
+-- Строка смены блокируется на время записи, поэтому подсчет занятых мест и вставка
+-- не пересекаются с параллельными записями на ту же смену. Возвращает итоговый статус.
+CREATE FUNCTION shift_signup(
+    p_shift_id INTEGER,
+    p_volunteer_id INTEGER
+) RETURNS attendance_status AS $$
+DECLARE
+    v_shift shift%ROWTYPE;
+    v_taken INTEGER;
+    v_status attendance_status;
+BEGIN
+    IF NOT EXISTS (
+        SELECT 1
+        FROM person_roles pr
+        JOIN role r ON r.role_id = pr.role_id
+        WHERE pr.person_id = p_volunteer_id
+          AND r.name = 'volunteer'
+    ) THEN
+        RAISE EXCEPTION 'Only volunteers can sign up for shifts';
+    END IF;
+
+    SELECT * INTO v_shift FROM shift WHERE shift_id = p_shift_id FOR UPDATE;
+    IF NOT FOUND THEN
+        RAISE EXCEPTION 'Shift not found';
+    END IF;
+    IF v_shift.closed_at IS NOT NULL THEN
+        RAISE EXCEPTION 'Shift is closed';
+    END IF;
+
+    v_status := 'signed_up';
+    IF v_shift.capacity IS NOT NULL THEN
+        SELECT COUNT(*) INTO v_taken
+        FROM shift_volunteer
+        WHERE shift_id = p_shift_id
+          AND attendance_status IN ('signed_up', 'attended');
+        IF v_taken >= v_shift.capacity THEN
+            v_status := 'waitlisted';
+        END IF;
+    END IF;
+
+    INSERT INTO shift_volunteer (shift_id, volunteer_id, shift_date, attendance_status)
+    VALUES (p_shift_id, p_volunteer_id, v_shift.shift_date, v_status)
+    ON CONFLICT (shift_id, volunteer_id) DO UPDATE
+        SET attendance_status = EXCLUDED.attendance_status,
+            signed_up_at = NOW(),
+            submitted_at = NULL,
+            approved_at = NULL,
+            worked_hours = 0,
+            cancel_reason = NULL
+        WHERE shift_volunteer.attendance_status = 'absent';
+    IF NOT FOUND THEN
+        RAISE EXCEPTION 'Volunteer already signed up for this shift';
+    END IF;
+
+    PERFORM create_notification(
+        p_volunteer_id,
+        'shift_reminder',
+        CASE WHEN v_status = 'waitlisted' THEN 'Вы в листе ожидания' ELSE 'Запись на смену подтверждена' END,
+        CASE WHEN v_status = 'waitlisted'
+             THEN 'Мест на смену ' || to_char(v_shift.shift_date, 'DD.MM.YYYY') || ' нет, мы сообщим, когда место освободится'
+             ELSE 'Вы успешно записаны на смену ' || to_char(v_shift.shift_date, 'DD.MM.YYYY') END
+    );
+
+    RETURN v_status;
+EXCEPTION
+    WHEN unique_violation THEN
+        RAISE EXCEPTION 'Volunteer already signed up for another shift on this date';
+END;
+$$ LANGUAGE plpgsql;
+
+-- Переводит первых в листе ожидания на освободившиеся места и уведомляет их.
+-- Возвращает число переведенных волонтеров.
+CREATE FUNCTION promote_shift_waitlist(p_shift_id INTEGER) RETURNS INTEGER AS $$
+DECLARE
+    v_shift shift%ROWTYPE;
+    v_free INTEGER;
+    v_promoted INTEGER;
+BEGIN
+    SELECT * INTO v_shift FROM shift WHERE shift_id = p_shift_id FOR UPDATE;
+    IF NOT FOUND OR v_shift.closed_at IS NOT NULL THEN
+        RETURN 0;
+    END IF;
+
+    IF v_shift.capacity IS NOT NULL THEN
+        SELECT v_shift.capacity - COUNT(*) INTO v_free
+        FROM shift_volunteer
+        WHERE shift_id = p_shift_id
+          AND attendance_status IN ('signed_up', 'attended');
+        IF v_free <= 0 THEN
+            RETURN 0;
+        END IF;
+    END IF;
+
+    WITH next_in_line AS (
+        SELECT volunteer_id
+        FROM shift_volunteer
+        WHERE shift_id = p_shift_id
+          AND attendance_status = 'waitlisted'
+        ORDER BY signed_up_at, volunteer_id
+        LIMIT v_free
+    ), promoted AS (
+        UPDATE shift_volunteer sv
+        SET attendance_status = 'signed_up'
+        FROM next_in_line n
+        WHERE sv.shift_id = p_shift_id
+          AND sv.volunteer_id = n.volunteer_id
+        RETURNING sv.volunteer_id
+    )
+    INSERT INTO notification (person_id, type, title, message)
+    SELECT volunteer_id,
+           'shift_reminder',
+           'Место на смене освободилось',
+           'Вы переведены из листа ожидания и записаны на смену ' || to_char(v_shift.shift_date, 'DD.MM.YYYY')
+    FROM promoted;
+
+    GET DIAGNOSTICS v_promoted = ROW_COUNT;
+    RETURN v_promoted;
+END;
+$$ LANGUAGE plpgsql;
@@ -0,0 +1,4 @@
+-- Медиа, для которых копии еще не построены, подбирает периодический обход.
+-- Пустой массив означает «обработано, копии не нужны», поэтому индекс остается маленьким.
+CREATE INDEX idx_animal_media_variants_pending ON animal_media (media_id) WHERE variant_widths IS NULL;
+CREATE INDEX idx_report_media_variants_pending ON report_media (media_id) WHERE variant_widths IS NULL;
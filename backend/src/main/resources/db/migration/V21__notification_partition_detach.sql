@@ -0,0 +1,101 @@
+-- Удаление месячной секции в три шага, без долгой блокировки родительской таблицы:
+-- 1) DETACH под коротким lock_timeout (метаданные, доли секунды; CONCURRENTLY недоступен из-за
+--    секции по умолчанию); 2) выгрузка в архив из отсоединенной таблицы; 3) списание непрочитанных
+--    из счетчиков и DROP отсоединенной таблицы в одной транзакции. Отсоединенную таблицу уже никто
+--    не меняет, поэтому параллельный markRead не может быть списан дважды.
+
+DROP FUNCTION IF EXISTS expired_notification_partitions(DATE);
+
+-- Месячные секции, целиком лежащие раньше p_before, включая уже отсоединенные
+-- (прерванный прошлый запуск). attached = false — таблица отсоединена, но еще не удалена.
+CREATE FUNCTION expired_notification_partitions(p_before DATE)
+RETURNS TABLE (partition_name TEXT, range_from DATE, range_to DATE, attached BOOLEAN) AS $$
+    SELECT c.relname::TEXT,
+           to_date(substring(c.relname FROM 15), 'YYYYMM'),
+           (to_date(substring(c.relname FROM 15), 'YYYYMM') + INTERVAL '1 month')::DATE,
+           EXISTS (
+               SELECT 1 FROM pg_inherits i
+               WHERE i.inhrelid = c.oid AND i.inhparent = 'notification'::regclass
+           )
+    FROM pg_class c
+    WHERE c.relnamespace = (SELECT relnamespace FROM pg_class WHERE oid = 'notification'::regclass)
+      AND c.relkind = 'r'
+      AND c.relname ~ '^notification_p[0-9]{6}$'
+      AND (to_date(substring(c.relname FROM 15), 'YYYYMM') + INTERVAL '1 month')::DATE <= p_before
+    ORDER BY 2;
+$$ LANGUAGE sql STABLE;
+
+-- Отсоединяет месячную секцию. DETACH требует ACCESS EXCLUSIVE на notification, поэтому ожидание
+-- ограничено p_lock_timeout: при занятой таблице вызов падает, и секция обрабатывается в следующий раз.
+-- Возвращает false, если секция уже отсоединена или удалена.
+CREATE FUNCTION detach_notification_partition(p_name TEXT, p_lock_timeout TEXT)
+RETURNS BOOLEAN AS $$
+BEGIN
+    IF p_name !~ '^notification_p[0-9]{6}$' THEN
+        RAISE EXCEPTION 'Not a monthly notification partition: %', p_name;
+    END IF;
+    PERFORM pg_advisory_xact_lock(hashtext('notification_retention'));
+    IF NOT EXISTS (
+        SELECT 1 FROM pg_inherits
+        WHERE inhrelid = to_regclass(p_name) AND inhparent = 'notification'::regclass
+    ) THEN
+        RETURN FALSE;
+    END IF;
+    PERFORM set_config('lock_timeout', p_lock_timeout, true);
+    EXECUTE format('ALTER TABLE notification DETACH PARTITION %I', p_name);
+    RETURN TRUE;
+END;
+$$ LANGUAGE plpgsql;
+
+-- Строки отсоединенной месячной секции для выгрузки в архив.
+CREATE FUNCTION detached_notification_rows(p_name TEXT)
+RETURNS SETOF notification AS $$
+BEGIN
+    IF p_name !~ '^notification_p[0-9]{6}$' THEN
+        RAISE EXCEPTION 'Not a monthly notification partition: %', p_name;
+    END IF;
+    RETURN QUERY EXECUTE format(
+        'SELECT notification_id, person_id, type, title, message, read, created_at FROM %I', p_name
+    );
+END;
+$$ LANGUAGE plpgsql STABLE;
+
+-- Удаляет отсоединенную месячную секцию, списав ее непрочитанные из счетчиков (DROP не вызывает
+-- триггеры DELETE). Строки счетчиков блокируются по возрастанию person_id, как в триггерах.
+-- Возвращает число списанных непрочитанных либо -1, если таблицу уже удалил другой узел.
+CREATE OR REPLACE FUNCTION drop_notification_partition(p_name TEXT)
+RETURNS INTEGER AS $$
+DECLARE
+    v_unread INTEGER;
+BEGIN
+    IF p_name !~ '^notification_p[0-9]{6}$' THEN
+        RAISE EXCEPTION 'Not a monthly notification partition: %', p_name;
+    END IF;
+    PERFORM pg_advisory_xact_lock(hashtext('notification_retention'));
+    IF to_regclass(p_name) IS NULL THEN
+        RETURN -1;
+    END IF;
+    IF EXISTS (
+        SELECT 1 FROM pg_inherits
+        WHERE inhrelid = to_regclass(p_name) AND inhparent = 'notification'::regclass
+    ) THEN
+        RAISE EXCEPTION 'Partition % is still attached', p_name;
+    END IF;
+    EXECUTE format(
+        'WITH d AS (SELECT person_id, count(*) AS removed FROM %I WHERE NOT read GROUP BY person_id),
+              locked AS (SELECT c.person_id FROM notification_unread_counter c
+                         JOIN d ON d.person_id = c.person_id
+                         ORDER BY c.person_id
+                         FOR UPDATE OF c),
+              upd AS (UPDATE notification_unread_counter c
+                      SET unread = GREATEST(c.unread - d.removed, 0)
+                      FROM d JOIN locked l ON l.person_id = d.person_id
+                      WHERE c.person_id = d.person_id
+                      RETURNING d.removed)
+         SELECT COALESCE(sum(removed), 0) FROM upd',
+        p_name
+    ) INTO v_unread;
+    EXECUTE format('DROP TABLE %I', p_name);
+    RETURN v_unread;
+END;
+$$ LANGUAGE plpgsql;
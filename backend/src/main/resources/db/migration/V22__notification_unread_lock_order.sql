@@ -0,0 +1,66 @@
+-- Счетчики непрочитанных блокируются по возрастанию person_id: пакетная рассылка, «прочитать все»
+-- и удаление секции затрагивают много строк счетчика, и при разном порядке блокировок
+-- параллельные операторы взаимно блокировались.
+
+CREATE OR REPLACE FUNCTION notification_unread_on_insert() RETURNS TRIGGER AS $$
+BEGIN
+    INSERT INTO notification_unread_counter AS c (person_id, unread)
+    SELECT person_id, count(*)
+    FROM new_rows
+    WHERE NOT read
+    GROUP BY person_id
+    ORDER BY person_id
+    ON CONFLICT (person_id) DO UPDATE SET unread = c.unread + EXCLUDED.unread;
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE OR REPLACE FUNCTION notification_unread_on_update() RETURNS TRIGGER AS $$
+BEGIN
+    WITH delta AS (
+        SELECT o.person_id, sum(CASE WHEN o.read THEN 0 ELSE -1 END + CASE WHEN n.read THEN 0 ELSE 1 END) AS diff
+        FROM old_rows o
+        JOIN new_rows n ON n.notification_id = o.notification_id
+        WHERE o.read IS DISTINCT FROM n.read
+        GROUP BY o.person_id
+        HAVING sum(CASE WHEN o.read THEN 0 ELSE -1 END + CASE WHEN n.read THEN 0 ELSE 1 END) <> 0
+    ),
+    locked AS (
+        SELECT c.person_id
+        FROM notification_unread_counter c
+        JOIN delta d ON d.person_id = c.person_id
+        ORDER BY c.person_id
+        FOR UPDATE OF c
+    )
+    UPDATE notification_unread_counter c
+    SET unread = GREATEST(c.unread + d.diff, 0)
+    FROM delta d
+    JOIN locked l ON l.person_id = d.person_id
+    WHERE c.person_id = d.person_id;
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE OR REPLACE FUNCTION notification_unread_on_delete() RETURNS TRIGGER AS $$
+BEGIN
+    WITH delta AS (
+        SELECT person_id, count(*) AS removed
+        FROM old_rows
+        WHERE NOT read
+        GROUP BY person_id
+    ),
+    locked AS (
+        SELECT c.person_id
+        FROM notification_unread_counter c
+        JOIN delta d ON d.person_id = c.person_id
+        ORDER BY c.person_id
+        FOR UPDATE OF c
+    )
+    UPDATE notification_unread_counter c
+    SET unread = GREATEST(c.unread - d.removed, 0)
+    FROM delta d
+    JOIN locked l ON l.person_id = d.person_id
+    WHERE c.person_id = d.person_id;
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
@@ -0,0 +1,13 @@
+-- Токен аренды: результат попытки записывает только обработчик, который ее захватил.
+-- Если аренда истекла и договор взял другой обработчик, поздний результат первого отбрасывается.
+ALTER TABLE agreement
+    ADD COLUMN document_lease_token UUID,
+    ADD COLUMN document_notify BOOLEAN NOT NULL DEFAULT TRUE;
+
+-- V14 перевел в generating договоры, созданные до асинхронной генерации без документа.
+-- Их документы формируются без уведомления кандидату: договор он уже видел.
+UPDATE agreement
+SET document_notify = FALSE
+WHERE document_status <> 'ready'
+  AND (generated_at IS NULL
+       OR generated_at < (SELECT installed_on FROM flyway_schema_history WHERE version = '14'));
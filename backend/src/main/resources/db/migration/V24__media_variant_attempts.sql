@@ -0,0 +1,16 @@
+-- Неудачные попытки построения копий откладываются с растущей паузой; после предельного числа
+-- попыток медиа помечается пустым массивом и отдается только оригиналом. Так сбойные строки
+-- не занимают каждый обход и не заслоняют новые медиа.
+ALTER TABLE animal_media
+    ADD COLUMN variant_attempts INTEGER NOT NULL DEFAULT 0,
+    ADD COLUMN variant_next_attempt_at TIMESTAMPTZ;
+ALTER TABLE report_media
+    ADD COLUMN variant_attempts INTEGER NOT NULL DEFAULT 0,
+    ADD COLUMN variant_next_attempt_at TIMESTAMPTZ;
+
+DROP INDEX idx_animal_media_variants_pending;
+DROP INDEX idx_report_media_variants_pending;
+CREATE INDEX idx_animal_media_variants_pending
+    ON animal_media (variant_next_attempt_at NULLS FIRST, media_id) WHERE variant_widths IS NULL;
+CREATE INDEX idx_report_media_variants_pending
+    ON report_media (variant_next_attempt_at NULLS FIRST, media_id) WHERE variant_widths IS NULL;
@@ -0,0 +1,3 @@
+-- Периодическая очистка удаляет просроченные и давно отозванные refresh-токены пачками.
+CREATE INDEX idx_refresh_token_expires ON refresh_token (expires_at);
+CREATE INDEX idx_refresh_token_revoked ON refresh_token (revoked_at) WHERE revoked_at IS NOT NULL;
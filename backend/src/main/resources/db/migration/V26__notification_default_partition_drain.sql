@@ -0,0 +1,79 @@
+-- Строки, попавшие в секцию по умолчанию (месячная секция не была создана вовремя), раньше
+-- блокировали создание секции своего месяца и никогда не удалялись удержанием. Теперь при создании
+-- секций такие месяцы переносятся из notification_default в собственные секции и дальше живут
+-- по общим правилам удержания.
+
+-- Переносит строки месяца p_month из секции по умолчанию в новую секцию notification_pYYYYMM:
+-- таблица создается отдельно, строки перемещаются, затем таблица подключается к ленте.
+-- Триггеры ленты на перенос не срабатывают, поэтому счетчики непрочитанных не меняются.
+CREATE FUNCTION move_default_notification_month(p_month DATE)
+RETURNS INTEGER AS $$
+DECLARE
+    v_from DATE := date_trunc('month', p_month)::DATE;
+    v_to DATE := (date_trunc('month', p_month) + INTERVAL '1 month')::DATE;
+    v_name TEXT := 'notification_p' || to_char(p_month, 'YYYYMM');
+    v_moved INTEGER;
+BEGIN
+    IF to_regclass(v_name) IS NOT NULL THEN
+        RAISE EXCEPTION 'Partition % already exists', v_name;
+    END IF;
+    EXECUTE format('CREATE TABLE %I (LIKE notification INCLUDING DEFAULTS INCLUDING CONSTRAINTS)', v_name);
+    EXECUTE format(
+        'WITH moved AS (DELETE FROM notification_default WHERE created_at >= %L AND created_at < %L RETURNING *)
+         INSERT INTO %I SELECT * FROM moved',
+        v_from, v_to, v_name
+    );
+    GET DIAGNOSTICS v_moved = ROW_COUNT;
+    -- ограничение совпадает с границами секции, поэтому ATTACH не сканирует таблицу повторно
+    EXECUTE format(
+        'ALTER TABLE %I ADD CONSTRAINT %I CHECK (created_at >= %L AND created_at < %L)',
+        v_name, v_name || '_range', v_from, v_to
+    );
+    EXECUTE format('ALTER TABLE notification ATTACH PARTITION %I FOR VALUES FROM (%L) TO (%L)', v_name, v_from, v_to);
+    EXECUTE format('ALTER TABLE %I DROP CONSTRAINT %I', v_name, v_name || '_range');
+    RETURN v_moved;
+END;
+$$ LANGUAGE plpgsql;
+
+-- Создает месячные секции notification_pYYYYMM от месяца p_from до текущего месяца + p_months_ahead.
+-- Сначала переносит в собственные секции все месяцы, строки которых лежат в секции по умолчанию.
+CREATE OR REPLACE FUNCTION ensure_notification_partitions(p_from DATE, p_months_ahead INTEGER)
+RETURNS INTEGER AS $$
+DECLARE
+    v_month DATE;
+    v_last DATE := (date_trunc('month', CURRENT_DATE) + make_interval(months => GREATEST(p_months_ahead, 0)))::DATE;
+    v_name TEXT;
+    v_created INTEGER := 0;
+    v_moved INTEGER;
+BEGIN
+    PERFORM pg_advisory_xact_lock(hashtext('notification_retention'));
+
+    FOR v_month IN
+        SELECT DISTINCT date_trunc('month', created_at)::DATE FROM notification_default ORDER BY 1
+    LOOP
+        IF to_regclass('notification_p' || to_char(v_month, 'YYYYMM')) IS NOT NULL THEN
+            -- таблица месяца отсоединена удержанием и еще не удалена
+            RAISE WARNING 'notification_default has rows for %, but its partition table exists', v_month;
+            CONTINUE;
+        END IF;
+        v_moved := move_default_notification_month(v_month);
+        RAISE NOTICE 'Moved % notifications from notification_default to %', v_moved,
+            'notification_p' || to_char(v_month, 'YYYYMM');
+        v_created := v_created + 1;
+    END LOOP;
+
+    v_month := date_trunc('month', p_from)::DATE;
+    WHILE v_month <= v_last LOOP
+        v_name := 'notification_p' || to_char(v_month, 'YYYYMM');
+        IF to_regclass(v_name) IS NULL THEN
+            EXECUTE format(
+                'CREATE TABLE %I PARTITION OF notification FOR VALUES FROM (%L) TO (%L)',
+                v_name, v_month, (v_month + INTERVAL '1 month')::DATE
+            );
+            v_created := v_created + 1;
+        END IF;
+        v_month := (v_month + INTERVAL '1 month')::DATE;
+    END LOOP;
+    RETURN v_created;
+END;
+$$ LANGUAGE plpgsql;
@@ -0,0 +1,3 @@
+-- Архив читает отсоединенную секцию напрямую серверным курсором; функция, материализовавшая
+-- весь месяц через RETURN QUERY EXECUTE, больше не используется.
+DROP FUNCTION IF EXISTS detached_notification_rows(TEXT);
@@ -0,0 +1,21 @@
+-- Уведомление целиком уходит в pg_notify, чтобы узлы не перечитывали его из базы.
+-- Полезная нагрузка NOTIFY ограничена 8000 байтами: длинные уведомления по-прежнему
+-- отправляются как notification_id:person_id и дочитываются получателем.
+CREATE OR REPLACE FUNCTION notify_notification_created() RETURNS TRIGGER AS $$
+DECLARE
+    payload TEXT := json_build_object(
+            'id', NEW.notification_id,
+            'personId', NEW.person_id,
+            'type', NEW.type,
+            'title', NEW.title,
+            'message', NEW.message,
+            'createdAt', NEW.created_at,
+            'read', NEW.read)::text;
+BEGIN
+    IF octet_length(payload) >= 7900 THEN
+        payload := NEW.notification_id || ':' || NEW.person_id;
+    END IF;
+    PERFORM pg_notify('notification_created', payload);
+    RETURN NEW;
+END;
+$$ LANGUAGE plpgsql;
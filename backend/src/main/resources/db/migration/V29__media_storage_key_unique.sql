@@ -0,0 +1,3 @@
+-- Один объект хранилища может быть привязан только к одной записи.
+ALTER TABLE animal_media ADD CONSTRAINT uq_animal_media_storage_key UNIQUE (storage_key);
+ALTER TABLE report_media ADD CONSTRAINT uq_report_media_storage_key UNIQUE (storage_key);
@@ -0,0 +1,68 @@
+-- Лист ожидания не занимает дату: волонтер может ждать места на одной смене,
+-- уже будучи записанным на другую в тот же день.
+DROP INDEX uq_shift_volunteer_active_date;
+
+CREATE UNIQUE INDEX uq_shift_volunteer_active_date
+    ON shift_volunteer (volunteer_id, shift_date)
+    WHERE attendance_status NOT IN ('absent', 'waitlisted');
+
+-- Ожидающие, у которых уже есть место на эту дату, пропускаются и остаются в очереди:
+-- они получат место, если освободят свою другую запись.
+CREATE OR REPLACE FUNCTION promote_shift_waitlist(p_shift_id INTEGER) RETURNS INTEGER AS $$
+DECLARE
+    v_shift shift%ROWTYPE;
+    v_free INTEGER;
+    v_promoted INTEGER := 0;
+    v_volunteer_id INTEGER;
+BEGIN
+    SELECT * INTO v_shift FROM shift WHERE shift_id = p_shift_id FOR UPDATE;
+    IF NOT FOUND OR v_shift.closed_at IS NOT NULL THEN
+        RETURN 0;
+    END IF;
+
+    IF v_shift.capacity IS NOT NULL THEN
+        SELECT v_shift.capacity - COUNT(*) INTO v_free
+        FROM shift_volunteer
+        WHERE shift_id = p_shift_id
+          AND attendance_status IN ('signed_up', 'attended');
+        IF v_free <= 0 THEN
+            RETURN 0;
+        END IF;
+    END IF;
+
+    FOR v_volunteer_id IN
+        SELECT sv.volunteer_id
+        FROM shift_volunteer sv
+        WHERE sv.shift_id = p_shift_id
+          AND sv.attendance_status = 'waitlisted'
+          AND NOT EXISTS (
+              SELECT 1
+              FROM shift_volunteer other
+              WHERE other.volunteer_id = sv.volunteer_id
+                AND other.shift_date = sv.shift_date
+                AND other.attendance_status IN ('signed_up', 'attended')
+          )
+        ORDER BY sv.signed_up_at, sv.volunteer_id
+    LOOP
+        EXIT WHEN v_free IS NOT NULL AND v_promoted >= v_free;
+        BEGIN
+            UPDATE shift_volunteer
+            SET attendance_status = 'signed_up'
+            WHERE shift_id = p_shift_id
+              AND volunteer_id = v_volunteer_id;
+        EXCEPTION
+            -- параллельно получил место на другой смене того же дня
+            WHEN unique_violation THEN
+                CONTINUE;
+        END;
+        INSERT INTO notification (person_id, type, title, message)
+        VALUES (v_volunteer_id,
+                'shift_reminder',
+                'Место на смене освободилось',
+                'Вы переведены из листа ожидания и записаны на смену ' || to_char(v_shift.shift_date, 'DD.MM.YYYY'));
+        v_promoted := v_promoted + 1;
+    END LOOP;
+
+    RETURN v_promoted;
+END;
+$$ LANGUAGE plpgsql;
@@ -0,0 +1,2 @@
+ALTER TABLE animal_media ADD COLUMN variant_widths INTEGER[];
+ALTER TABLE report_media ADD COLUMN variant_widths INTEGER[];
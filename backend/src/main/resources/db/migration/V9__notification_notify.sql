@@ -0,0 +1,11 @@
+CREATE FUNCTION notify_notification_created() RETURNS TRIGGER AS $$
+BEGIN
+    PERFORM pg_notify('notification_created', NEW.notification_id || ':' || NEW.person_id);
+    RETURN NEW;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER notification_created_notify
+    AFTER INSERT ON notification
+    FOR EACH ROW
+    EXECUTE FUNCTION notify_notification_created();
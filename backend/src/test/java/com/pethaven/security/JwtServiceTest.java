@@ -0,0 +1,84 @@
+package com.pethaven.security;
+
+import com.pethaven.model.enums.SystemRole;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.GrantedAuthority;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class JwtServiceTest {
+
+    private static final String SECRET = "test-secret-key-with-at-least-32-bytes!";
+
+    @Test
+    void repeatedAuthenticationReturnsSamePrincipal() {
+        JwtService jwtService = new JwtService(SECRET, 900, 100);
+        String token = jwtService.generateToken(7L, "user@example.com", Set.of(SystemRole.volunteer));
+
+        UsernamePasswordAuthenticationToken first = jwtService.authenticate(token).orElseThrow();
+        UsernamePasswordAuthenticationToken cached = jwtService.authenticate(token).orElseThrow();
+
+        assertThat(first.getPrincipal()).isEqualTo(7L);
+        assertThat(cached.getPrincipal()).isEqualTo(7L);
+        assertThat(cached.getCredentials()).isEqualTo(token);
+        assertThat(cached.getAuthorities()).extracting(GrantedAuthority::getAuthority).containsExactly("ROLE_VOLUNTEER");
+    }
+
+    @Test
+    void rejectsForeignAndExpiredTokens() {
+        JwtService jwtService = new JwtService(SECRET, 900, 100);
+        String foreign = new JwtService("another-secret-key-with-at-least-32-bytes", 900, 100)
+                .generateToken(7L, "user@example.com", Set.of(SystemRole.admin));
+        String expired = new JwtService(SECRET, -60, 100)
+                .generateToken(7L, "user@example.com", Set.of(SystemRole.volunteer));
+
+        assertThat(jwtService.authenticate(foreign)).isEmpty();
+        assertThat(jwtService.authenticate(expired)).isEmpty();
+        assertThat(jwtService.authenticate(" ")).isEmpty();
+    }
+
+    /**
+     * Кэш на 16 токенов при 200 разных токенах постоянно вытесняет записи, пока потоки читают его.
+     */
+    @Test
+    void concurrentAuthenticationWithEvictionsStaysCorrect() throws Exception {
+        JwtService jwtService = new JwtService(SECRET, 900, 16);
+        List<String> tokens = new ArrayList<>();
+        for (long id = 1; id <= 200; id++) {
+            tokens.add(jwtService.generateToken(id, "user" + id + "@example.com", Set.of(SystemRole.candidate)));
+        }
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Integer>> results = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                int offset = t;
+                results.add(pool.submit(() -> {
+                    int mismatches = 0;
+                    for (int i = 0; i < 5_000; i++) {
+                        int index = (i * 7 + offset) % tokens.size();
+                        Optional<UsernamePasswordAuthenticationToken> auth = jwtService.authenticate(tokens.get(index));
+                        if (auth.isEmpty() || !Long.valueOf(index + 1).equals(auth.get().getPrincipal())) {
+                            mismatches++;
+                        }
+                    }
+                    return mismatches;
+                }));
+            }
+            for (Future<Integer> result : results) {
+                assertThat(result.get(30, TimeUnit.SECONDS)).isZero();
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+}
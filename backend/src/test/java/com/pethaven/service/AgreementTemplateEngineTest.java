@@ -0,0 +1,94 @@
+package com.pethaven.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AgreementTemplateEngineTest {
+
+    private final AgreementTemplateEngine engine = new AgreementTemplateEngine();
+
+    @Test
+    void rendersAllEntriesWithEscapedPlaceholders() throws IOException {
+        Map<String, String> entries = unzip(render(data(42L, "Барсик & <Ко>")));
+
+        assertThat(entries).containsOnlyKeys("[Content_Types].xml", "_rels/.rels", "word/document.xml");
+        String document = entries.get("word/document.xml");
+        assertThat(document)
+                .contains("№ 42 от 18.10.2026")
+                .contains("Барсик &amp; &lt;Ко&gt;")
+                .contains("Иван Петров")
+                .doesNotContain("{{");
+    }
+
+    @Test
+    void rendersMissingValuesAsEmpty() throws IOException {
+        AgreementTemplateEngine.AgreementData data =
+                new AgreementTemplateEngine.AgreementData(1L, 2L, null, null, null, null, null, null);
+
+        String document = unzip(render(data)).get("word/document.xml");
+
+        assertThat(document).contains("Животное: pet").doesNotContain("{{").doesNotContain("null");
+    }
+
+    /**
+     * Один экземпляр движка обслуживает все запросы: параллельная генерация не должна смешивать данные.
+     */
+    @Test
+    void concurrentRenderingIsIsolated() throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<String>> documents = IntStream.range(0, 200)
+                    .mapToObj(i -> pool.submit(() -> unzip(render(data((long) i, "pet-" + i))).get("word/document.xml")))
+                    .toList();
+            for (int i = 0; i < documents.size(); i++) {
+                assertThat(documents.get(i).get(30, TimeUnit.SECONDS)).contains("№ " + i + " от").contains("Животное: pet-" + i + " (cat)");
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    void sizeHintCoversRenderedArchive() throws IOException {
+        assertThat(engine.sizeHint()).isGreaterThanOrEqualTo(render(data(1L, "pet")).length);
+    }
+
+    private byte[] render(AgreementTemplateEngine.AgreementData data) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(engine.sizeHint());
+        engine.render(data, out);
+        return out.toByteArray();
+    }
+
+    private static AgreementTemplateEngine.AgreementData data(Long agreementId, String petName) {
+        return new AgreementTemplateEngine.AgreementData(agreementId, 7L, petName, "cat", "Иван Петров",
+                "ivan@example.com", LocalDate.of(2026, 10, 18), "Навещать раз в месяц");
+    }
+
+    private static Map<String, String> unzip(byte[] archive) throws IOException {
+        Map<String, String> entries = new LinkedHashMap<>();
+        try (ZipInputStream zip = new ZipInputStream(new ByteArrayInputStream(archive))) {
+            ZipEntry entry;
+            while ((entry = zip.getNextEntry()) != null) {
+                entries.put(entry.getName(), new String(zip.readAllBytes(), StandardCharsets.UTF_8));
+            }
+        }
+        return entries;
+    }
+}
@@ -0,0 +1,99 @@
+package com.pethaven.service;
+
+import com.pethaven.dto.AnimalResponse;
+import com.pethaven.entity.AnimalEntity;
+import com.pethaven.entity.AnimalMediaEntity;
+import com.pethaven.mapper.AnimalMapperImpl;
+import com.pethaven.repository.AnimalMediaLinkProjection;
+import com.pethaven.repository.AnimalMediaRepository;
+import com.pethaven.repository.AnimalNoteRepository;
+import com.pethaven.repository.AnimalRepository;
+import com.pethaven.repository.MedicalRecordRepository;
+import com.pethaven.repository.PersonRepository;
+import org.junit.jupiter.api.Test;
+
+import java.util.AbstractList;
+import java.util.List;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.mockingDetails;
+import static org.mockito.Mockito.when;
+
+/**
+ * Каталог строится за постоянное число запросов: сами животные и одна пакетная выборка медиа,
+ * без обращения к ленивой коллекции {@code AnimalEntity.media}.
+ */
+class AnimalServiceQueryCountTest {
+
+    @Test
+    void catalogUsesConstantNumberOfQueries() {
+        assertThat(catalogQueries(5)).isEqualTo(2);
+        assertThat(catalogQueries(500)).isEqualTo(2);
+    }
+
+    @Test
+    void catalogKeepsPhotoOrderFromBatchQuery() {
+        AnimalRepository animals = mock(AnimalRepository.class);
+        AnimalMediaRepository media = mock(AnimalMediaRepository.class);
+        when(animals.findCatalog(any(), any(), anyBoolean())).thenReturn(animals(2));
+        when(media.findLinksByAnimalIds(any())).thenReturn(List.of(
+                new Link(1L, 12L), new Link(1L, 11L), new Link(2L, 21L)));
+
+        List<AnimalResponse> catalog = service(animals, media).getCatalog(null, null, true, false, false);
+
+        assertThat(catalog).hasSize(2);
+        assertThat(catalog.get(0).photos()).containsExactly("/api/v1/media/animals/12", "/api/v1/media/animals/11");
+        assertThat(catalog.get(1).photos()).containsExactly("/api/v1/media/animals/21");
+    }
+
+    private static int catalogQueries(int size) {
+        AnimalRepository animals = mock(AnimalRepository.class);
+        AnimalMediaRepository media = mock(AnimalMediaRepository.class);
+        when(animals.findCatalog(any(), any(), anyBoolean())).thenReturn(animals(size));
+        when(media.findLinksByAnimalIds(any())).thenReturn(List.of());
+
+        assertThat(service(animals, media).getCatalog(null, null, true, false, false)).hasSize(size);
+
+        return mockingDetails(animals).getInvocations().size() + mockingDetails(media).getInvocations().size();
+    }
+
+    private static AnimalService service(AnimalRepository animals, AnimalMediaRepository media) {
+        return new AnimalService(animals, media, mock(AnimalNoteRepository.class), mock(NotificationService.class),
+                mock(MedicalRecordRepository.class), mock(PersonRepository.class), new AnimalMapperImpl(),
+                mock(SettingService.class), mock(MediaVariantService.class), mock(ObjectStorageService.class));
+    }
+
+    private static List<AnimalEntity> animals(int size) {
+        return LongStream.rangeClosed(1, size)
+                .mapToObj(id -> {
+                    AnimalEntity animal = new AnimalEntity();
+                    animal.setId(id);
+                    animal.setName("animal-" + id);
+                    animal.setMedia(new UnloadedMedia());
+                    return animal;
+                })
+                .toList();
+    }
+
+    /**
+     * Непрогруженная ленивая коллекция: любое обращение означало бы отдельный запрос на животное.
+     */
+    private static final class UnloadedMedia extends AbstractList<AnimalMediaEntity> {
+        @Override
+        public AnimalMediaEntity get(int index) {
+            throw new AssertionError("AnimalEntity.media must not be loaded per animal");
+        }
+
+        @Override
+        public int size() {
+            throw new AssertionError("AnimalEntity.media must not be loaded per animal");
+        }
+    }
+
+    private record Link(Long getAnimalId, Long getId) implements AnimalMediaLinkProjection {
+    }
+}
@@ -0,0 +1,88 @@
+package com.pethaven.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pethaven.config.NotificationProperties;
+import com.pethaven.repository.NotificationRepository;
+import com.pethaven.websocket.NotificationDispatcher;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class NotificationServiceConcurrencyTest {
+
+    private static final long PERSON_ID = 1L;
+    private static final int SESSIONS = 2_000;
+    private static final int BROADCASTERS = 4;
+
+    @Test
+    void closedSessionsLeaveNoDispatchQueues() throws Exception {
+        NotificationProperties properties = new NotificationProperties();
+        TaskExecutor inline = Runnable::run;
+        NotificationDispatcher dispatcher = new NotificationDispatcher(inline, properties);
+        NotificationService service = new NotificationService(mock(NotificationRepository.class), new ObjectMapper(),
+                dispatcher, properties);
+
+        ExecutorService pool = Executors.newFixedThreadPool(BROADCASTERS + 1);
+        AtomicBoolean done = new AtomicBoolean();
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<?>> broadcasters = new ArrayList<>();
+            for (int i = 0; i < BROADCASTERS; i++) {
+                broadcasters.add(pool.submit(() -> {
+                    start.await();
+                    while (!done.get()) {
+                        service.sendEvent(PERSON_ID, Map.of("type", "ping"));
+                    }
+                    return null;
+                }));
+            }
+            Future<?> churn = pool.submit(() -> {
+                start.await();
+                for (int i = 0; i < SESSIONS; i++) {
+                    AtomicBoolean open = new AtomicBoolean(true);
+                    WebSocketSession session = session("s" + i, open);
+                    service.registerSocket(PERSON_ID, session);
+                    Thread.yield();
+                    // как в обработчике: сессия уже закрыта, когда ее снимают с учета
+                    open.set(false);
+                    service.unregisterSocket(PERSON_ID, session);
+                }
+                return null;
+            });
+            start.countDown();
+            churn.get(60, TimeUnit.SECONDS);
+            done.set(true);
+            for (Future<?> broadcaster : broadcasters) {
+                broadcaster.get(10, TimeUnit.SECONDS);
+            }
+        } finally {
+            done.set(true);
+            pool.shutdownNow();
+        }
+
+        assertThat(service.hasLocalSessions(PERSON_ID)).isFalse();
+        assertThat(dispatcher.stats().sessions()).isZero();
+        assertThat(dispatcher.stats().queuedMessages()).isZero();
+    }
+
+    private static WebSocketSession session(String id, AtomicBoolean open) {
+        WebSocketSession session = mock(WebSocketSession.class);
+        when(session.getId()).thenReturn(id);
+        when(session.isOpen()).thenAnswer(invocation -> open.get());
+        return session;
+    }
+}
@@ -0,0 +1,98 @@
+package com.pethaven.service;
+
+import com.pethaven.dto.ShiftBulkCloseRequest;
+import com.pethaven.dto.ShiftBulkCloseResponse;
+import com.pethaven.mapper.ShiftMapper;
+import com.pethaven.repository.ShiftCloseProjection;
+import com.pethaven.repository.ShiftRepository;
+import com.pethaven.repository.ShiftVolunteerRepository;
+import com.pethaven.repository.TaskRepository;
+import com.pethaven.repository.TaskShiftRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+/**
+ * Массовое закрытие смен: один запрос на все смены вместо сохранения записей по одной.
+ */
+class ShiftServiceBulkCloseTest {
+
+    private ShiftRepository shiftRepository;
+    private ShiftVolunteerRepository shiftVolunteerRepository;
+    private ShiftService service;
+
+    @BeforeEach
+    void setUp() {
+        shiftRepository = mock(ShiftRepository.class);
+        shiftVolunteerRepository = mock(ShiftVolunteerRepository.class);
+        service = new ShiftService(shiftRepository, shiftVolunteerRepository, mock(TaskShiftRepository.class),
+                mock(TaskRepository.class), mock(ShiftMapper.class));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void closesThousandShiftsWithOneStatement() {
+        List<Long> ids = LongStream.rangeClosed(1, 1000).boxed().toList();
+        List<Long> descending = LongStream.rangeClosed(1, 1000).map(i -> 1001 - i).boxed().toList();
+        List<ShiftCloseProjection> rows = ids.stream()
+                .map(id -> (ShiftCloseProjection) new Row(id, 4, 3L))
+                .toList();
+        when(shiftRepository.closeAndApprove(any(), eq(null))).thenReturn(rows);
+
+        ShiftBulkCloseResponse response = service.closeShifts(new ShiftBulkCloseRequest(descending, null, null, null));
+
+        ArgumentCaptor<Collection<Long>> captor = ArgumentCaptor.forClass(Collection.class);
+        verify(shiftRepository).closeAndApprove(captor.capture(), eq(null));
+        // смены блокируются в порядке id, чтобы параллельные закрытия не взаимоблокировались
+        assertThat(captor.getValue()).containsExactlyElementsOf(ids);
+        verifyNoInteractions(shiftVolunteerRepository);
+        assertThat(response.shiftsClosed()).isEqualTo(1000);
+        assertThat(response.volunteersApproved()).isEqualTo(3000);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void mergesPeriodWithExplicitIds() {
+        LocalDate from = LocalDate.of(2026, 9, 1);
+        LocalDate to = LocalDate.of(2026, 9, 30);
+        when(shiftRepository.findOpenIdsBetween(from, to)).thenReturn(List.of(5L, 3L));
+        when(shiftRepository.closeAndApprove(any(), eq(6))).thenReturn(List.of(new Row(3L, 6, null)));
+
+        ShiftBulkCloseResponse response = service.closeShifts(new ShiftBulkCloseRequest(List.of(5L, 9L), from, to, 6));
+
+        ArgumentCaptor<Collection<Long>> captor = ArgumentCaptor.forClass(Collection.class);
+        verify(shiftRepository).closeAndApprove(captor.capture(), eq(6));
+        assertThat(captor.getValue()).containsExactly(3L, 5L, 9L);
+        assertThat(response.shiftsClosed()).isEqualTo(1);
+        assertThat(response.volunteersApproved()).isZero();
+    }
+
+    @Test
+    void rejectsMissingOrTooLongPeriod() {
+        assertThatThrownBy(() -> service.closeShifts(new ShiftBulkCloseRequest(null, null, null, null)))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> service.closeShifts(new ShiftBulkCloseRequest(null, LocalDate.of(2026, 1, 1), null, null)))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> service.closeShifts(new ShiftBulkCloseRequest(null,
+                LocalDate.of(2026, 1, 1), LocalDate.of(2026, 12, 31), null)))
+                .isInstanceOf(IllegalArgumentException.class);
+        verifyNoInteractions(shiftRepository);
+    }
+
+    private record Row(Long getShiftId, Integer getWorkedHours, Long getApproved) implements ShiftCloseProjection {
+    }
+}
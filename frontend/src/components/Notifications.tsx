@@ -2,16 +2,18 @@ import React, { useEffect, useRef, useState } from 'react';
 import { Bell, Check, Trash2, Info, CheckCircle, AlertTriangle, AlertCircle } from 'lucide-react';
 import { motion, AnimatePresence } from 'framer-motion';
 import { Notification } from '../types';
-import { getNotifications, markAllNotificationsRead, markNotificationRead, deleteAllNotifications } from '../services/api';
+import { getNotificationsPage, getUnreadNotificationsCount, markAllNotificationsRead, markNotificationRead, deleteAllNotifications } from '../services/api';
 import { useAuth } from '../contexts/AuthContext';
 export function Notifications() {
   const { user } = useAuth();
   const [isOpen, setIsOpen] = useState(false);
   const [notifications, setNotifications] = useState<Notification[]>([]);
+  const [unreadCount, setUnreadCount] = useState(0);
   const socketRef = useRef<WebSocket | null>(null);
   useEffect(() => {
     if (user) {
-      getNotifications().then(setNotifications).catch(() => setNotifications([]));
+      getNotificationsPage().then(page => setNotifications(page.items)).catch(() => setNotifications([]));
+      getUnreadNotificationsCount().then(setUnreadCount).catch(() => setUnreadCount(0));
       const apiBase = (import.meta.env.VITE_API_BASE as string | undefined);
       const wsEnv = (import.meta.env.VITE_WS_BASE as string | undefined);
       let wsBase: string;
@@ -27,8 +29,9 @@ export function Notifications() {
       ws.onmessage = (event) => {
         try {
           const data = JSON.parse(event.data) as Notification | { type: string };
-          if ((data as any).type === 'connected') return;
+          if ((data as any).type === 'connected' || (data as any).type === 'upload_progress') return;
           setNotifications(prev => [data as Notification, ...prev]);
+          setUnreadCount(prev => prev + 1);
         } catch {
           // ignore
         }
@@ -41,9 +44,11 @@ export function Notifications() {
       };
     }
   }, [user]);
-  const unreadCount = notifications.filter(n => !n.read).length;
   const markAsRead = async (id: number) => {
     if (!user) return;
+    if (notifications.some(n => n.id === id && !n.read)) {
+      setUnreadCount(prev => Math.max(prev - 1, 0));
+    }
     setNotifications(notifications.map(n => n.id === id ? {
       ...n,
       read: true
@@ -52,6 +57,7 @@ export function Notifications() {
   };
   const markAllAsRead = async () => {
     if (!user) return;
+    setUnreadCount(0);
     setNotifications(notifications.map(n => ({
       ...n,
       read: true
@@ -60,6 +66,7 @@ export function Notifications() {
   };
   const clearAll = async () => {
     if (!user) return;
+    setUnreadCount(0);
     setNotifications([]);
     await deleteAllNotifications();
   };
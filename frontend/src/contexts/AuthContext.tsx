@@ -1,6 +1,6 @@
 import React, { useEffect, useState, createContext, useContext } from 'react';
 import { AuthUser } from '../types';
-import { login as apiLogin } from '../services/api';
+import { login as apiLogin, logout as apiLogout } from '../services/api';
 interface AuthContextType {
   user: AuthUser | null;
   primaryRole?: string;
@@ -33,6 +33,9 @@ export function AuthProvider({ children }: { children: React.ReactNode }) {
     }
   };
   const logout = () => {
+    if (user?.refreshToken) {
+      apiLogout(user.refreshToken).catch(() => undefined);
+    }
     setUser(null);
     localStorage.removeItem('petHavenUser');
   };
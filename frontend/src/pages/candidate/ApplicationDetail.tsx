@@ -10,7 +10,7 @@ import {
   confirmInterview,
   cancelAdoptionApplication,
   declineInterview,
-  getAgreements
+  getAgreementByApplication
 } from '../../services/api';
 import { useAppModal } from '../../contexts/AppModalContext';
 
@@ -42,8 +42,7 @@ export function CandidateApplicationDetail() {
         setInterviews(interviewData);
         setAnimal(pet);
         try {
-          const agreements = await getAgreements();
-          const match = agreements.find((a) => a.applicationId === app.id);
+          const match = await getAgreementByApplication(app.id);
           setAgreementConfirmed(Boolean(match?.confirmedAt));
         } catch {
           setAgreementConfirmed(false);
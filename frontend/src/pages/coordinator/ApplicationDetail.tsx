@@ -9,7 +9,7 @@ import {
   getUsers,
   updateApplicationStatus,
   scheduleInterview,
-  getAgreements,
+  getAgreementByApplication,
   downloadSignedAgreement,
   downloadPassport,
   getInterviews
@@ -43,14 +43,14 @@ export function CoordinatorApplicationDetail() {
         const app = await getApplicationById(Number(id));
         setApplication(app);
         setDecisionComment(app.decisionComment || '');
-        const [pet, users, agreements] = await Promise.all([
+        const [pet, users, agreementData] = await Promise.all([
           getAnimal(app.animalId),
           getUsers(),
-          getAgreements()
+          getAgreementByApplication(app.id)
         ]);
         setAnimal(pet);
         setCandidate(users.find((u) => u.id === app.candidateId) || null);
-        setAgreement(agreements.find((a) => a.applicationId === app.id) || null);
+        setAgreement(agreementData);
         try {
           const ints = await getInterviews(app.id);
           setInterviews(ints);
@@ -3,14 +3,17 @@ import { Link } from 'react-router-dom';
 import { DashboardLayout } from '../../components/dashboard/DashboardLayout';
 import { Check, X, User, FileText, Calendar } from 'lucide-react';
 import { ApplicationReviewModal } from '../../components/modals/ApplicationReviewModal';
-import { Application, Animal, UserProfile } from '../../types';
-import { getApplications, getAnimals, getUsers, updateApplicationStatus, scheduleInterview, getAllInterviews } from '../../services/api';
+import { ApplicationQueueItem, ApplicationStatus } from '../../types';
+import { getApplicationQueue, updateApplicationStatus, scheduleInterview, getAllInterviews } from '../../services/api';
 import { AnimalAvatar } from '../../components/AnimalAvatar';
 import { PersonAvatar } from '../../components/PersonAvatar';
+const PAGE_SIZE = 50;
+
 export function CoordinatorApplications() {
-  const [applications, setApplications] = useState<Application[]>([]);
-  const [animalMap, setAnimalMap] = useState<Record<number, Animal>>({});
-  const [userMap, setUserMap] = useState<Record<number, UserProfile>>({});
+  const [applications, setApplications] = useState<ApplicationQueueItem[]>([]);
+  const [statusFilter, setStatusFilter] = useState<ApplicationStatus | ''>('');
+  const [nextCursor, setNextCursor] = useState<string | undefined>();
+  const [loadingMore, setLoadingMore] = useState(false);
   const [selectedAppId, setSelectedAppId] = useState<number | null>(null);
   const [modalType, setModalType] = useState<'approve' | 'reject'>('approve');
   const [isModalOpen, setIsModalOpen] = useState(false);
@@ -19,14 +22,18 @@ export function CoordinatorApplications() {
   const [savingSchedule, setSavingSchedule] = useState(false);
   const [interviewCompletedApps, setInterviewCompletedApps] = useState<Set<number>>(new Set());
   useEffect(() => {
-    Promise.all([getApplications(), getAnimals(), getUsers(), getAllInterviews()]).then(([apps, animals, users, interviews]) => {
-      setApplications(apps);
-      const map: Record<number, Animal> = {};
-      animals.forEach(a => map[a.id] = a);
-      setAnimalMap(map);
-      const uMap: Record<number, UserProfile> = {};
-      users.forEach(u => uMap[u.id] = u);
-      setUserMap(uMap);
+    let cancelled = false;
+    getApplicationQueue({ status: statusFilter || undefined, limit: PAGE_SIZE }).then(page => {
+      if (cancelled) return;
+      setApplications(page.items);
+      setNextCursor(page.nextCursor);
+    });
+    return () => {
+      cancelled = true;
+    };
+  }, [statusFilter]);
+  useEffect(() => {
+    getAllInterviews().then(interviews => {
       const completed = new Set<number>();
       interviews.forEach(i => {
         if (i.status === 'completed') {
@@ -36,6 +43,17 @@ export function CoordinatorApplications() {
       setInterviewCompletedApps(completed);
     });
   }, []);
+  const loadMore = async () => {
+    if (!nextCursor || loadingMore) return;
+    setLoadingMore(true);
+    try {
+      const page = await getApplicationQueue({ status: statusFilter || undefined, cursor: nextCursor, limit: PAGE_SIZE });
+      setApplications(prev => [...prev, ...page.items]);
+      setNextCursor(page.nextCursor);
+    } finally {
+      setLoadingMore(false);
+    }
+  };
   const handleAction = (id: number, type: 'approve' | 'reject') => {
     setSelectedAppId(id);
     setModalType(type);
@@ -67,14 +85,27 @@ export function CoordinatorApplications() {
       updateApplicationStatus(selectedAppId, status, notes).then(() => {
         setApplications(apps => apps.map(app => app.id === selectedAppId ? {
           ...app,
-          status,
-          notes
+          status
         } : app));
       });
     }
     setIsModalOpen(false);
   };
   return <DashboardLayout title="Заявки на адопцию">
+      <div className="flex justify-end mb-4">
+        <select
+          value={statusFilter}
+          onChange={(e) => setStatusFilter(e.target.value as ApplicationStatus | '')}
+          className="rounded-lg border border-gray-200 px-3 py-2 text-sm text-gray-700 focus:ring-2 focus:ring-amber-500 focus:border-amber-500"
+        >
+          <option value="">Все статусы</option>
+          <option value="submitted">Новые</option>
+          <option value="under_review">На рассмотрении</option>
+          <option value="approved">Одобренные</option>
+          <option value="rejected">Отклоненные</option>
+          <option value="cancelled">Отмененные</option>
+        </select>
+      </div>
       <div className="bg-white rounded-xl shadow-sm border border-gray-100 overflow-hidden">
         <div className="overflow-x-auto">
         <table className="w-full text-left min-w-[760px]">
@@ -89,27 +120,26 @@ export function CoordinatorApplications() {
           </thead>
           <tbody className="divide-y divide-gray-100">
             {applications.map(app => {
-            const animal = animalMap[app.animalId];
-            const user = userMap[app.candidateId];
+            const candidateName = `${app.candidateFirstName || ''} ${app.candidateLastName || ''}`.trim();
             return <tr key={app.id} className="hover:bg-gray-50 transition-colors">
                   <td className="px-6 py-4">
                     <Link to={`/coordinator/candidate/${app.candidateId}`} className="group flex items-center">
-                      <PersonAvatar src={user?.avatarUrl} name={user ? `${user.firstName} ${user.lastName}` : undefined} sizeClass="w-9 h-9" className="mr-3" />
+                      <PersonAvatar name={candidateName || undefined} sizeClass="w-9 h-9" className="mr-3" />
                       <div>
                         <div className="font-medium text-gray-900 group-hover:text-amber-600 transition-colors">
-                          {(user?.firstName || user?.lastName) ? `${user?.firstName || ''} ${user?.lastName || ''}`.trim() : `Кандидат #${app.candidateId}`}
+                          {candidateName || `Кандидат #${app.candidateId}`}
                         </div>
                         <div className="text-xs text-gray-500">
-                          {user?.email || app.details?.email || ''}
+                          {app.candidateEmail || ''}
                         </div>
                       </div>
                     </Link>
                   </td>
                   <td className="px-6 py-4">
                     <div className="flex items-center">
-                      <AnimalAvatar src={animal?.photos?.[0]} name={animal?.name} sizeClass="w-8 h-8" className="mr-2" />
+                      <AnimalAvatar name={app.animalName} sizeClass="w-8 h-8" className="mr-2" />
                       <span className="text-sm text-gray-900">
-                        {animal?.name || `Животное #${app.animalId}`}
+                        {app.animalName || `Животное #${app.animalId}`}
                       </span>
                     </div>
                   </td>
@@ -165,6 +195,15 @@ export function CoordinatorApplications() {
           </tbody>
         </table>
         </div>
+        {nextCursor && <div className="p-4 border-t border-gray-100 text-center">
+            <button
+              onClick={loadMore}
+              disabled={loadingMore}
+              className="px-4 py-2 rounded-lg border border-gray-200 text-sm text-gray-700 hover:bg-gray-50 disabled:opacity-50"
+            >
+              {loadingMore ? 'Загружаем...' : 'Показать еще'}
+            </button>
+          </div>}
       </div>
 
       <ApplicationReviewModal isOpen={isModalOpen} onClose={() => setIsModalOpen(false)} onConfirm={handleConfirm} type={modalType} />
@@ -3,7 +3,7 @@ import { DashboardLayout } from '../../components/dashboard/DashboardLayout';
 import { Calendar, AlertCircle, CheckCircle, Clock, Filter } from 'lucide-react';
 import { Link } from 'react-router-dom';
 import {
-  getAgreement,
+  getAgreements,
   getAnimals,
   getApplications,
   getPostAdoptionReports,
@@ -42,16 +42,11 @@ export function CoordinatorPostAdoption() {
       usersList.forEach((u) => (usersMap[u.id] = u));
       setUsers(usersMap);
 
-      const agreementsList = await Promise.all(
-        reportsData.map((r) =>
-          r.agreementId ? getAgreement(r.agreementId).catch(() => null) : Promise.resolve(null)
-        )
-      );
+      // договоры одним постраничным обходом вместо запроса на каждый отчет
+      const agreementsList = await getAgreements().catch(() => [] as Agreement[]);
       const agrMap: Record<number, Agreement> = {};
       agreementsList.forEach((agr) => {
-        if (agr) {
-          agrMap[agr.id] = agr;
-        }
+        agrMap[agr.id] = agr;
       });
       setAgreements(agrMap);
 
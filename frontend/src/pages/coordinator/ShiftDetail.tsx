@@ -188,7 +188,13 @@ export function CoordinatorShiftDetail() {
             const person = userMap[v.volunteerId];
             const name = person ? `${person.firstName} ${person.lastName}` : `Волонтёр #${v.volunteerId}`;
             const attendanceLabel =
-              v.attendanceStatus === 'attended' ? 'На смене' : v.attendanceStatus === 'absent' ? 'Не явился' : 'Записан';
+              v.attendanceStatus === 'attended'
+                ? 'На смене'
+                : v.attendanceStatus === 'absent'
+                  ? 'Не явился'
+                  : v.attendanceStatus === 'waitlisted'
+                    ? 'Лист ожидания'
+                    : 'Записан';
             const attendanceClass =
               v.attendanceStatus === 'attended'
                 ? 'bg-green-100 text-green-700'
@@ -2,7 +2,7 @@ import { useEffect, useState } from 'react';
 import { DashboardLayout } from '../../components/dashboard/DashboardLayout';
 import { Calendar, Clock, Plus } from 'lucide-react';
 import { Link, useNavigate } from 'react-router-dom';
-import { createShift, getShifts, getShiftVolunteers, getShiftTasks } from '../../services/api';
+import { closeShiftsBulk, createShift, getShifts, getShiftRoster } from '../../services/api';
 import { Shift } from '../../types';
 
 const SHIFT_LABEL: Record<Shift['shiftType'], string> = {
@@ -11,36 +11,45 @@ const SHIFT_LABEL: Record<Shift['shiftType'], string> = {
   full_day: 'Полный день'
 };
 
+const ROSTER_WINDOW_DAYS = 42;
+const DAY_MS = 24 * 60 * 60 * 1000;
+const BULK_CLOSE_CHUNK = 1000;
+
+// Окна не длиннее лимита /shifts/roster, покрывающие все даты смен.
+function rosterWindows(shifts: Shift[]): Array<[string, string]> {
+  if (shifts.length === 0) return [];
+  const times = shifts.map((s) => Date.parse(s.shiftDate));
+  const last = Math.max(...times);
+  const windows: Array<[string, string]> = [];
+  for (let start = Math.min(...times); start <= last; start += ROSTER_WINDOW_DAYS * DAY_MS) {
+    const end = Math.min(start + (ROSTER_WINDOW_DAYS - 1) * DAY_MS, last);
+    windows.push([new Date(start).toISOString().slice(0, 10), new Date(end).toISOString().slice(0, 10)]);
+  }
+  return windows;
+}
+
 export function CoordinatorShiftManagement() {
   const [shifts, setShifts] = useState<Shift[]>([]);
   const [volCountMap, setVolCountMap] = useState<Record<number, number>>({});
   const [taskCountMap, setTaskCountMap] = useState<Record<number, number>>({});
   const [createOpen, setCreateOpen] = useState(false);
-  const [newShift, setNewShift] = useState<{ date: string; type: Shift['shiftType'] }>({ date: '', type: 'morning' });
+  const [newShift, setNewShift] = useState<{ date: string; type: Shift['shiftType']; capacity: string }>({
+    date: '',
+    type: 'morning',
+    capacity: ''
+  });
   const [saving, setSaving] = useState(false);
+  const [closing, setClosing] = useState(false);
   const navigate = useNavigate();
 
   const loadData = async () => {
     const shiftsData = await getShifts();
     setShifts(shiftsData);
-    const volunteerData = await Promise.all(
-      shiftsData.map(async (s) => {
-        const vols = await getShiftVolunteers(s.id);
-        return { id: s.id, vols };
-      })
-    );
-    const tasksData = await Promise.all(
-      shiftsData.map(async (s) => {
-        const tasks = await getShiftTasks(s.id);
-        return { id: s.id, tasks };
-      })
-    );
     const volMap: Record<number, number> = {};
     const taskMap: Record<number, number> = {};
-    volunteerData.forEach((item) => {
-      volMap[item.id] = item.vols.filter((v) => v.attendanceStatus !== 'absent').length;
-    });
-    tasksData.forEach((item) => {
+    const rosters = await Promise.all(rosterWindows(shiftsData).map(([from, to]) => getShiftRoster(from, to)));
+    rosters.flat().forEach((item) => {
+      volMap[item.id] = item.volunteers.filter((v) => v.attendanceStatus === 'signed_up' || v.attendanceStatus === 'attended').length;
       taskMap[item.id] = item.tasks.length;
     });
     setVolCountMap(volMap);
@@ -51,6 +60,31 @@ export function CoordinatorShiftManagement() {
     loadData();
   }, []);
 
+  const pastOpenIds = shifts
+    .filter((s) => !s.closedAt && new Date(s.shiftDate) < new Date(new Date().toDateString()))
+    .map((s) => s.id);
+
+  const handleClosePast = async () => {
+    if (!confirm(`Закрыть прошедшие смены (${pastOpenIds.length}) и подтвердить явку волонтёров?`)) return;
+    setClosing(true);
+    try {
+      // сервер принимает не больше BULK_CLOSE_CHUNK id за запрос
+      let shiftsClosed = 0;
+      let volunteersApproved = 0;
+      for (let i = 0; i < pastOpenIds.length; i += BULK_CLOSE_CHUNK) {
+        const result = await closeShiftsBulk({ shiftIds: pastOpenIds.slice(i, i + BULK_CLOSE_CHUNK) });
+        shiftsClosed += result.shiftsClosed;
+        volunteersApproved += result.volunteersApproved;
+      }
+      await loadData();
+      alert(`Закрыто смен: ${shiftsClosed}, подтверждено записей: ${volunteersApproved}`);
+    } catch (e: any) {
+      alert(e?.response?.data?.message || 'Не удалось закрыть смены');
+    } finally {
+      setClosing(false);
+    }
+  };
+
   const handleCreateShift = async () => {
     if (!newShift.date) {
       alert('Укажите дату смены');
@@ -58,10 +92,14 @@ export function CoordinatorShiftManagement() {
     }
     setSaving(true);
     try {
-      await createShift({ shiftDate: newShift.date, shiftType: newShift.type });
+      await createShift({
+        shiftDate: newShift.date,
+        shiftType: newShift.type,
+        capacity: newShift.capacity ? Number(newShift.capacity) : undefined
+      });
       await loadData();
       setCreateOpen(false);
-      setNewShift({ date: '', type: 'morning' });
+      setNewShift({ date: '', type: 'morning', capacity: '' });
     } finally {
       setSaving(false);
     }
@@ -75,13 +113,23 @@ export function CoordinatorShiftManagement() {
             <Calendar className="w-5 h-5 text-amber-500 mr-2" />
             <div className="text-sm text-gray-600">Список смен</div>
           </div>
-          <button
-            onClick={() => setCreateOpen(true)}
-            className="flex items-center bg-amber-500 text-white px-4 py-2 rounded-lg text-sm font-medium hover:bg-amber-600 transition-colors"
-          >
-            <Plus className="w-4 h-4 mr-2" />
-            Создать смену
-          </button>
+          <div className="flex items-center gap-2">
+            <button
+              onClick={handleClosePast}
+              disabled={closing || pastOpenIds.length === 0}
+              className="flex items-center border border-gray-200 text-gray-700 px-4 py-2 rounded-lg text-sm font-medium hover:border-gray-300 disabled:opacity-50"
+            >
+              <Clock className="w-4 h-4 mr-2" />
+              {closing ? 'Закрываем...' : 'Закрыть прошедшие'}
+            </button>
+            <button
+              onClick={() => setCreateOpen(true)}
+              className="flex items-center bg-amber-500 text-white px-4 py-2 rounded-lg text-sm font-medium hover:bg-amber-600 transition-colors"
+            >
+              <Plus className="w-4 h-4 mr-2" />
+              Создать смену
+            </button>
+          </div>
         </div>
 
         <div className="overflow-x-auto">
@@ -105,7 +153,10 @@ export function CoordinatorShiftManagement() {
                     </td>
                     <td className="px-6 py-4 text-sm text-gray-700">{SHIFT_LABEL[shift.shiftType]}</td>
                     <td className="px-6 py-4 text-sm text-gray-700">{taskCountMap[shift.id] ?? '—'}</td>
-                    <td className="px-6 py-4 text-sm text-gray-700">{volCountMap[shift.id] ?? '—'}</td>
+                    <td className="px-6 py-4 text-sm text-gray-700">
+                      {volCountMap[shift.id] ?? '—'}
+                      {shift.capacity ? ` / ${shift.capacity}` : ''}
+                    </td>
                     <td className="px-6 py-4">
                       <span className={`px-3 py-1 rounded-full text-xs font-semibold ${shift.closedAt ? 'bg-green-100 text-green-700' : 'bg-amber-100 text-amber-700'}`}>
                         {shift.closedAt ? 'Закрыта' : 'Открыта'}
@@ -168,6 +219,16 @@ export function CoordinatorShiftManagement() {
                   <option value="full_day">Полный день</option>
                 </select>
               </div>
+              <div>
+                <label className="block text-sm text-gray-700 mb-1">Мест (пусто — без ограничения)</label>
+                <input
+                  type="number"
+                  min={1}
+                  className="w-full rounded-lg border-gray-300 px-3 py-2 focus:ring-amber-500 focus:border-amber-500"
+                  value={newShift.capacity}
+                  onChange={(e) => setNewShift((prev) => ({ ...prev, capacity: e.target.value }))}
+                />
+              </div>
               <div className="flex justify-end gap-3 pt-2">
                 <button
                   onClick={() => setCreateOpen(false)}
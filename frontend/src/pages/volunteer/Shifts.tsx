@@ -122,6 +122,7 @@ export function VolunteerShifts() {
   const statusPill = (shift: VolunteerShift) => {
     if (shift.approvedAt) return { text: 'Закрыта', className: 'bg-green-100 text-green-700' };
     if (shift.attendanceStatus === 'absent') return { text: 'Отписан', className: 'bg-red-100 text-red-700' };
+    if (shift.attendanceStatus === 'waitlisted') return { text: 'Лист ожидания', className: 'bg-gray-100 text-gray-700' };
     return { text: 'Записан', className: 'bg-amber-100 text-amber-700' };
   };
 
@@ -149,9 +150,9 @@ export function VolunteerShifts() {
                 className="w-full mt-2 px-3 py-2 bg-amber-500 text-white rounded-lg text-sm font-semibold hover:bg-amber-600"
                 onClick={async () => {
                   try {
-                    await signupShift(shift.id);
+                    const message = await signupShift(shift.id);
                     await load();
-                    alert('Вы записаны на смену');
+                    alert(message || 'Вы записаны на смену');
                   } catch (e: any) {
                     alert(e?.response?.data?.message || 'Не удалось записаться');
                   }
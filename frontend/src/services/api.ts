@@ -1,11 +1,15 @@
 import { api } from './http';
-import { Animal, AnimalMedia, Application, ApplicationStatus, AuthUser, MedicalRecord, Notification, Shift, UserProfile, Task, PostAdoptionReport, Interview, Agreement, ShiftVolunteer, TaskShift, VolunteerApplication, VolunteerShift } from '../types';
+import { Agreement, AgreementPage, Animal, AnimalMedia, Application, ApplicationQueuePage, ApplicationStatus, AuthUser, MedicalRecord, Notification, NotificationPage, Shift, ShiftBulkCloseResult, ShiftRoster, UserProfile, Task, PostAdoptionReport, Interview, ShiftVolunteer, TaskShift, VolunteerApplication, VolunteerShift } from '../types';
 
 export async function login(email: string, password: string): Promise<AuthUser> {
   const { data } = await api.post<AuthUser>('/auth/login', { email, password });
   return data;
 }
 
+export async function logout(refreshToken: string): Promise<void> {
+  await api.post('/auth/logout', { refreshToken });
+}
+
 export async function registerCandidate(data: { email: string; password: string; firstName: string; lastName: string; phone?: string; role?: 'candidate' | 'volunteer'; }): Promise<AuthUser> {
   const { data: resp } = await api.post<AuthUser>('/auth/register', data);
   return resp;
@@ -123,6 +127,20 @@ export async function getApplications(status?: ApplicationStatus): Promise<Appli
   return data;
 }
 
+export async function getApplicationQueue(params: {
+  status?: ApplicationStatus;
+  animalId?: number;
+  candidateId?: number;
+  from?: string;
+  to?: string;
+  sort?: 'newest' | 'oldest';
+  cursor?: string;
+  limit?: number;
+} = {}): Promise<ApplicationQueuePage> {
+  const { data } = await api.get<ApplicationQueuePage>('/adoptions/applications/queue', { params });
+  return data;
+}
+
 export async function getApplicationById(id: number): Promise<Application> {
   const { data } = await api.get<Application>(`/adoptions/applications/${id}`);
   return data;
@@ -152,6 +170,16 @@ export async function getNotifications(): Promise<Notification[]> {
   return data;
 }
 
+export async function getNotificationsPage(before?: string, limit?: number): Promise<NotificationPage> {
+  const { data } = await api.get<NotificationPage>(`/notifications/me/page`, { params: { before, limit } });
+  return data;
+}
+
+export async function getUnreadNotificationsCount(): Promise<number> {
+  const { data } = await api.get<{ unread: number }>(`/notifications/me/unread-count`);
+  return data.unread;
+}
+
 export async function markNotificationRead(id: number) {
   await api.post(`/notifications/${id}/read`);
 }
@@ -188,6 +216,11 @@ export async function getMyShifts(): Promise<VolunteerShift[]> {
   return data;
 }
 
+export async function getShiftRoster(from: string, to: string): Promise<ShiftRoster[]> {
+  const { data } = await api.get<ShiftRoster[]>('/shifts/roster', { params: { from, to } });
+  return data;
+}
+
 export async function getShiftVolunteers(shiftId: number): Promise<ShiftVolunteer[]> {
   const { data } = await api.get<ShiftVolunteer[]>(`/shifts/${shiftId}/volunteers`);
   return data;
@@ -198,8 +231,9 @@ export async function getShiftTasks(shiftId: number): Promise<TaskShift[]> {
   return data;
 }
 
-export async function signupShift(shiftId: number) {
-  await api.post('/shifts/signup', { shiftId });
+export async function signupShift(shiftId: number): Promise<string> {
+  const { data } = await api.post<{ message: string }>('/shifts/signup', { shiftId });
+  return data.message;
 }
 
 export async function updateShiftTask(
@@ -241,15 +275,21 @@ export async function closeShift(shiftId: number) {
   return data;
 }
 
+export async function closeShiftsBulk(payload: { shiftIds?: number[]; from?: string; to?: string; workedHours?: number }) {
+  const { data } = await api.post<ShiftBulkCloseResult>('/shifts/bulk-close', payload);
+  return data;
+}
+
 export async function unsubscribeShift(shiftId: number, reason: string) {
   const { data } = await api.post(`/shifts/${shiftId}/unsubscribe`, { reason });
   return data;
 }
 
-export async function createShift(payload: { shiftDate: string; shiftType: Shift['shiftType'] }) {
+export async function createShift(payload: { shiftDate: string; shiftType: Shift['shiftType']; capacity?: number }) {
   const { data } = await api.post<Shift>('/shifts', {
     shiftDate: payload.shiftDate,
-    shiftType: payload.shiftType
+    shiftType: payload.shiftType,
+    capacity: payload.capacity
   });
   return data;
 }
@@ -350,11 +390,33 @@ export async function getAgreement(id: number): Promise<Agreement> {
   return data;
 }
 
-export async function getAgreements(): Promise<Agreement[]> {
-  const { data } = await api.get<Agreement[]>('/adoptions/agreements');
+export async function getAgreementsPage(cursor?: string, limit?: number): Promise<AgreementPage> {
+  const { data } = await api.get<AgreementPage>('/adoptions/agreements/page', { params: { cursor, limit } });
   return data;
 }
 
+// Экраны, сопоставляющие договоры с заявками на клиенте, получают все договоры постранично.
+export async function getAgreements(): Promise<Agreement[]> {
+  const result: Agreement[] = [];
+  let cursor: string | undefined;
+  do {
+    const page = await getAgreementsPage(cursor, 100);
+    result.push(...page.items);
+    cursor = page.nextCursor;
+  } while (cursor);
+  return result;
+}
+
+export async function getAgreementByApplication(applicationId: number): Promise<Agreement | null> {
+  try {
+    const { data } = await api.get<Agreement>(`/adoptions/agreements/by-application/${applicationId}`);
+    return data;
+  } catch (e: any) {
+    if (e?.response?.status === 404) return null;
+    throw e;
+  }
+}
+
 export async function createAgreement(applicationId: number, postAdoptionPlan: string) {
   const { data } = await api.post<Agreement>('/adoptions/agreements', {
     applicationId,
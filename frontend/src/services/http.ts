@@ -8,7 +8,53 @@ const api = axios.create({
   }
 });
 
-let isRefreshing = false;
+let refreshPromise: Promise<AuthUser | null> | null = null;
+
+function readStoredUser(): AuthUser | null {
+  const stored = localStorage.getItem('petHavenUser');
+  return stored ? (JSON.parse(stored) as AuthUser) : null;
+}
+
+const REFRESH_LOCK = 'petHaven-refresh';
+
+// Пару обновляет одна вкладка за раз. Ждавшая вкладка перечитывает localStorage: если access-токен
+// уже сменился, другая вкладка обновила пару, и повторно предъявлять одноразовый refresh-токен нельзя.
+async function rotate(failedAccessToken?: string): Promise<AuthUser | null> {
+  const current = readStoredUser();
+  if (!current?.refreshToken) {
+    return null;
+  }
+  if (failedAccessToken && current.accessToken && current.accessToken !== failedAccessToken) {
+    return current;
+  }
+  try {
+    const { data } = await axios.post<AuthUser>(`${api.defaults.baseURL}/auth/refresh`, {
+      refreshToken: current.refreshToken
+    });
+    // в окне одновременного обновления сервер выдает только access-токен: refresh-токен
+    // уже сохранила вкладка, погасившая его первой
+    const latest = readStoredUser();
+    const next = { ...current, ...data, refreshToken: data.refreshToken || latest?.refreshToken || current.refreshToken };
+    localStorage.setItem('petHavenUser', JSON.stringify(next));
+    window.dispatchEvent(new CustomEvent<AuthUser>('auth:refreshed', { detail: next }));
+    return next;
+  } catch {
+    // вкладка без поддержки блокировок могла успеть обновить пару параллельно
+    const latest = readStoredUser();
+    return latest?.refreshToken && latest.refreshToken !== current.refreshToken ? latest : null;
+  }
+}
+
+// Один запрос обновления на все параллельные 401 вкладки; между вкладками — через Web Locks.
+function refreshSession(failedAccessToken?: string): Promise<AuthUser | null> {
+  if (!refreshPromise) {
+    const run = () => rotate(failedAccessToken);
+    refreshPromise = ('locks' in navigator ? navigator.locks.request(REFRESH_LOCK, run) : run()).finally(() => {
+      refreshPromise = null;
+    });
+  }
+  return refreshPromise;
+}
 
 api.interceptors.request.use(config => {
   const stored = localStorage.getItem('petHavenUser');
@@ -28,8 +74,17 @@ api.interceptors.response.use(
   response => response,
   async error => {
     const originalRequest = error.config;
-    if (error.response?.status === 401 && !originalRequest._retry) {
-      isRefreshing = false;
+    if (error.response?.status === 401 && originalRequest && !originalRequest._retry) {
+      originalRequest._retry = true;
+      const sentAuthorization = String(originalRequest.headers?.Authorization ?? '');
+      const refreshed = await refreshSession(sentAuthorization.replace(/^Bearer /, '') || undefined);
+      if (refreshed) {
+        originalRequest.headers = {
+          ...originalRequest.headers,
+          Authorization: `Bearer ${refreshed.accessToken}`
+        };
+        return api(originalRequest);
+      }
       localStorage.removeItem('petHavenUser');
     }
     return Promise.reject(error);
@@ -8,6 +8,7 @@ export interface AuthUser {
   phoneNumber?: string;
   roles: Role[];
   accessToken: string;
+  refreshToken?: string;
   avatarUrl?: string;
 }
 
@@ -114,6 +115,7 @@ export interface Shift {
   shiftDate: string;
   shiftType: 'morning' | 'evening' | 'full_day';
   closedAt?: string;
+  capacity?: number;
 }
 
 export interface Interview {
@@ -168,6 +170,36 @@ export interface Notification {
   read: boolean;
 }
 
+export interface ApplicationQueueItem {
+  id: number;
+  status: ApplicationStatus;
+  createdAt?: string;
+  animalId: number;
+  animalName?: string;
+  animalSpecies?: string;
+  candidateId: number;
+  candidateFirstName?: string;
+  candidateLastName?: string;
+  candidateEmail?: string;
+  processedBy?: number;
+  passportUrl?: string;
+}
+
+export interface ApplicationQueuePage {
+  items: ApplicationQueueItem[];
+  nextCursor?: string;
+}
+
+export interface AgreementPage {
+  items: Agreement[];
+  nextCursor?: string;
+}
+
+export interface NotificationPage {
+  items: Notification[];
+  nextCursor?: string;
+}
+
 export interface Agreement {
   id: number;
   applicationId: number;
@@ -183,12 +215,18 @@ export interface Agreement {
   coordinatorLastName?: string;
   coordinatorPhone?: string;
   coordinatorAvatar?: string;
+  candidateId?: number;
+  candidateFirstName?: string;
+  candidateLastName?: string;
+  animalId?: number;
+  animalName?: string;
+  documentStatus?: 'generating' | 'ready' | 'failed';
 }
 
 export interface ShiftVolunteer {
   shiftId: number;
   volunteerId: number;
-  attendanceStatus: 'signed_up' | 'attended' | 'absent';
+  attendanceStatus: 'signed_up' | 'waitlisted' | 'attended' | 'absent';
   workedHours?: number;
   submittedAt?: string;
   approvedAt?: string;
@@ -210,6 +248,28 @@ export interface TaskShift {
   workedHours?: number;
 }
 
+export interface ShiftRosterVolunteer {
+  volunteerId: number;
+  firstName?: string;
+  lastName?: string;
+  attendanceStatus: 'signed_up' | 'waitlisted' | 'attended' | 'absent';
+  signedUpAt?: string;
+  submittedAt?: string;
+  approvedAt?: string;
+  workedHours?: number;
+}
+
+export interface ShiftRoster extends Shift {
+  volunteers: ShiftRosterVolunteer[];
+  tasks: TaskShift[];
+}
+
+export interface ShiftBulkCloseResult {
+  shiftsClosed: number;
+  volunteersApproved: number;
+  shifts: Array<{ shiftId: number; workedHours: number; volunteersApproved: number }>;
+}
+
 export interface VolunteerShift {
   shiftId: number;
   shiftDate: string;